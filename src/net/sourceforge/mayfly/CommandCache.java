@@ -0,0 +1,66 @@
+package net.sourceforge.mayfly;
+
+import net.sourceforge.mayfly.parser.PreparedCommand;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recently prepared SQL for a {@link Database}, so that
+ * preparing the same statement again (as frameworks like
+ * Hibernate tend to do) need not lex and check it again.
+ * The least recently used entries are dropped once there
+ * are more than {@link #MAXIMUM_SIZE}.
+ */
+class CommandCache {
+
+    static final int MAXIMUM_SIZE = 200;
+
+    private final Map<String, PreparedCommand> commands =
+        new LinkedHashMap<String, PreparedCommand>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                Map.Entry<String, PreparedCommand> eldest) {
+                return size() > MAXIMUM_SIZE;
+            }
+        };
+
+    /**
+     * Lexing and checking the SQL happens outside the lock, since
+     * every fork of a database shares its cache and we don't want
+     * threads which are preparing different statements to wait
+     * for each other.  If two threads prepare the same statement
+     * at once, both do the work, and the first one to finish
+     * goes in the cache.
+     */
+    PreparedCommand prepare(String sql, Options options) {
+        PreparedCommand found = lookUp(sql, options);
+        if (found != null) {
+            return found;
+        }
+        return add(sql, new PreparedCommand(sql, options));
+    }
+
+    private synchronized PreparedCommand lookUp(String sql, Options options) {
+        PreparedCommand found = commands.get(sql);
+        if (found == null || found.options() != options) {
+            return null;
+        }
+        return found;
+    }
+
+    private synchronized PreparedCommand add(
+        String sql, PreparedCommand prepared) {
+        PreparedCommand found = commands.get(sql);
+        if (found != null && found.options() == prepared.options()) {
+            return found;
+        }
+        commands.put(sql, prepared);
+        return prepared;
+    }
+
+    synchronized int size() {
+        return commands.size();
+    }
+
+}
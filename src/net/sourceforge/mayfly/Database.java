@@ -1,20 +1,22 @@
 package net.sourceforge.mayfly;
 
 import net.sourceforge.mayfly.datastore.DataStore;
+import net.sourceforge.mayfly.dump.DumpLoader;
 import net.sourceforge.mayfly.evaluation.command.Command;
 import net.sourceforge.mayfly.evaluation.command.UpdateStore;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.evaluation.select.StoreEvaluator;
 import net.sourceforge.mayfly.jdbc.JdbcConnection;
 import net.sourceforge.mayfly.parser.Parser;
+import net.sourceforge.mayfly.parser.PreparedCommand;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.sql.Connection;
 import java.sql.ResultSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A Database contains a set of tables, but can be managed as easily as
@@ -55,9 +57,16 @@ import java.util.Set;
  */
 public class Database {
 
-    private DataStore dataStore;
+    /* Each change makes a new store and swaps it in only if nobody
+       else has swapped in another since the change read the store.
+       This lets any number of threads share a database: readers
+       never wait, and a writer which loses the race tries again
+       on top of the winner's store. */
+    private final AtomicReference<DataStore> dataStore =
+        new AtomicReference<DataStore>();
     private final MayflyConnection defaultConnection;
-    private Options options = new Options();
+    private volatile Options options;
+    private final CommandCache commandCache;
 
     /**
      * Create an empty database (one with no tables).
@@ -70,12 +79,46 @@ public class Database {
      * Create a database starting with the contents of a {@link net.sourceforge.mayfly.datastore.DataStore},
      * which you'd normally get from the {@link #dataStore()} method of
      * another {@link Database} object.
+     * 
+     * A {@link DataStore} is immutable, so the new database shares it
+     * rather than copying it, and this takes the same (small, constant)
+     * time however much data there is.  Each database only replaces
+     * the parts it changes, so any number of databases can start from
+     * the same store, on any number of threads, without affecting each
+     * other.
      */
     public Database(DataStore store) {
+        this(store, new Options(), new CommandCache());
+    }
+
+    private Database(DataStore store, Options options, 
+        CommandCache commandCache) {
         setDataStore(store);
+        this.options = options;
+        this.commandCache = commandCache;
         defaultConnection = new MayflyConnection(this);
     }
 
+    /**
+     * Create a new database which starts with the contents and options
+     * of this one.  From then on, changes to either database do not 
+     * affect the other.  As with {@link #Database(DataStore)}, nothing
+     * is copied, so this is cheap enough to do for every test.
+     * 
+     * <p>Example:</p>
+     * <pre>
+     * static final Database standardSetup = makeData();
+     * 
+     * Database database;
+     * public void setUp() {
+     * &nbsp;&nbsp;&nbsp;&nbsp;database = standardSetup.fork();
+     * }
+     * </pre>
+     */
+    public Database fork() {
+        return new Database(dataStore(), options, commandCache);
+    }
+
     /**
      * Execute an SQL command which does not return results.
      * This is similar to the JDBC java.sql.Statement#executeUpdate(java.lang.String)
@@ -89,25 +132,58 @@ public class Database {
 
     /**
      * Execute a series of SQL commands separated by semicolons.
+     * Each command is executed as soon as it has been read, so
+     * a long script need not fit in memory.  This also means that
+     * if the script has a syntax error, the commands before the
+     * error have already been executed (just as they have if a
+     * command fails when executed).
      * This method closes the reader when done.
      */
     public void executeScript(Reader script) throws MayflyException {
         try {
-            List commands = new Parser(script, options).parseCommands();
-            for (Iterator iter = commands.iterator(); iter.hasNext();) {
-                Command command = (Command) iter.next();
+            Parser parser = new Parser(script, options);
+            for (Command command = parser.nextCommand(); command != null;
+                command = parser.nextCommand()) {
                 defaultConnection.executeUpdate(command);
             }
         }
         finally {
-            try {
-                script.close();
-            } catch (IOException e) {
-                // Location should probably be where we stopped
-                // reading, which I guess is always end of file.
-                throw new MayflyException(e);
+            close(script);
+        }
+    }
+
+    /**
+     * Execute a script written by
+     * {@link net.sourceforge.mayfly.dump.SqlDumper}, loading the
+     * rows of different tables in parallel (see {@link DumpLoader}).
+     * Unlike {@link #executeScript(Reader)}, the changes are
+     * only made once the whole script has succeeded; if it fails,
+     * the database is left as it was.  It also fails if another
+     * thread changes the database while the script is loading.
+     * This method closes the reader when done.
+     */
+    public void loadDump(Reader script) throws MayflyException {
+        try {
+            DataStore before = dataStore();
+            DataStore loaded = new DumpLoader().load(before, script, options);
+            if (!replaceDataStore(before, loaded)) {
+                throw new MayflyException(
+                    "database was changed while loading dump");
             }
         }
+        finally {
+            close(script);
+        }
+    }
+
+    private void close(Reader script) {
+        try {
+            script.close();
+        } catch (IOException e) {
+            // Location should probably be where we stopped
+            // reading, which I guess is always end of file.
+            throw new MayflyException(e);
+        }
     }
 
     /**
@@ -115,10 +191,36 @@ public class Database {
      * Only intended for use within Mayfly.
      */
     public UpdateStore executeUpdate(Command command, String currentSchema) {
-        Evaluator evaluator = new StoreEvaluator(dataStore, currentSchema);
-        UpdateStore result = command.update(evaluator);
-        dataStore = result.store();
-        return result;
+        while (true) {
+            DataStore before = dataStore();
+            Evaluator evaluator = new StoreEvaluator(before, currentSchema);
+            UpdateStore result = command.update(evaluator);
+            if (replaceDataStore(before, result.store())) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Set the store to replacement, but only if it is still
+     * expected (that is, nobody else has changed it since
+     * the caller read it).
+     * 
+     * @return Whether the store was replaced.
+     */
+    boolean replaceDataStore(DataStore expected, DataStore replacement) {
+        if (replacement == null) {
+            throw new NullPointerException("Attempt to set data store to null");
+        }
+        return dataStore.compareAndSet(expected, replacement);
+    }
+
+    /**
+     * @internal
+     * Only intended for use within Mayfly.
+     */
+    public PreparedCommand prepare(String sql) {
+        return commandCache.prepare(sql, options);
     }
 
     /**
@@ -160,7 +262,7 @@ public class Database {
      * being more convenient than DatabaseMetaData.</p>
      */
     public Set schemas() {
-        return dataStore.schemas();
+        return dataStore().schemas();
     }
 
     /**
@@ -242,7 +344,7 @@ public class Database {
     @see {@link JdbcDriver#create(DataStore)}
      */
     public DataStore dataStore() {
-        return dataStore;
+        return dataStore.get();
     }
 
     /**
@@ -263,7 +365,7 @@ public class Database {
         if (store == null) {
             throw new NullPointerException("Attempt to set data store to null");
         }
-        dataStore = store;
+        dataStore.set(store);
     }
 
     public Options options() {
@@ -7,8 +7,10 @@ import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * JDBC Driver for Mayfly.
@@ -40,7 +42,8 @@ import java.util.Properties;
  * <li>If you want to start a database with some tables or
  * data, you can call {@link #create(DataStore)}, which will
  * return a new URL to you.  This database lives until the next
- * call to {@link #shutdown}.
+ * call to {@link #shutdown()}, or until you pass its URL to
+ * {@link #shutdown(String)}.
  * </li>
  * </ol>
  * 
@@ -84,9 +87,12 @@ public class JdbcDriver implements Driver {
     }
     
     public void tearDown() {
-    &nbsp;&nbsp;&nbsp;&nbsp;JdbcDriver.shutdown();
+    &nbsp;&nbsp;&nbsp;&nbsp;JdbcDriver.shutdown(jdbcUrl);
     }
     </pre>
+     * <p>This is cheap (see {@link Database#Database(DataStore)}),
+     * and may be called from several threads at once.</p>
+     * 
      * @param dataStore The initial contents of the database.
      * @return A JDBC URL which you can use to access the database.
      */
@@ -121,6 +127,20 @@ public class JdbcDriver implements Driver {
         getMayflyDriver().shutdownInDriver();
     }
 
+    /**
+     * Destroy one database managed by {@link JdbcDriver}: one created
+     * with {@link #create(DataStore)}, or the default database.
+     * 
+     * <p>This is for tests which run in parallel, each with its own
+     * database, so that each test can clean up after itself (in its
+     * tearDown method) without destroying the databases of tests which
+     * are still running.  Destroying a database which has already been
+     * destroyed does nothing.</p>
+     */
+    public static void shutdown(String url) {
+        getMayflyDriver().shutdownInDriver(url);
+    }
+
     private static JdbcDriver getMayflyDriver() {
         try {
             return (JdbcDriver) DriverManager.getDriver(JDBC_URL_PREFIX);
@@ -143,36 +163,43 @@ public class JdbcDriver implements Driver {
         }
     }
     
-    private HashMap databases = new HashMap();
-    private int nextId;
+    private final ConcurrentMap<String, Database> databases = 
+        new ConcurrentHashMap<String, Database>();
+    private final AtomicInteger nextId = new AtomicInteger();
 
     public Connection connect(String url, Properties info) throws SQLException {
         return findDatabase(url).openConnection();
     }
 
     private Database findDatabase(String url) throws MayflySqlException {
-        if (DEFAULT_DATABASE.equals(url)) {
-            if (!databases.containsKey(DEFAULT_DATABASE)) {
-                databases.put(DEFAULT_DATABASE, new Database());
+        Database found = databases.get(url);
+        if (found == null && DEFAULT_DATABASE.equals(url)) {
+            Database created = new Database();
+            found = databases.putIfAbsent(DEFAULT_DATABASE, created);
+            if (found == null) {
+                found = created;
             }
         }
         
-        if (databases.containsKey(url)) {
-            return (Database) databases.get(url);
-        } else {
+        if (found == null) {
             throw new MayflyException(
                 "Mayfly JDBC URL " + url + " not recognized").asSqlException();
         }
+        return found;
     }
 
     private String createInDriver(DataStore dataStore) {
-        String url = JDBC_URL_PREFIX + nextId++;
+        String url = JDBC_URL_PREFIX + nextId.getAndIncrement();
         databases.put(url, new Database(dataStore));
         return url;
     }
 
     private void shutdownInDriver() {
-        databases = new HashMap();
+        databases.clear();
+    }
+
+    private void shutdownInDriver(String url) {
+        databases.remove(url);
     }
 
     public boolean acceptsURL(String url) throws SQLException {
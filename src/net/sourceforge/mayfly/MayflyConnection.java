@@ -1,20 +1,28 @@
 package net.sourceforge.mayfly;
 
 import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.datastore.ColumnNames;
 import net.sourceforge.mayfly.datastore.DataStore;
 import net.sourceforge.mayfly.datastore.NullCell;
 import net.sourceforge.mayfly.datastore.Schema;
 import net.sourceforge.mayfly.datastore.StringCell;
 import net.sourceforge.mayfly.datastore.TableData;
+import net.sourceforge.mayfly.datastore.TableReference;
+import net.sourceforge.mayfly.evaluation.Checker;
+import net.sourceforge.mayfly.evaluation.RealChecker;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
 import net.sourceforge.mayfly.evaluation.command.Command;
+import net.sourceforge.mayfly.evaluation.command.Insert;
 import net.sourceforge.mayfly.evaluation.command.SetSchema;
 import net.sourceforge.mayfly.evaluation.command.UpdateStore;
 import net.sourceforge.mayfly.evaluation.expression.SingleColumn;
 import net.sourceforge.mayfly.evaluation.select.StoreEvaluator;
 import net.sourceforge.mayfly.evaluation.what.Selected;
+import net.sourceforge.mayfly.parser.PreparedCommand;
 
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collections;
@@ -37,8 +45,9 @@ import java.util.Set;
 public class MayflyConnection {
 
     private final Database database;
-    private boolean autoCommit = true;
-    //private DataStore rollbackPoint;
+    /** Null when auto-commit is on. */
+    private Transaction transaction;
+    private int isolation = Connection.TRANSACTION_READ_COMMITTED;
     private String currentSchema = DataStore.ANONYMOUS_SCHEMA_NAME;
     private Cell lastIdentity = NullCell.INSTANCE;
 
@@ -53,7 +62,7 @@ public class MayflyConnection {
 
     public ResultSet query(Command select) {
         return select.select(
-            new StoreEvaluator(database.dataStore(), currentSchema, 
+            new StoreEvaluator(readStore(), currentSchema, 
                 database.options()), 
             lastIdentity);
     }
@@ -63,24 +72,203 @@ public class MayflyConnection {
         return executeUpdate(command);
     }
 
+    public PreparedCommand prepare(String sql) {
+        return database.prepare(sql);
+    }
+
     public int executeUpdate(Command command) {
         if (command instanceof SetSchema) {
-            SetSchema setSchema = (SetSchema) command;
-            String proposed = setSchema.name();
-            database.dataStore().schema(proposed);
-            currentSchema = proposed;
+            setSchema((SetSchema) command, readStore());
             return 0;
         }
-        UpdateStore updateResult = 
-            database.executeUpdate(command, currentSchema);
+        UpdateStore updateResult;
+        if (transaction == null) {
+            updateResult = database.executeUpdate(command, currentSchema);
+        }
+        else {
+            updateResult = transaction.update(
+                database, repeatableRead(), command, currentSchema);
+        }
         if (updateResult.newIdentityValue != null) {
             lastIdentity = updateResult.newIdentityValue;
         }
         return updateResult.rowsAffected();
     }
 
+    private void setSchema(SetSchema command, DataStore store) {
+        String proposed = command.name();
+        store.schema(proposed);
+        currentSchema = proposed;
+    }
+
+    /**
+     * Execute several commands in order, each seeing the changes
+     * made by the ones before it.  With auto-commit on, the new
+     * data store is published once, at the end, rather than after
+     * each command (and if another connection changes the database
+     * first, the whole batch is executed again on top of its change).
+     * Consecutive inserts into the same table (as from a
+     * PreparedStatement batch) add their rows to a single copy
+     * of the table.
+     * 
+     * If a command fails, the changes from the commands before it
+     * are kept (as they would be if executed one at a time),
+     * and the exception reports how many rows each of those changed.
+     * 
+     * @return The number of rows changed by each command.
+     */
+    public int[] executeBatch(List<Command> commands) 
+    throws BatchUpdateException {
+        if (transaction != null) {
+            return executeEach(commands);
+        }
+
+        String schemaBefore = currentSchema;
+        Cell identityBefore = lastIdentity;
+        while (true) {
+            DataStore before = database.dataStore();
+            Batch batch = new Batch(before, commands);
+            MayflyException failure = null;
+            try {
+                batch.execute();
+            }
+            catch (MayflyException e) {
+                failure = e;
+            }
+
+            if (database.replaceDataStore(before, batch.store)) {
+                if (failure != null) {
+                    throw batchFailure(failure, batch.counts, batch.done);
+                }
+                return batch.counts;
+            }
+            currentSchema = schemaBefore;
+            lastIdentity = identityBefore;
+        }
+    }
+
+    /**
+     * The working copy of the store for
+     * {@link MayflyConnection#executeBatch(List)}.  If a command
+     * fails, store has the changes from the commands before it,
+     * and done is the position of the failing command.
+     */
+    private class Batch {
+        private final List<Command> commands;
+        DataStore store;
+        final int[] counts;
+        int done = 0;
+
+        Batch(DataStore store, List<Command> commands) {
+            this.store = store;
+            this.commands = commands;
+            this.counts = new int[commands.size()];
+        }
+
+        void execute() {
+            while (done < commands.size()) {
+                Command command = commands.get(done);
+                if (command instanceof SetSchema) {
+                    setSchema((SetSchema) command, store);
+                    counts[done++] = 0;
+                }
+                else if (command instanceof Insert) {
+                    insertRun((Insert) command);
+                }
+                else {
+                    UpdateStore updateResult = command.update(
+                        new StoreEvaluator(store, currentSchema));
+                    store = updateResult.store();
+                    if (updateResult.newIdentityValue != null) {
+                        lastIdentity = updateResult.newIdentityValue;
+                    }
+                    counts[done++] = updateResult.rowsAffected();
+                }
+            }
+        }
+
+        /**
+         * Add the rows from the inserts into table which start at
+         * done, checking each row as {@link Insert} would.  Only
+         * a foreign key from the table to itself needs to see the
+         * rows added so far; for other tables, the store from
+         * before the run is the same.
+         */
+        private void insertRun(Insert first) {
+            TableReference table = 
+                first.table.resolve(store, currentSchema, null);
+            TableData data = store.table(table);
+            boolean refersToSameTable = data.constraints.refersToSameTable();
+            try {
+                while (done < commands.size() && 
+                    insertsInto(commands.get(done), first, table)) {
+                    Insert insert = (Insert) commands.get(done);
+                    DataStore checkAgainst = refersToSameTable ?
+                        store.replaceTableRows(table, data) : store;
+                    Checker checker = new RealChecker(checkAgainst, table,
+                        insert.location, insert.table.options);
+                    ColumnNames columns = ColumnNames.fromParser(
+                        store, table, insert.columnNames);
+                    data = data.addRow(checker, table, columns.asList(),
+                        insert.values);
+                    if (checker.newIdentityValue() != null) {
+                        lastIdentity = checker.newIdentityValue();
+                    }
+                    counts[done++] = 1;
+                }
+            }
+            finally {
+                store = store.replaceTableRows(table, data);
+            }
+        }
+
+        private boolean insertsInto(
+            Command command, Insert first, TableReference table) {
+            if (!(command instanceof Insert)) {
+                return false;
+            }
+            if (((Insert) command).table == first.table) {
+                // Bound from the same PreparedCommand
+                return true;
+            }
+            try {
+                TableReference target = ((Insert) command).table.resolve(
+                    store, currentSchema, null);
+                return table.matches(target.schema(), target.tableName());
+            }
+            catch (MayflyException e) {
+                // Let the insert fail on its own
+                return false;
+            }
+        }
+    }
+
+    private int[] executeEach(List<Command> commands)
+    throws BatchUpdateException {
+        int[] counts = new int[commands.size()];
+        for (int i = 0; i < counts.length; ++i) {
+            try {
+                counts[i] = executeUpdate(commands.get(i));
+            }
+            catch (MayflyException e) {
+                throw batchFailure(e, counts, i);
+            }
+        }
+        return counts;
+    }
+
+    private BatchUpdateException batchFailure(
+        MayflyException e, int[] counts, int succeededCount) {
+        int[] succeeded = new int[succeededCount];
+        System.arraycopy(counts, 0, succeeded, 0, succeededCount);
+        BatchUpdateException failure = 
+            new BatchUpdateException(e.getMessage(), succeeded);
+        failure.initCause(e.asSqlException());
+        return failure;
+    }
+
     public Set tables() {
-        return database.dataStore().tables(currentSchema);
+        return readStore().tables(currentSchema);
     }
 
     public List columnNames(String tableName) {
@@ -98,51 +286,99 @@ public class MayflyConnection {
     }
 
     private Schema currentSchema() {
-        Schema schema = database.dataStore().schema(currentSchema);
+        Schema schema = readStore().schema(currentSchema);
         return schema;
     }
 
     public int rowCount(String tableName) {
-        TableData tableData = database.dataStore().table(currentSchema, tableName);
+        TableData tableData = readStore().table(currentSchema, tableName);
         return tableData.rowCount();
     }
     
     public List<String> indexes(String tableName) {
-        TableData tableData = database.dataStore().table(currentSchema, tableName);
+        TableData tableData = readStore().table(currentSchema, tableName);
         return tableData.indexes.names();
     }
 
+    /**
+     * Turning auto-commit on commits the transaction in
+     * progress, if any.
+     */
     public void setAutoCommit(boolean autoCommit) throws SQLException {
-        this.autoCommit  = autoCommit;
-        startTransaction();
+        if (autoCommit) {
+            commit();
+            transaction = null;
+        }
+        else if (transaction == null) {
+            transaction = new Transaction();
+        }
     }
 
     public boolean getAutoCommit() throws SQLException {
-        return autoCommit;
+        return transaction == null;
+    }
+
+    /**
+     * With auto-commit off, statements see the changes made earlier
+     * in the transaction, but no uncommitted changes from other
+     * connections.  Until the transaction makes a change, a read
+     * sees the latest committed data, or, at
+     * {@link Connection#TRANSACTION_REPEATABLE_READ} or above, the
+     * data as of the first read in the transaction.
+     * {@link Connection#TRANSACTION_READ_UNCOMMITTED} is treated as
+     * {@link Connection#TRANSACTION_READ_COMMITTED}.
+     */
+    public void setTransactionIsolation(int level) {
+        isolation = level;
+    }
+
+    public int getTransactionIsolation() {
+        return isolation;
+    }
+
+    private boolean repeatableRead() {
+        return isolation == Connection.TRANSACTION_REPEATABLE_READ
+            || isolation == Connection.TRANSACTION_SERIALIZABLE;
     }
 
-    private void startTransaction() {
-        //rollbackPoint = database.dataStore();
+    /**
+     * The store which a statement on this connection reads.
+     */
+    private DataStore readStore() {
+        if (transaction == null) {
+            return database.dataStore();
+        }
+        return transaction.read(database, repeatableRead());
     }
 
+    /**
+     * If another connection has committed since this transaction
+     * started, the commit fails at
+     * {@link Connection#TRANSACTION_REPEATABLE_READ} and above.  At
+     * lower levels it succeeds only if our commands, executed again
+     * on top of the other connection's changes, succeed and give the
+     * same results (rows changed and generated keys) as before.
+     * If the commit fails, the transaction is rolled back.
+     */
     public void commit() throws SQLException {
-        startTransaction();
+        if (transaction == null) {
+            return;
+        }
+        Transaction committing = transaction;
+        transaction = new Transaction();
+        try {
+            committing.commit(database, !repeatableRead());
+        }
+        catch (MayflyException e) {
+            throw e.asSqlException();
+        }
     }
 
     public void rollback() throws SQLException {
-        if (autoCommit) {
+        if (transaction == null) {
             return;
         }
-        throw new UnimplementedException("Rollback not implemented");
-        /* Seems to me like this implementation is limited to
-           the point of irresponsibility.  It clobbers changes
-           which were committed in another transaction.
-           
-           If we could detect whether another transaction has committed
-           something, and throw an exception in that case, it wouldn't
-           be so bad.
-         */
-//        database.setDataStore(rollbackPoint);
+        transaction = new Transaction();
     }
 
     public ResultSet getColumns(String table, String targetColumn) {
@@ -165,7 +401,7 @@ public class MayflyConnection {
     }
 
     public DataStore snapshot() {
-        return database.dataStore();
+        return readStore();
     }
 
     public Options options() {
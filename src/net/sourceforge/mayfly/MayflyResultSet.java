@@ -4,10 +4,12 @@ import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.NullCell;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.evaluation.Value;
 import net.sourceforge.mayfly.evaluation.ValueList;
 import net.sourceforge.mayfly.evaluation.what.Selected;
 import net.sourceforge.mayfly.parser.Location;
+import net.sourceforge.mayfly.util.L;
 
 import org.joda.time.DateTimeZone;
 
@@ -22,26 +24,62 @@ import java.util.Calendar;
 
 public final class MayflyResultSet extends ResultSetStub {
 
-    private int pos = -1;
     private boolean wasNull = false;
 
-    private final ResultRows rows;
+    private RowSource rows;
     private final Selected selected;
 
+    private boolean beforeFirst = true;
+    private ResultRow firstRow;
+    private ResultRow currentRow;
+
     public MayflyResultSet(Selected selected, ResultRows rows) {
+        this(selected, RowSource.of(rows));
+    }
+
+    /**
+     * @internal
+     * Rows are read from the source as {@link #next()} asks
+     * for them.  We read the first one right away, so that
+     * most problems with the query show up when it is executed.
+     */
+    public MayflyResultSet(Selected selected, RowSource rows) {
         super();
         this.selected = selected;
         this.rows = rows;
+        rows.open();
+        firstRow = rows.next();
     }
 
     @Override
-    public boolean next() {
-        ++pos;
-        if (pos >= rows.rowCount()) {
+    public boolean next() throws SQLException {
+        try {
+            return advance();
+        } catch (MayflyException e) {
+            throw e.asSqlException();
+        }
+    }
+
+    /**
+     * @internal
+     * Like {@link #next()}, but for use within Mayfly (problems
+     * are reported as {@link MayflyException}).
+     */
+    public boolean advance() {
+        if (beforeFirst) {
+            beforeFirst = false;
+            currentRow = firstRow;
+            firstRow = null;
+        }
+        else if (currentRow != null) {
+            currentRow = rows.next();
+        }
+
+        if (currentRow == null) {
+            rows.close();
             return false;
-        } else {
-            return true;
         }
+        return true;
     }
 
     @Override
@@ -313,21 +351,18 @@ public final class MayflyResultSet extends ResultSetStub {
     }
 
     private ResultRow currentRow() throws MayflyException {
-        return rows.row(checkedRowNumber());
-    }
-
-    private int checkedRowNumber() throws MayflyException {
-        if (pos < 0) {
+        if (beforeFirst) {
             throw new MayflyException("no current result row");
         }
-        if (pos >= rows.rowCount()) {
+        if (currentRow == null) {
             throw new MayflyException("already read last result row");
         }
-        return pos;
+        return currentRow;
     }
 
     @Override
     public void close() throws SQLException {
+        rows.close();
     }
 
     public Cell scalar() {
@@ -341,16 +376,20 @@ public final class MayflyResultSet extends ResultSetStub {
     public Cell scalar(Location location) {
         checkOneColumn(location);
         
-        if (rows.rowCount() == 0) {
+        if (firstRow == null) {
             return NullCell.INSTANCE;
         }
-        else if (rows.rowCount() != 1) {
+        else if (rows.next() != null) {
+            int rowCount = 2;
+            while (rows.next() != null) {
+                ++rowCount;
+            }
             throw new MayflyException(
-                "subselect expects one row but got " + rows.rowCount(),
+                "subselect expects one row but got " + rowCount,
                 location);
         }
         
-        return selected.evaluate(1, rows.row(0));
+        return selected.evaluate(1, firstRow);
     }
     
     /**
@@ -389,8 +428,22 @@ public final class MayflyResultSet extends ResultSetStub {
         return values;
     }
 
+    /**
+     * @internal
+     * Describe the rows which have not yet been read.
+     */
     public String debugString() {
-        return rows.debugString();
+        L remaining = new L();
+        for (ResultRow row = rows.next(); row != null; row = rows.next()) {
+            remaining.add(row);
+        }
+        rows.close();
+        rows = RowSource.of(new ResultRows(remaining.asImmutable()));
+
+        if (firstRow != null) {
+            remaining.add(0, firstRow);
+        }
+        return new ResultRows(remaining.asImmutable()).debugString();
     }
 
 }
@@ -0,0 +1,148 @@
+package net.sourceforge.mayfly;
+
+import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.datastore.DataStore;
+import net.sourceforge.mayfly.evaluation.command.Command;
+import net.sourceforge.mayfly.evaluation.command.UpdateStore;
+import net.sourceforge.mayfly.evaluation.select.StoreEvaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @internal
+ * The changes which a {@link MayflyConnection} has made with
+ * auto-commit off, and not yet committed.
+ *
+ * Because a {@link DataStore} is immutable, a transaction is just
+ * the store it started from, the store with its changes, and the
+ * commands which made those changes.  Other connections keep
+ * seeing the committed store until we commit.  At commit time, if
+ * nobody else has committed since we started, we publish our store
+ * as is.
+ *
+ * If somebody has, the first committer wins and our commit fails,
+ * with one exception.  At {@link java.sql.Connection#TRANSACTION_READ_COMMITTED}
+ * we execute our commands again on top of what they committed (so
+ * that, for example, two transactions which each insert a row both
+ * get their row), provided that each command changes the same
+ * number of rows and generates the same identity value as it did
+ * the first time.  The caller has already seen those results and
+ * may have acted on them (for example, by inserting rows which
+ * refer to a generated key), so if they would change, the commit
+ * fails instead.
+ */
+class Transaction {
+
+    private DataStore base;
+    private DataStore working;
+    private final List<Change> changes = new ArrayList<Change>();
+
+    /**
+     * The store which a statement in this transaction should read.
+     * Once we have made a change, that is our own store.
+     * Before that, it is the committed store - as it is now, or, for
+     * a repeatable read, as it was when we first read it.
+     */
+    DataStore read(Database database, boolean repeatableRead) {
+        if (working != null) {
+            return working;
+        }
+        if (repeatableRead) {
+            if (base == null) {
+                base = database.dataStore();
+            }
+            return base;
+        }
+        return database.dataStore();
+    }
+
+    UpdateStore update(Database database, boolean repeatableRead,
+        Command command, String currentSchema) {
+        DataStore store = read(database, repeatableRead);
+        UpdateStore result =
+            command.update(new StoreEvaluator(store, currentSchema));
+        if (working == null) {
+            base = store;
+        }
+        working = result.store();
+        changes.add(new Change(command, currentSchema, result));
+        return result;
+    }
+
+    /**
+     * Publish our changes.
+     *
+     * @param mayReplay Whether, if another connection has committed
+     * since we started, we may execute our commands again on top of
+     * its changes.  This should be false at
+     * {@link java.sql.Connection#TRANSACTION_REPEATABLE_READ} and above,
+     * where our reads (and therefore our writes) must all be as of
+     * the store we started from.
+     */
+    void commit(Database database, boolean mayReplay) {
+        if (working == null) {
+            return;
+        }
+        if (database.replaceDataStore(base, working)) {
+            return;
+        }
+        if (!mayReplay) {
+            throw conflict("changed the database after this transaction read it");
+        }
+
+        while (true) {
+            DataStore committed = database.dataStore();
+            DataStore store = committed;
+            for (Change change : changes) {
+                UpdateStore result;
+                try {
+                    result = change.command.update(
+                        new StoreEvaluator(store, change.schema));
+                }
+                catch (MayflyException e) {
+                    throw conflict(e.getMessage());
+                }
+                if (!change.sameResult(result)) {
+                    throw conflict("changed the result of a command " +
+                        "in this transaction");
+                }
+                store = result.store();
+            }
+            if (database.replaceDataStore(committed, store)) {
+                return;
+            }
+        }
+    }
+
+    private static MayflyException conflict(String reason) {
+        return new MayflyException(
+            "cannot commit: another connection committed " +
+            "a conflicting change (" + reason + ")");
+    }
+
+    private static class Change {
+        final Command command;
+        final String schema;
+        final int rowsAffected;
+        final Cell newIdentityValue;
+
+        Change(Command command, String schema, UpdateStore firstResult) {
+            this.command = command;
+            this.schema = schema;
+            this.rowsAffected = firstResult.rowsAffected();
+            this.newIdentityValue = firstResult.newIdentityValue;
+        }
+
+        boolean sameResult(UpdateStore replayed) {
+            if (replayed.rowsAffected() != rowsAffected) {
+                return false;
+            }
+            if (newIdentityValue == null) {
+                return replayed.newIdentityValue == null;
+            }
+            return newIdentityValue.equals(replayed.newIdentityValue);
+        }
+    }
+
+}
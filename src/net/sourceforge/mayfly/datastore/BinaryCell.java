@@ -61,4 +61,14 @@ public class BinaryCell extends Cell {
         return data.asBytes();
     }
 
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof BinaryCell && ((BinaryCell) other).data.equals(data);
+    }
+
+    @Override
+    public int hashCode() {
+        return data.hashCode();
+    }
+
 }
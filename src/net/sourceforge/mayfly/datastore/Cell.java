@@ -4,7 +4,6 @@ import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.MayflySqlException;
 import net.sourceforge.mayfly.UnimplementedException;
 import net.sourceforge.mayfly.parser.Location;
-import net.sourceforge.mayfly.util.ValueObject;
 
 import org.joda.time.DateTimeZone;
 
@@ -13,7 +12,7 @@ import java.math.BigDecimal;
 import java.sql.Blob;
 import java.sql.SQLException;
 
-public abstract class Cell extends ValueObject {
+public abstract class Cell {
 
     /**
         @internal
@@ -134,6 +133,28 @@ public abstract class Cell extends ValueObject {
         return compareTo(otherCell, location) == 0;
     }
     
+    /**
+     * @internal
+     * A hash code which is consistent with {@link #sqlEquals(Cell)}
+     * for two cells of the same class, for use in hashed indexes.
+     */
+    public int sqlHashCode() {
+        return hashCode();
+    }
+
+    /**
+     * Two cells are equal if they are of the same class and hold
+     * the same value (so unlike {@link #sqlEquals(Cell)}, nulls are
+     * equal to each other, and 1.0 is not equal to 1.00).  Each
+     * subclass spells this out, rather than using reflection, because
+     * GROUP BY and DISTINCT call it for every row.
+     */
+    @Override
+    public abstract boolean equals(Object other);
+
+    @Override
+    public abstract int hashCode();
+
     /**
      * @internal
      * The kind of equality here is the kind we want for GROUP BY or
@@ -40,6 +40,9 @@ public class Columns implements Iterable<Column> {
 
     final ImmutableList<CaseInsensitiveString> columnNames;
     final ImmutableMap<CaseInsensitiveString, Column> nameToColumn;
+    
+    /** Created when first needed, see {@link #layout()} */
+    private RowLayout layout;
 
     public Columns(ImmutableList<Column> columns) {
         List names = new ArrayList();
@@ -124,12 +127,15 @@ public class Columns implements Iterable<Column> {
 
     public Columns replace(String existingName, Column replacement) {
         boolean found = false;
+        boolean sameName = false;
         List result = new ArrayList();
         for (Iterator iter = iterator(); iter.hasNext(); ) {
             Column column = (Column) iter.next();
             if (column.matches(existingName)) {
                 result.add(replacement);
                 found = true;
+                sameName = 
+                    column.columnName().equals(replacement.columnName());
             }
             else {
                 result.add(column);
@@ -138,7 +144,13 @@ public class Columns implements Iterable<Column> {
         if (!found) {
             throw new NoColumn(existingName);
         }
-        return new Columns(new ImmutableList(result));
+        Columns replaced = new Columns(new ImmutableList(result));
+        if (sameName) {
+            /* For example, the next value of an auto-increment column.
+               Keep sharing the layout with the rows we already have. */
+            replaced.layout = layout;
+        }
+        return replaced;
     }
     
     public Columns with(Column newColumn) {
@@ -206,6 +218,17 @@ public class Columns implements Iterable<Column> {
         return columnNames.size();
     }
 
+    /**
+     * @internal
+     * The layout for rows which have these columns, in this order.
+     */
+    public RowLayout layout() {
+        if (layout == null) {
+            layout = new RowLayout(columnNames);
+        }
+        return layout;
+    }
+
     public String columnName(int index) {
         return column(index).columnName();
     }
@@ -4,6 +4,8 @@ import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.MayflyInternalException;
 import net.sourceforge.mayfly.Options;
 import net.sourceforge.mayfly.datastore.constraint.Constraint;
+import net.sourceforge.mayfly.datastore.constraint.Constraints;
+import net.sourceforge.mayfly.datastore.constraint.References;
 import net.sourceforge.mayfly.evaluation.Checker;
 import net.sourceforge.mayfly.evaluation.RealChecker;
 import net.sourceforge.mayfly.evaluation.ValueList;
@@ -16,6 +18,7 @@ import net.sourceforge.mayfly.util.CaseInsensitiveString;
 import net.sourceforge.mayfly.util.ImmutableList;
 import net.sourceforge.mayfly.util.ImmutableMap;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -40,6 +43,14 @@ public class DataStore {
         new CaseInsensitiveString(ANONYMOUS_SCHEMA_NAME);
 
     private final ImmutableMap schemas;
+
+    /**
+     * @internal
+     * The foreign keys which refer to each table, found again
+     * whenever the definitions of the tables might have changed,
+     * and kept as they are when only rows change.
+     */
+    private final References references;
     
     public DataStore() {
         this(new Schema());
@@ -50,7 +61,21 @@ public class DataStore {
     }
 
     private DataStore(ImmutableMap namedSchemas) {
+        this(namedSchemas, findReferences(namedSchemas));
+    }
+
+    private DataStore(ImmutableMap namedSchemas, References references) {
         this.schemas = namedSchemas;
+        this.references = references;
+    }
+
+    private static References findReferences(ImmutableMap schemas) {
+        List<Constraints> allConstraints = new ArrayList<Constraints>();
+        for (Iterator iter = schemas.values().iterator(); iter.hasNext();) {
+            Schema schema = (Schema) iter.next();
+            allConstraints.addAll(schema.constraints());
+        }
+        return new References(allConstraints);
     }
 
     public DataStore addSchema(String newSchemaName, Schema newSchema) {
@@ -66,11 +91,28 @@ public class DataStore {
     }
 
     private DataStore replace(ImmutableMap existingSchemas, 
+        String newSchemaName, Schema newSchema) {
+        return new DataStore(
+            replaceSchema(existingSchemas, newSchemaName, newSchema));
+    }
+
+    /**
+     * Like {@link #replace(ImmutableMap, String, Schema)} but for
+     * when only rows have changed, so the foreign keys are the
+     * same as ours.
+     */
+    private DataStore replaceRows(ImmutableMap existingSchemas, 
+        String newSchemaName, Schema newSchema) {
+        return new DataStore(
+            replaceSchema(existingSchemas, newSchemaName, newSchema),
+            references);
+    }
+
+    private ImmutableMap replaceSchema(ImmutableMap existingSchemas, 
         String newSchemaName, Schema newSchema) {
         if (schemaExists(newSchemaName)) {
-            ImmutableMap newSchemas = existingSchemas.with(
+            return existingSchemas.with(
                 new CaseInsensitiveString(newSchemaName), newSchema);
-            return new DataStore(newSchemas);
         } 
         else {
             throw new MayflyInternalException("no schema " + newSchemaName);
@@ -120,7 +162,7 @@ public class DataStore {
             throw new NullPointerException("should have looked up column names by now");
         }
 
-        return replace(table.schema(),
+        return replaceRows(schemas, table.schema(),
             schema(table.schema())
                 .addRow(checker, table, columnNames, values));
     }
@@ -161,7 +203,7 @@ public class DataStore {
          * schemas - the regular code just affects the one.
          */
         ImmutableMap schemas = checker.store().schemas;
-        DataStore newStore = replace(schemas, schema, result.schema());
+        DataStore newStore = replaceRows(schemas, schema, result.schema());
 
         return new UpdateStore(
             newStore, 
@@ -171,21 +213,20 @@ public class DataStore {
 
     private UpdateStore replaceSchema(String schema, UpdateSchema result) {
         return new UpdateStore(
-            replace(schema, result.schema()), 
+            replaceRows(schemas, schema, result.schema()), 
             result.rowsAffected()
         );
     }
 
     public DataStore checkDelete(String schema, String table, 
         Row rowToDelete, Row replacementRow) {
-        DataStore store = this;
-        for (Iterator iter = schemas.values().iterator(); iter.hasNext();) {
-            Schema potentialReferencer = (Schema) iter.next();
-            store = potentialReferencer.checkDelete(
-                store,
-                schema, table, rowToDelete, replacementRow);
-        }
-        return store;
+        return references.checkDelete(
+            this, schema, table, rowToDelete, replacementRow);
+    }
+
+    public DataStore checkDelete(String schema, String table, 
+        List<Row> rowsToDelete) {
+        return references.checkDelete(this, schema, table, rowsToDelete);
     }
 
     public void checkDropTable(String schema, String table) {
@@ -264,6 +305,21 @@ public class DataStore {
         return schema.hasTable(table.tableName());
     }
 
+    public DataStore replaceTable(TableReference table, TableData newTable) {
+        return replace(table.schema(), 
+            schema(table.schema()).replaceTable(table.tableName(), newTable));
+    }
+
+    /**
+     * Like {@link #replaceTable(TableReference, TableData)} but for
+     * when only the rows of the table have changed, so the foreign
+     * keys are the same as ours.
+     */
+    public DataStore replaceTableRows(TableReference table, TableData newTable) {
+        return replaceRows(schemas, table.schema(),
+            schema(table.schema()).replaceTable(table.tableName(), newTable));
+    }
+
     public DataStore addIndex(TableReference table, Index index) {
         Schema existing = schema(table.schema());
         return replace(
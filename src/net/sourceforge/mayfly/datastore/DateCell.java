@@ -79,4 +79,14 @@ public class DateCell extends Cell {
         return localDate.getDayOfMonth();
     }
 
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof DateCell && ((DateCell) other).localDate.equals(localDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return localDate.hashCode();
+    }
+
 }
@@ -126,9 +126,29 @@ public class DecimalCell extends Cell {
         return value2.compareTo(value3);
     }
 
+    @Override
+    public int sqlHashCode() {
+        /* 1.0 and 1.00 are sqlEquals but not equals, so
+           hash them the same way.  */
+        if (value.signum() == 0) {
+            return 0;
+        }
+        return value.stripTrailingZeros().hashCode();
+    }
+
     @Override
     public String displayName() {
         return "decimal " + value.toString();
     }
 
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof DecimalCell && ((DecimalCell) other).value.equals(value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
 }
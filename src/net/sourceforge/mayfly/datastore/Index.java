@@ -1,27 +1,52 @@
 package net.sourceforge.mayfly.datastore;
 
+import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.datastore.constraint.Constraint;
 import net.sourceforge.mayfly.datastore.constraint.NullConstraint;
 import net.sourceforge.mayfly.datastore.constraint.UniqueConstraint;
 import net.sourceforge.mayfly.parser.Location;
+import net.sourceforge.mayfly.util.PersistentTreeMap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @internal
+ * An index keeps the positions of the rows of a table, sorted by
+ * the values of the indexed columns (rows with equal values are
+ * sorted by position).  Nulls sort before all other values.
+ *
+ * Positions are the row numbers within {@link Rows}, so they
+ * stay the same when a row is updated in place, but deleting rows
+ * means renumbering them with {@link #withoutRows(List, int[])}.
+ */
 public class Index {
 
     private final String name;
     public final ColumnNames columns;
     private final Constraint constraint;
     public final boolean unique;
+    private final PersistentTreeMap<Entry, Integer> entries;
 
     public Index(String name, ColumnNames columns, boolean unique) {
+        this(name, columns, unique,
+            unique ?
+                (Constraint) new UniqueConstraint(columns, null) :
+                new NullConstraint(),
+            new PersistentTreeMap<Entry, Integer>(ORDER));
+    }
+
+    private Index(String name, ColumnNames columns, boolean unique,
+        Constraint constraint, PersistentTreeMap<Entry, Integer> entries) {
         this.name = name;
         this.columns = columns;
-        if (unique) {
-            this.constraint = new UniqueConstraint(columns, null);
-        }
-        else {
-            this.constraint = new NullConstraint();
-        }
+        this.constraint = constraint;
         this.unique = unique;
+        this.entries = entries;
     }
 
     public Index(String name, ColumnNames columns) {
@@ -31,21 +56,304 @@ public class Index {
     public boolean hasName() {
         return name != null;
     }
-    
+
     public String name() {
         return name;
     }
 
     public Index renameColumn(String oldName, String newName) {
-        return new Index(name, columns.renameColumn(oldName, newName));
+        return new Index(name, columns.renameColumn(oldName, newName), unique,
+            unique ? constraint.renameColumn(oldName, newName) : constraint,
+            entries);
+    }
+
+    /**
+     * @internal
+     * @return false if the index should be dropped along with
+     * the column.
+     */
+    public boolean checkDropColumn(String column) {
+        if (columns.hasColumn(column)) {
+            if (columns.size() > 1) {
+                throw new MayflyException(
+                    "attempt to drop column " + column +
+                    " from multi-column index" +
+                    (hasName() ? " " + name : ""));
+            }
+            return false;
+        }
+        return true;
     }
 
-    public void check(Rows rows, Row newRow, TableReference table, Location location) {
-        constraint.check(rows, newRow, table, location);
+    public void check(Row newRow, TableReference table, Location location) {
+        constraint.check(newRow, table, location);
     }
 
     public void checkExistingRows(DataStore store, TableReference table) {
         constraint.checkExistingRows(store, table);
     }
 
+    public Index withRow(Row row, int position) {
+        return new Index(name, columns, unique, constraint.withRow(row),
+            entries.with(entryFor(row, position), new Integer(position)));
+    }
+
+    public Index withoutRow(Row row, int position) {
+        return new Index(name, columns, unique, constraint.withoutRow(row),
+            entries.without(entryFor(row, position)));
+    }
+
+    /**
+     * @internal
+     * The index after deleting some rows, which moves each
+     * remaining row down by the number of deleted rows before it.
+     * That keeps the remaining entries in the same order, so we
+     * can build the new index from the old one in a single pass
+     * rather than sorting the rows again as {@link #forRows(Rows)}
+     * would.
+     *
+     * @param deletedPositions The positions of the deleted rows,
+     * in ascending order.
+     */
+    public Index withoutRows(List<Row> deletedRows, int[] deletedPositions) {
+        Constraint newConstraint = constraint;
+        for (Row row : deletedRows) {
+            newConstraint = newConstraint.withoutRow(row);
+        }
+
+        List<Entry> newKeys = new ArrayList<Entry>(entries.size());
+        List<Integer> newPositions = new ArrayList<Integer>(entries.size());
+        for (Map.Entry<Entry, Integer> entry : entries) {
+            int position = entry.getValue().intValue();
+            int before = Arrays.binarySearch(deletedPositions, position);
+            if (before >= 0) {
+                continue;
+            }
+            // binarySearch returned -(number of deleted rows before us) - 1
+            int newPosition = position + before + 1;
+            newKeys.add(new Entry(entry.getKey().cells, newPosition));
+            newPositions.add(new Integer(newPosition));
+        }
+        return new Index(name, columns, unique, newConstraint,
+            PersistentTreeMap.fromSorted(ORDER, newKeys, newPositions));
+    }
+
+    public Index forRows(Rows rows) {
+        PersistentTreeMap<Entry, Integer> newEntries =
+            new PersistentTreeMap<Entry, Integer>(ORDER);
+        for (int position = 0; position < rows.rowCount(); ++position) {
+            Row row = rows.row(position);
+            newEntries = newEntries.with(
+                entryFor(row, position), new Integer(position));
+        }
+        return new Index(name, columns, unique,
+            constraint.forRows(rows), newEntries);
+    }
+
+    private Entry entryFor(Row row, int position) {
+        Cell[] cells = new Cell[columns.size()];
+        for (int i = 0; i < cells.length; ++i) {
+            cells[i] = row.cell(columns.name(i));
+        }
+        return new Entry(cells, position);
+    }
+
+    public int rowCount() {
+        return entries.size();
+    }
+
+    /**
+     * @internal
+     * Is the first column of this index the given column?
+     * If so, {@link #positions(Cell, boolean, Cell, boolean)}
+     * can find rows by the value of that column.
+     */
+    public boolean startsWith(String column) {
+        return columns.name(0).equalsIgnoreCase(column);
+    }
+
+    /**
+     * @internal
+     * Find the rows whose first indexed column is between low and
+     * high.  A null (in the Java sense) bound means there is no
+     * bound on that side, but rows containing SQL NULL are never
+     * returned (use {@link #positionsOfNull()} for those).
+     *
+     * @return Positions of the matching rows, in ascending order.
+     */
+    public int[] positions(Cell low, boolean lowInclusive,
+        Cell high, boolean highInclusive) {
+        Entry from = low == null ?
+            new Entry(new Cell[] { NullCell.INSTANCE }, Integer.MAX_VALUE) :
+            new Entry(new Cell[] { low },
+                lowInclusive ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+        Entry to = high == null ?
+            null :
+            new Entry(new Cell[] { high },
+                highInclusive ? Integer.MAX_VALUE : Integer.MIN_VALUE);
+        return positions(from, to);
+    }
+
+    /**
+     * @internal
+     * Is there a row whose first indexed column is equal
+     * (in the sense of {@link Cell#sqlEquals(Cell)}) to value?
+     */
+    public boolean hasValue(Cell value) {
+        if (value instanceof NullCell) {
+            return false;
+        }
+        Cell[] key = new Cell[] { value };
+        return entries.iterator(
+            new Entry(key, Integer.MIN_VALUE),
+            new Entry(key, Integer.MAX_VALUE)).hasNext();
+    }
+
+    /**
+     * @internal
+     * The greatest value of the first indexed column, or null (in the
+     * Java sense) if there are no rows.  Since nulls sort first, this
+     * is SQL NULL only if every row has NULL there.
+     */
+    public Cell highestValue() {
+        Entry last = entries.lastKey();
+        return last == null ? null : last.cells[0];
+    }
+
+    /**
+     * @internal
+     * Find the rows whose first indexed column is SQL NULL.
+     */
+    public int[] positionsOfNull() {
+        Cell[] nullKey = new Cell[] { NullCell.INSTANCE };
+        return positions(
+            new Entry(nullKey, Integer.MIN_VALUE),
+            new Entry(nullKey, Integer.MAX_VALUE));
+    }
+
+    /**
+     * @internal
+     * The positions of all rows, in the order which a stable sort of
+     * the table on the first indexed column would put them.  That is,
+     * by the value of that column (ascending or descending, with
+     * nulls first when ascending), and by position among rows
+     * with equal values.
+     */
+    public int[] positionsInOrder(boolean ascending) {
+        int[] positions = new int[entries.size()];
+        // groupStarts[i] is where the i'th run of equal values starts
+        int[] groupStarts = new int[positions.length + 1];
+        int groups = 0;
+        int count = 0;
+        Cell groupValue = null;
+        for (Map.Entry<Entry, Integer> entry : entries) {
+            Cell value = entry.getKey().cells[0];
+            if (count == 0 || compareCells(groupValue, value) != 0) {
+                groupStarts[groups++] = count;
+            }
+            groupValue = value;
+            positions[count++] = entry.getValue().intValue();
+        }
+        groupStarts[groups] = count;
+
+        int[] result = new int[count];
+        int resultCount = 0;
+        for (int i = 0; i < groups; ++i) {
+            int group = ascending ? i : groups - 1 - i;
+            int groupStart = groupStarts[group];
+            int groupEnd = groupStarts[group + 1];
+            Arrays.sort(positions, groupStart, groupEnd);
+            System.arraycopy(positions, groupStart, 
+                result, resultCount, groupEnd - groupStart);
+            resultCount += groupEnd - groupStart;
+        }
+        return result;
+    }
+
+    private int[] positions(Entry from, Entry to) {
+        if (to != null && ORDER.compare(from, to) > 0) {
+            return new int[0];
+        }
+
+        int[] result = new int[8];
+        int count = 0;
+        for (Iterator<Map.Entry<Entry, Integer>> iter =
+            entries.iterator(from, to); iter.hasNext(); ) {
+            if (count == result.length) {
+                int[] bigger = new int[count * 2];
+                System.arraycopy(result, 0, bigger, 0, count);
+                result = bigger;
+            }
+            result[count++] = iter.next().getValue().intValue();
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+        Arrays.sort(trimmed);
+        return trimmed;
+    }
+
+    /**
+     * The key in the sorted map.  An entry with fewer cells than
+     * there are columns in the index is a bound for a range scan,
+     * in which case position is {@link Integer#MIN_VALUE} or
+     * {@link Integer#MAX_VALUE} to put the bound before or after
+     * all rows which have those values.
+     */
+    private static class Entry {
+        final Cell[] cells;
+        final int position;
+
+        Entry(Cell[] cells, int position) {
+            this.cells = cells;
+            this.position = position;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.asList(cells) + "@" + position;
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = new Comparator<Entry>() {
+
+        public int compare(Entry first, Entry second) {
+            int length = Math.min(first.cells.length, second.cells.length);
+            for (int i = 0; i < length; ++i) {
+                int comparison = compareCells(first.cells[i], second.cells[i]);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            if (first.position < second.position) {
+                return -1;
+            }
+            else if (first.position > second.position) {
+                return 1;
+            }
+            else {
+                return 0;
+            }
+        }
+
+    };
+
+    static int compareCells(Cell first, Cell second) {
+        boolean firstNull = first instanceof NullCell;
+        boolean secondNull = second instanceof NullCell;
+        if (firstNull || secondNull) {
+            if (firstNull && secondNull) {
+                return 0;
+            }
+            return firstNull ? -1 : 1;
+        }
+        else if (first instanceof BinaryCell && second instanceof BinaryCell) {
+            /* BinaryCell doesn't implement compareTo; all we need here is
+               some consistent order. */
+            return first.asSql().compareTo(second.asSql());
+        }
+        else {
+            return first.compareTo(second);
+        }
+    }
+
 }
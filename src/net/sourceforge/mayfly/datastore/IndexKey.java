@@ -0,0 +1,108 @@
+package net.sourceforge.mayfly.datastore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @internal
+ * The values of some columns of one row, for looking up
+ * rows in a hashed index.
+ *
+ * Two keys are equal if each pair of cells is equal according to
+ * {@link Cell#sqlEquals(Cell)}.  The exception is null: since
+ * null is not equal to anything, callers should check
+ * {@link #hasNull()} rather than putting such keys in an
+ * index.  Binary cells, which cannot be compared yet, are equal if
+ * they have the same bytes, so that a row can be found again (for
+ * example to take it out of the index when it is deleted).
+ */
+public class IndexKey {
+
+    public static IndexKey fromRow(Row row, ColumnNames names) {
+        Cell[] cells = new Cell[names.size()];
+        for (int i = 0; i < cells.length; ++i) {
+            cells[i] = row.cell(names.name(i));
+        }
+        return new IndexKey(cells);
+    }
+
+    private final Cell[] cells;
+    private final int hashCode;
+
+    public IndexKey(Cell[] cells) {
+        this.cells = cells;
+        int hash = 1;
+        for (int i = 0; i < cells.length; ++i) {
+            hash = hash * 31 + cells[i].sqlHashCode();
+        }
+        this.hashCode = hash;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public Cell cell(int index) {
+        return cells[index];
+    }
+
+    public boolean hasNull() {
+        for (int i = 0; i < cells.length; ++i) {
+            if (cells[i] instanceof NullCell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasBinary() {
+        for (int i = 0; i < cells.length; ++i) {
+            if (cells[i] instanceof BinaryCell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<Cell> asList() {
+        List<Cell> result = new ArrayList<Cell>();
+        for (int i = 0; i < cells.length; ++i) {
+            result.add(cells[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof IndexKey)) {
+            return false;
+        }
+        IndexKey other = (IndexKey) obj;
+        if (hashCode != other.hashCode || cells.length != other.cells.length) {
+            return false;
+        }
+        for (int i = 0; i < cells.length; ++i) {
+            Cell mine = cells[i];
+            Cell theirs = other.cells[i];
+            if (mine.getClass() != theirs.getClass()) {
+                return false;
+            }
+            if (mine instanceof BinaryCell ? 
+                !mine.equals(theirs) : !mine.sqlEquals(theirs)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+
+}
@@ -74,12 +74,68 @@ public class Indexes implements Iterable<Index> {
         return indexes.size();
     }
 
-    public void check(Rows rows, Row newRow, TableReference table, Location location) {
+    public void check(Row newRow, TableReference table, Location location) {
         for (Index index : indexes) {
-            index.check(rows, newRow, table, location);
+            index.check(newRow, table, location);
         }
     }
 
+    public Indexes withRow(Row row, int position) {
+        List<Index> result = new ArrayList<Index>();
+        for (Index index : indexes) {
+            result.add(index.withRow(row, position));
+        }
+        return new Indexes(new ImmutableList<Index>(result));
+    }
+
+    public Indexes withoutRow(Row row, int position) {
+        List<Index> result = new ArrayList<Index>();
+        for (Index index : indexes) {
+            result.add(index.withoutRow(row, position));
+        }
+        return new Indexes(new ImmutableList<Index>(result));
+    }
+
+    public Indexes withoutRows(List<Row> rows, int[] positions) {
+        List<Index> result = new ArrayList<Index>();
+        for (Index index : indexes) {
+            result.add(index.withoutRows(rows, positions));
+        }
+        return new Indexes(new ImmutableList<Index>(result));
+    }
+
+    public Indexes forRows(Rows rows) {
+        List<Index> result = new ArrayList<Index>();
+        for (Index index : indexes) {
+            result.add(index.forRows(rows));
+        }
+        return new Indexes(new ImmutableList<Index>(result));
+    }
+
+    public Indexes dropColumn(String column) {
+        List<Index> result = new ArrayList<Index>();
+        for (Index index : indexes) {
+            if (index.checkDropColumn(column)) {
+                result.add(index);
+            }
+        }
+        return new Indexes(new ImmutableList<Index>(result));
+    }
+
+    /**
+     * @internal
+     * Find an index which can look up rows by the given column,
+     * or return null if there is none.
+     */
+    public Index indexStartingWith(String column) {
+        for (Index index : indexes) {
+            if (index.startsWith(column)) {
+                return index;
+            }
+        }
+        return null;
+    }
+
     public boolean hasIndex(String indexName) {
         for (Index index : indexes) {
             if (indexName.equalsIgnoreCase(index.name())) {
@@ -7,6 +7,25 @@ import java.sql.SQLException;
 
 public class LongCell extends Cell {
 
+    private static final int LOWEST_SHARED = -128;
+    private static final LongCell[] SHARED = new LongCell[128 + 1024];
+    static {
+        for (int i = 0; i < SHARED.length; ++i) {
+            SHARED[i] = new LongCell(LOWEST_SHARED + i);
+        }
+    }
+
+    /**
+     * Like {@link Long#valueOf(long)}, small values share a cell
+     * rather than creating a new one each time.
+     */
+    public static LongCell valueOf(long value) {
+        if (value >= LOWEST_SHARED && value < LOWEST_SHARED + SHARED.length) {
+            return SHARED[(int) (value - LOWEST_SHARED)];
+        }
+        return new LongCell(value);
+    }
+
     private final long value;
 
     public LongCell(long value) {
@@ -65,7 +84,8 @@ public class LongCell extends Cell {
     @Override
     public int compareTo(Cell otherCell, Location location) {
         if (otherCell instanceof LongCell) {
-            return new Long(value).compareTo(new Long(((LongCell) otherCell).value));
+            long otherValue = ((LongCell) otherCell).value;
+            return value < otherValue ? -1 : (value == otherValue ? 0 : 1);
         }
         else if (otherCell instanceof NullCell) {
             return 1;
@@ -75,4 +95,14 @@ public class LongCell extends Cell {
         }
     }
 
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof LongCell && ((LongCell) other).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (value ^ (value >>> 32));
+    }
+
 }
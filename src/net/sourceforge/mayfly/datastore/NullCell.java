@@ -99,4 +99,15 @@ public class NullCell extends Cell {
         return false;
     }
 
+    @Override
+    public boolean equals(Object other) {
+        // Unlike sqlEquals, all nulls are equal here (see distinctEquals)
+        return other instanceof NullCell;
+    }
+
+    @Override
+    public int hashCode() {
+        return 0;
+    }
+
 }
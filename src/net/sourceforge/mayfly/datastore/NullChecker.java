@@ -5,12 +5,18 @@ import net.sourceforge.mayfly.datastore.constraint.Constraints;
 import net.sourceforge.mayfly.evaluation.Checker;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
 
+import java.util.List;
+
 public class NullChecker extends Checker {
 
     @Override
     public void checkDelete(Row rowToDelete, Row replacementRow) {
     }
 
+    @Override
+    public void checkDelete(List<Row> rowsToDelete) {
+    }
+
     @Override
     public void checkInsert(Constraints constraints, Row proposedRow) {
     }
@@ -3,56 +3,110 @@ package net.sourceforge.mayfly.datastore;
 import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.evaluation.NoColumn;
 import net.sourceforge.mayfly.util.CaseInsensitiveString;
-import net.sourceforge.mayfly.util.ImmutableMap;
 
 import java.util.Iterator;
 
 /**
  * @internal
- * Cells for each column.  The order of the columns here is arbitrary.
+ * Cells for each column, in an array whose order is given by
+ * the row's {@link RowLayout}.  That order need not be the order
+ * of the table's columns (for example, after ALTER TABLE).
  * If you want the columns in a predictable order, look up the order
  * in {@link Columns} and then call {@link #cell(String)} for each.
  */
 public class Row {
 
-    final ImmutableMap<CaseInsensitiveString, Cell> cells;
+    private final RowLayout layout;
+
+    /**
+     * The cell for each position, except that integers are kept
+     * in {@link #longs} (and the entry here is null).
+     */
+    private final Cell[] cells;
+
+    /**
+     * The values of the integer cells, or null if there are none.
+     * An integer is 8 bytes here, rather than a reference plus a
+     * {@link LongCell} object; we create the cell when someone asks.
+     */
+    private final long[] longs;
     
     public Row() {
-        this(new ImmutableMap());
+        this(RowLayout.EMPTY, new Cell[0]);
     }
 
-    public Row(ImmutableMap namesToCells) {
-        this.cells = namesToCells;
+    /**
+     * @param cells The cell for each column of layout, by position.
+     * The row takes ownership of the array.
+     */
+    Row(RowLayout layout, Cell[] cells) {
+        long[] packed = null;
+        for (int i = 0; i < cells.length; ++i) {
+            if (cells[i] != null && cells[i].getClass() == LongCell.class) {
+                if (packed == null) {
+                    packed = new long[cells.length];
+                }
+                packed[i] = cells[i].asLong();
+                cells[i] = null;
+            }
+        }
+        this.layout = layout;
+        this.cells = cells;
+        this.longs = packed;
+    }
+
+    private Row(RowLayout layout, Cell[] cells, long[] longs) {
+        this.layout = layout;
+        this.cells = cells;
+        this.longs = longs;
     }
 
     public Iterator columnNames() {
-        return cells.keySet().iterator();
+        return layout.names();
+    }
+
+    public RowLayout layout() {
+        return layout;
     }
 
+    public Cell cell(int position) {
+        Cell cell = cells[position];
+        return cell != null ? cell : LongCell.valueOf(longs[position]);
+    }
 
     public Cell cell(CaseInsensitiveString column) {
-        Cell cell = cells.get(column);
-        if (cell == null) {
+        int position = layout.position(column);
+        if (position == -1) {
             throw new NoColumn(column);
         }
-        return cell;
+        return cell(position);
     }
 
     public Cell cell(String column) {
         return cell(new CaseInsensitiveString(column));
     }
 
+    /**
+     * A copy of this row's cells, in the order of {@link #layout()}.
+     */
+    Cell[] cellsCopy() {
+        Cell[] copy = new Cell[cells.length];
+        for (int i = 0; i < copy.length; ++i) {
+            copy[i] = cell(i);
+        }
+        return copy;
+    }
+
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder();
 
         result.append("Row(");
-        for (Iterator iter = cells.keySet().iterator(); iter.hasNext();) {
-            CaseInsensitiveString column = (CaseInsensitiveString) iter.next();
-            result.append(column);
+        for (int i = 0; i < cells.length; ++i) {
+            result.append(layout.name(i));
             result.append("=");
-            result.append(cell(column).displayName());
-            if (iter.hasNext()) {
+            result.append(cell(i).displayName());
+            if (i < cells.length - 1) {
                 result.append(", ");
             }
         }
@@ -61,37 +115,75 @@ public class Row {
     }
 
     public Row addColumn(Column newColumn) {
-        Cell value = newColumn.newColumnValue();
+        return addColumn(newColumn, layoutAdding(newColumn));
+    }
+
+    RowLayout layoutAdding(Column newColumn) {
         CaseInsensitiveString name = newColumn.columnName;
-        if (cells.containsKey(name)) {
+        if (layout.position(name) != -1) {
             throw new MayflyException("duplicate column " + name);
         }
-        return new Row(cells.add(name, value));
+        return layout.with(name);
+    }
+
+    /**
+     * @param newLayout The result of {@link #layoutAdding(Column)}
+     * (which can be shared by rows with the same layout).
+     */
+    Row addColumn(Column newColumn, RowLayout newLayout) {
+        Cell[] newCells = cellsCopy();
+        Cell[] withNew = new Cell[newCells.length + 1];
+        System.arraycopy(newCells, 0, withNew, 0, newCells.length);
+        withNew[newCells.length] = newColumn.newColumnValue();
+        return new Row(newLayout, withNew);
     }
 
     public Row dropColumn(String columnName) {
-        CaseInsensitiveString name = new CaseInsensitiveString(columnName);
-        if (!cells.containsKey(name)) {
-            throw new NoColumn(name);
-        }
-        return new Row(cells.without(name));
+        return dropColumn(columnName, layoutDropping(columnName));
+    }
+
+    RowLayout layoutDropping(String columnName) {
+        return layout.without(existingPosition(columnName));
+    }
+
+    Row dropColumn(String columnName, RowLayout newLayout) {
+        int position = existingPosition(columnName);
+        Cell[] oldCells = cellsCopy();
+        Cell[] newCells = new Cell[oldCells.length - 1];
+        System.arraycopy(oldCells, 0, newCells, 0, position);
+        System.arraycopy(oldCells, position + 1, newCells, position,
+            oldCells.length - position - 1);
+        return new Row(newLayout, newCells);
     }
 
     public Row renameColumn(String oldName, String newName) {
-        CaseInsensitiveString oldCase = new CaseInsensitiveString(oldName);
+        return renameColumn(layoutRenaming(oldName, newName));
+    }
+
+    RowLayout layoutRenaming(String oldName, String newName) {
+        int position = existingPosition(oldName);
         CaseInsensitiveString newCase = new CaseInsensitiveString(newName);
-        if (!cells.containsKey(oldCase)) {
-            throw new NoColumn(oldCase);
-        }
-        if (cells.containsKey(newCase)) {
+        if (layout.position(newCase) != -1) {
             throw new MayflyException("duplicate column " + newCase);
         }
-        Cell currentValue = cell(oldCase);
-        return new Row(cells.without(oldCase).with(newCase, currentValue));
+        return layout.rename(position, newCase);
+    }
+
+    Row renameColumn(RowLayout newLayout) {
+        return new Row(newLayout, cells, longs);
+    }
+
+    private int existingPosition(String columnName) {
+        CaseInsensitiveString name = new CaseInsensitiveString(columnName);
+        int position = layout.position(name);
+        if (position == -1) {
+            throw new NoColumn(name);
+        }
+        return position;
     }
 
     public int columnCount() {
-        return cells.size();
+        return cells.length;
     }
 
 }
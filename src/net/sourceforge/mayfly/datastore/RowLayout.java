@@ -0,0 +1,87 @@
+package net.sourceforge.mayfly.datastore;
+
+import net.sourceforge.mayfly.MayflyException;
+import net.sourceforge.mayfly.util.CaseInsensitiveString;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @internal
+ * The column names of a {@link Row}, and where in the row's
+ * array of cells each column is.  The rows of a table normally
+ * share one layout (the one from its {@link Columns}), so that
+ * each row is just its cells.
+ */
+public class RowLayout {
+
+    public static final RowLayout EMPTY =
+        new RowLayout(new CaseInsensitiveString[0]);
+
+    private final CaseInsensitiveString[] names;
+    private final Map<CaseInsensitiveString, Integer> positions;
+
+    public RowLayout(List<CaseInsensitiveString> names) {
+        this((CaseInsensitiveString[]) names.toArray(
+            new CaseInsensitiveString[names.size()]));
+    }
+
+    private RowLayout(CaseInsensitiveString[] names) {
+        this.names = names;
+        this.positions = new HashMap<CaseInsensitiveString, Integer>();
+        for (int i = 0; i < names.length; ++i) {
+            if (positions.put(names[i], new Integer(i)) != null) {
+                throw new MayflyException("duplicate column " + names[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public CaseInsensitiveString name(int position) {
+        return names[position];
+    }
+
+    /**
+     * @return The position of the column, or -1 if there is
+     * no such column.
+     */
+    public int position(CaseInsensitiveString name) {
+        Integer found = positions.get(name);
+        return found == null ? -1 : found.intValue();
+    }
+
+    public Iterator<CaseInsensitiveString> names() {
+        return Arrays.asList(names).iterator();
+    }
+
+    RowLayout with(CaseInsensitiveString name) {
+        CaseInsensitiveString[] newNames =
+            new CaseInsensitiveString[names.length + 1];
+        System.arraycopy(names, 0, newNames, 0, names.length);
+        newNames[names.length] = name;
+        return new RowLayout(newNames);
+    }
+
+    RowLayout without(int position) {
+        CaseInsensitiveString[] newNames =
+            new CaseInsensitiveString[names.length - 1];
+        System.arraycopy(names, 0, newNames, 0, position);
+        System.arraycopy(names, position + 1, newNames, position,
+            names.length - position - 1);
+        return new RowLayout(newNames);
+    }
+
+    RowLayout rename(int position, CaseInsensitiveString newName) {
+        CaseInsensitiveString[] newNames =
+            (CaseInsensitiveString[]) names.clone();
+        newNames[position] = newName;
+        return new RowLayout(newNames);
+    }
+
+}
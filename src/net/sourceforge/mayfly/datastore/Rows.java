@@ -1,22 +1,33 @@
 package net.sourceforge.mayfly.datastore;
 
 import net.sourceforge.mayfly.util.ImmutableList;
+import net.sourceforge.mayfly.util.PersistentVector;
 
 import java.util.Iterator;
 
+/**
+ * @internal
+ * The rows of a table.  Adding a row shares structure with
+ * the previous version (see {@link PersistentVector}), so
+ * inserting N rows one at a time takes time linear in N.
+ */
 public class Rows {
-    private final ImmutableList rows;
+    private final PersistentVector<Row> rows;
 
     public Rows(ImmutableList rows) {
+        this(PersistentVector.<Row>fromCollection(rows));
+    }
+
+    private Rows(PersistentVector<Row> rows) {
         this.rows = rows;
     }
 
     public Rows() {
-        this(new ImmutableList());
+        this(new PersistentVector<Row>());
     }
 
     public Rows(Row row) {
-        this(ImmutableList.singleton(row));
+        this(new PersistentVector<Row>().with(row));
     }
 
     public Iterator iterator() {
@@ -24,7 +35,7 @@ public class Rows {
     }
     
     public Row row(int index) {
-        return (Row) rows.get(index);
+        return rows.get(index);
     }
 
     public int rowCount() {
@@ -39,29 +50,58 @@ public class Rows {
         return new Rows(rows.with(newRow));
     }
 
+    /**
+     * Return rows like these but with the row at position
+     * replaced.  Only the path to that row is copied.
+     */
+    public Rows replace(int position, Row newRow) {
+        return new Rows(rows.replace(position, newRow));
+    }
+
+    /* Each of these computes the new layout once for each
+       old one (normally just once), so the new rows share it. */
+
     public Rows addColumn(Column newColumn) {
         Rows result = new Rows();
+        RowLayout oldLayout = null;
+        RowLayout newLayout = null;
         for (Iterator iter = rows.iterator(); iter.hasNext();) {
             Row row = (Row) iter.next();
-            result = result.with(row.addColumn(newColumn));
+            if (row.layout() != oldLayout) {
+                oldLayout = row.layout();
+                newLayout = row.layoutAdding(newColumn);
+            }
+            result = result.with(row.addColumn(newColumn, newLayout));
         }
         return result;
     }
 
     public Rows dropColumn(String column) {
         Rows result = new Rows();
+        RowLayout oldLayout = null;
+        RowLayout newLayout = null;
         for (Iterator iter = rows.iterator(); iter.hasNext();) {
             Row row = (Row) iter.next();
-            result = result.with(row.dropColumn(column));
+            if (row.layout() != oldLayout) {
+                oldLayout = row.layout();
+                newLayout = row.layoutDropping(column);
+            }
+            result = result.with(row.dropColumn(column, newLayout));
         }
         return result;
     }
 
     public Rows renameColumn(String oldName, String newName) {
         Rows result = new Rows();
+        RowLayout oldLayout = null;
+        RowLayout newLayout = null;
         for (Iterator iter = rows.iterator(); iter.hasNext();) {
             Row row = (Row) iter.next();
-            result = result.with(row.renameColumn(oldName, newName));
+            if (row.layout() != oldLayout) {
+                oldLayout = row.layout();
+                newLayout = row.layoutRenaming(oldName, newName);
+            }
+            result = result.with(row.renameColumn(newLayout));
         }
         return result;
     }
@@ -13,6 +13,7 @@ import net.sourceforge.mayfly.parser.Location;
 import net.sourceforge.mayfly.util.ImmutableList;
 import net.sourceforge.mayfly.util.ImmutableMap;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -214,21 +215,20 @@ public class Schema {
         return new UpdateSchema(schema, result.rowsAffected());
     }
 
-    private Schema replaceTable(String tableName, TableData table) {
+    public Schema replaceTable(String tableName, TableData table) {
         return new Schema(tables.with(lookUpTable(tableName), table));
     }
 
-    public DataStore checkDelete(
-        DataStore store,
-        String schema, String table, Row rowToDelete, Row replacementRow) {
-        for (Iterator iter = tables.values().iterator(); iter.hasNext();) {
-            TableData potentialReferencer = (TableData) iter.next();
-            store = potentialReferencer.checkDelete(
-                store,
-                schema, table, rowToDelete, replacementRow
-            );
+    /**
+     * @internal
+     * The constraints of each table, in the order of the tables.
+     */
+    public List<Constraints> constraints() {
+        List<Constraints> result = new ArrayList<Constraints>();
+        for (TableData table : tables.values()) {
+            result.add(table.constraints);
         }
-        return store;
+        return result;
     }
 
     public void checkDropTable(DataStore store, String schema, String table) {
@@ -39,7 +39,11 @@ public class StringCell extends Cell {
 
     @Override
     public int compareTo(Cell otherCell, Location location) {
-        if (otherCell instanceof StringCell) {
+        if (otherCell == this) {
+            // Common for values shared by a StringDataType
+            return 0;
+        }
+        else if (otherCell instanceof StringCell) {
             return sqlStringCompare(content, ((StringCell) otherCell).content);
         }
         else if (otherCell instanceof DateCell) {
@@ -61,4 +65,15 @@ public class StringCell extends Cell {
         return new DateDataType().stringToDate(content, location);
     }
 
+    @Override
+    public boolean equals(Object other) {
+        return other == this || (other instanceof StringCell 
+            && ((StringCell) other).content.equals(content));
+    }
+
+    @Override
+    public int hashCode() {
+        return content.hashCode();
+    }
+
 }
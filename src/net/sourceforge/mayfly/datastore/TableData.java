@@ -10,11 +10,14 @@ import net.sourceforge.mayfly.evaluation.ValueList;
 import net.sourceforge.mayfly.evaluation.command.SetClause;
 import net.sourceforge.mayfly.evaluation.command.UpdateTable;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
+import net.sourceforge.mayfly.evaluation.from.IndexScan;
 import net.sourceforge.mayfly.parser.Location;
 import net.sourceforge.mayfly.util.CaseInsensitiveString;
 import net.sourceforge.mayfly.util.ImmutableList;
 import net.sourceforge.mayfly.util.L;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -25,6 +28,16 @@ public class TableData {
     public final Constraints constraints;
     public final Indexes indexes;
 
+    /**
+     * @internal
+     * Indexes on the columns of each PRIMARY KEY or UNIQUE
+     * constraint, and on the referring column of each foreign key,
+     * so that lookups by key (including checking foreign keys) can
+     * find rows the same way as for an index from CREATE INDEX.
+     * These are not part of the schema and are never dumped.
+     */
+    private final Indexes keyIndexes;
+
     public TableData(Columns columns, Constraints constraints,
         ImmutableList indexes) {
         this(columns, constraints, new Rows(), new Indexes(indexes));
@@ -32,6 +45,12 @@ public class TableData {
     
     TableData(Columns columns, Constraints constraints, Rows rows,
         Indexes indexes) {
+        this(columns, constraints, rows, indexes, 
+            keyIndexes(constraints, rows));
+    }
+
+    private TableData(Columns columns, Constraints constraints, Rows rows,
+        Indexes indexes, Indexes keyIndexes) {
         this.constraints = constraints;
         if (constraints == null) {
             throw new NullPointerException("constraints is required");
@@ -39,39 +58,90 @@ public class TableData {
         this.columns = columns;
         this.rows = rows;
         this.indexes = indexes;
+        this.keyIndexes = keyIndexes;
+    }
+
+    private static Indexes keyIndexes(Constraints constraints, Rows rows) {
+        Indexes result = new Indexes();
+        for (ColumnNames key : constraints.indexedColumns()) {
+            if (key.size() == 1 &&
+                result.indexStartingWith(key.name(0)) != null) {
+                continue;
+            }
+            result = result.with(new Index(null, key).forRows(rows));
+        }
+        return result;
     }
 
     public TableData addRow(Checker checker, TableReference table,
         ImmutableList<String> columnNames, ValueList values) {
         checkColumnCount(columnNames, values);
         
-        TupleMapper tuple = new TupleMapper();
+        RowLayout layout = columns.layout();
+        Cell[] cells = new Cell[layout.size()];
         Columns newColumns = columns;
         for (int i = 0; i < values.size(); ++i) {
             String columnName = columnNames.get(i);
             Column column = columns.columnFromName(columnName);
-            newColumns =
-                addColumn(newColumns, tuple, column, checker, values.value(i));
+            int position = layout.position(column.columnName);
+            if (cells[position] != null) {
+                throw new MayflyException(
+                    "duplicate column " + column.columnName);
+            }
+            newColumns = addColumn(newColumns, cells, position, 
+                column, checker, values.value(i));
         }
         
         Value defaultMarker = new Value(null, values.location);
         for (int i = 0; i < columns.columnCount(); ++i) {
             Column column = columns.column(i);
-            CaseInsensitiveString name = column.columnName;
-            if (!tuple.hasColumn(name)) {
-                newColumns =
-                    addColumn(newColumns, tuple, column, checker, defaultMarker);
+            int position = layout.position(column.columnName);
+            if (cells[position] == null) {
+                newColumns = addColumn(newColumns, cells, position, 
+                    column, checker, defaultMarker);
             }
         }
 
-        Row newRow = tuple.asRow();
+        Row newRow = new Row(layout, cells);
         
-        constraints.check(rows, newRow, table, values.location);
-        indexes.check(rows, newRow, table, values.location);
+        constraints.check(newRow, table, values.location);
+        indexes.check(newRow, table, values.location);
         checker.checkInsert(constraints, newRow);
 
         return new TableData(
-            newColumns, constraints, rows.with(newRow), indexes);
+            newColumns, 
+            constraints.withRow(newRow), 
+            rows.with(newRow), 
+            indexes.withRow(newRow, rows.rowCount()),
+            keyIndexes.withRow(newRow, rows.rowCount()));
+    }
+
+    /**
+     * @internal
+     * Add rows as they are, without checking constraints or
+     * filling in defaults.  This is for rows which were checked
+     * when they were first inserted, such as those read back
+     * from a {@link net.sourceforge.mayfly.dump.BinarySnapshot}.
+     * 
+     * @param newRows The cells of each row, in the order of
+     * the columns.
+     */
+    public TableData withCheckedRows(List<Cell[]> newRows) {
+        RowLayout layout = columns.layout();
+        Rows allRows = rows;
+        for (Cell[] cells : newRows) {
+            if (cells.length != layout.size()) {
+                throw new MayflyInternalException(
+                    "expected " + layout.size() + " cells but got " + 
+                    cells.length);
+            }
+            allRows = allRows.with(new Row(layout, cells));
+        }
+        return new TableData(
+            columns, 
+            constraints.forRows(allRows), 
+            allRows, 
+            indexes.forRows(allRows));
     }
 
     public void checkColumnCount(ImmutableList<String> columnNames,
@@ -122,12 +192,13 @@ public class TableData {
         return result.toString();
     }
 
-    private Columns addColumn(Columns newColumns, TupleMapper tuple, Column column, Checker checker, Value value) {
+    private Columns addColumn(Columns newColumns, Cell[] cells, int position,
+        Column column, Checker checker, Value value) {
         boolean isDefault = value.value == null;
         Cell cell = column.coerce(
             isDefault ? column.defaultValue() : value.value, 
             value.location);
-        tuple.add(column.columnName, cell);
+        cells[position] = cell;
 
         Column newColumn = column.afterAutoIncrement(checker, cell, isDefault);
         if (newColumn != null) {
@@ -137,52 +208,81 @@ public class TableData {
         return newColumns;
     }
 
+    /**
+     * Rows which the WHERE clause does not select stay where they
+     * are, and were consistent with each other before the update,
+     * so we only check the rows which change.  We take the keys of
+     * all of those out of the constraints first, so that (for
+     * example) SET x = x + 1 on a unique column checks each new
+     * value against the final state of the table rather than
+     * against the old value of the next row.
+     * 
+     * If an index can narrow down which rows WHERE might select
+     * (see {@link IndexScan#positions(TableData, Condition)}), we
+     * evaluate WHERE only on those, as DELETE does.
+     */
     public UpdateTable update(Checker checker, List setClauses, 
         Condition where, TableReference table) {
         checker.evaluate(where, dummyRow(), table.tableName());
 
-        Rows newRows = new Rows();
-        int rowsAffected = 0;
-        for (Iterator iter = rows.iterator(); iter.hasNext();) {
-            Row row = (Row) iter.next();
-            
+        int[] candidates = IndexScan.positions(this, where);
+        int candidateCount = 
+            candidates == null ? rows.rowCount() : candidates.length;
+        List<Integer> positions = new ArrayList<Integer>();
+        Constraints newConstraints = constraints;
+        for (int i = 0; i < candidateCount; ++i) {
+            int position = candidates == null ? i : candidates[i];
+            Row row = rows.row(position);
             if (checker.evaluate(where, row, table.tableName())) {
-                Row newRow = newRow(setClauses, row, table.tableName());
-                constraints.check(newRows, newRow, table, Location.UNKNOWN);
-                checker.checkInsert(constraints, newRow);
-                checker.checkDelete(row, newRow);
-
-                newRows = newRows.with(newRow);
-                ++rowsAffected;
-            }
-            else {
-                constraints.check(newRows, row, table, Location.UNKNOWN);
-                newRows = newRows.with(row);
+                positions.add(new Integer(position));
+                newConstraints = newConstraints.withoutRow(row);
             }
+        }
 
+        Rows newRows = rows;
+        Indexes newIndexes = indexes;
+        Indexes newKeyIndexes = keyIndexes;
+        for (Integer boxed : positions) {
+            int position = boxed.intValue();
+            Row row = rows.row(position);
+            Row newRow = newRow(setClauses, row, table.tableName());
+            newConstraints.check(newRow, table, Location.UNKNOWN);
+            checker.checkInsert(constraints, newRow);
+            checker.checkDelete(row, newRow);
+
+            newIndexes = newIndexes
+                .withoutRow(row, position)
+                .withRow(newRow, position);
+            newKeyIndexes = newKeyIndexes
+                .withoutRow(row, position)
+                .withRow(newRow, position);
+            newRows = newRows.replace(position, newRow);
+            newConstraints = newConstraints.withRow(newRow);
         }
         TableData newTable = new TableData(
-            columns, constraints, newRows, indexes);
-        return new UpdateTable(newTable, rowsAffected);
+            columns, newConstraints, newRows, newIndexes, newKeyIndexes);
+        return new UpdateTable(newTable, positions.size());
     }
 
     private Row newRow(List setClauses, Row row, String table) {
-        TupleMapper mapper = new TupleMapper(row);
+        RowLayout layout = row.layout();
+        Cell[] cells = row.cellsCopy();
         for (Iterator iterator = setClauses.iterator(); iterator.hasNext();) {
             SetClause setClause = (SetClause) iterator.next();
             Column column = setClause.column(columns);
-            mapper.put(column, setClause.value(row, table, column));
+            cells[layout.position(column.columnName)] = 
+                setClause.value(row, table, column);
         }
-        setOnUpdateColumns(mapper);
-        Row newRow = mapper.asRow();
-        return newRow;
+        setOnUpdateColumns(layout, cells);
+        return new Row(layout, cells);
     }
 
-    private void setOnUpdateColumns(TupleMapper mapper) {
+    private void setOnUpdateColumns(RowLayout layout, Cell[] cells) {
         for (Iterator iter = columns.iterator(); iter.hasNext();) {
             Column column = (Column) iter.next();
             if (column.hasOnUpdateValue()) {
-                mapper.put(column, column.getOnUpdateValue());
+                cells[layout.position(column.columnName)] = 
+                    column.getOnUpdateValue();
             }
         }
     }
@@ -190,22 +290,49 @@ public class TableData {
     public UpdateTable delete(Condition where, Checker checker, String tableName) {
         checker.evaluate(where, dummyRow(), tableName);
         
+        int[] candidates = IndexScan.positions(this, where);
+        int candidateCount = 
+            candidates == null ? rows.rowCount() : candidates.length;
+        Constraints newConstraints = constraints;
+        List<Row> deleted = new ArrayList<Row>();
+        int[] positions = new int[candidateCount];
+        for (int i = 0; i < candidateCount; ++i) {
+            int position = candidates == null ? i : candidates[i];
+            Row row = rows.row(position);
+            if (checker.evaluate(where, row, tableName)) {
+                positions[deleted.size()] = position;
+                deleted.add(row);
+                newConstraints = newConstraints.withoutRow(row);
+            }
+        }
+        int rowsAffected = deleted.size();
+        if (rowsAffected == 0) {
+            return new UpdateTable(this, 0);
+        }
+        checker.checkDelete(deleted);
+
+        int[] deletedPositions = new int[rowsAffected];
+        System.arraycopy(positions, 0, deletedPositions, 0, rowsAffected);
+
         Rows newRows = new Rows();
-        int rowsAffected = 0;
-        for (Iterator iter = rows.iterator(); iter.hasNext();) {
+        int nextDeleted = 0;
+        int position = 0;
+        for (Iterator iter = rows.iterator(); iter.hasNext(); ++position) {
             Row row = (Row) iter.next();
-            
-            if (checker.evaluate(where, row, tableName)) {
-                ++rowsAffected;
-                checker.checkDelete(row, null);
+            if (nextDeleted < rowsAffected && 
+                deletedPositions[nextDeleted] == position) {
+                ++nextDeleted;
             }
             else {
                 newRows = newRows.with(row);
             }
-
         }
+
+        // Deleting shifts the positions of the remaining rows
         TableData newTable = new TableData(
-            columns, constraints, newRows, indexes);
+            columns, newConstraints, newRows, 
+            indexes.withoutRows(deleted, deletedPositions),
+            keyIndexes.withoutRows(deleted, deletedPositions));
         return new UpdateTable(newTable, rowsAffected);
     }
 
@@ -221,16 +348,9 @@ public class TableData {
     }
     
     public Row dummyRow() {
-
-        TupleBuilder tuple = new TupleBuilder();
-        for (int i = 0; i < columns.columnCount(); ++i) {
-            tuple.append(
-                columns.column(i),
-                NullCell.INSTANCE
-            );
-        }
-
-        return tuple.asRow();
+        Cell[] cells = new Cell[columns.columnCount()];
+        Arrays.fill(cells, NullCell.INSTANCE);
+        return new Row(columns.layout(), cells);
     }
 
     public Column findColumn(String columnName) {
@@ -257,7 +377,24 @@ public class TableData {
         return rows;
     }
 
+    /**
+     * @internal
+     * An index (or primary key or unique constraint) which can
+     * look up rows by column, or null if there is none.
+     */
+    public Index indexStartingWith(String column) {
+        Index found = indexes.indexStartingWith(column);
+        if (found != null) {
+            return found;
+        }
+        return keyIndexes.indexStartingWith(column);
+    }
+
     public boolean hasValue(String column, Cell value) {
+        Index index = indexStartingWith(column);
+        if (index != null) {
+            return index.hasValue(value);
+        }
         for (Iterator iter = rows.iterator(); iter.hasNext();) {
             Row row = (Row) iter.next();
             if (row.cell(column).sqlEquals(value)) {
@@ -277,13 +414,6 @@ public class TableData {
         return false;
     }
 
-    public DataStore checkDelete(
-        DataStore store,
-        String schema, String table, Row rowToDelete, Row replacementRow) {
-        return constraints.checkDelete(store, schema, table, 
-            rowToDelete, replacementRow);
-    }
-
     public void checkDropTable(DataStore store, String schema, String table) {
         constraints.checkDropTable(store, schema, table);
     }
@@ -297,17 +427,17 @@ public class TableData {
             columns.with(newColumn, position), 
             constraints,
             rows.addColumn(newColumn),
-            indexes
+            indexes,
+            keyIndexes
         );
     }
 
     public TableData dropColumn(TableReference table, String column) {
-        // TODO: what if column is mentioned in indexes?
         return new TableData(
             columns.without(column),
             constraints.dropColumn(table, column),
             rows.dropColumn(column),
-            indexes
+            indexes.dropColumn(column)
         );
     }
 
@@ -344,7 +474,8 @@ public class TableData {
             columns.replace(newColumn),
             constraints,
             rows,
-            indexes
+            indexes,
+            keyIndexes
         );
     }
 
@@ -355,7 +486,8 @@ public class TableData {
             columns.replace(oldName, newColumn),
             constraints.renameColumn(oldName, newName),
             rows.renameColumn(oldName, newName),
-            indexes.renameColumn(oldName, newName)
+            indexes.renameColumn(oldName, newName),
+            keyIndexes.renameColumn(oldName, newName)
         );
     }
     
@@ -364,7 +496,8 @@ public class TableData {
             columns,
             constraints.renameTable(oldName, newName),
             rows,
-            indexes
+            indexes,
+            keyIndexes
         );
     }
 
@@ -406,7 +539,7 @@ public class TableData {
     public TableData addConstraint(Constraint key) {
         return new TableData(
             columns,
-            constraints.addConstraint(key),
+            constraints.addConstraint(key.forRows(rows)),
             rows,
             indexes
         );
@@ -417,7 +550,8 @@ public class TableData {
             columns,
             constraints,
             rows,
-            indexes.with(index));
+            indexes.with(index.forRows(rows)),
+            keyIndexes);
     }
 
     public TableData dropIndex(String indexName) {
@@ -425,7 +559,8 @@ public class TableData {
             columns,
             constraints,
             rows,
-            indexes.without(indexName));
+            indexes.without(indexName),
+            keyIndexes);
     }
 
     public boolean canBeTargetOfForeignKey(String targetColumn) {
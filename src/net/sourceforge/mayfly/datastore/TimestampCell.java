@@ -82,4 +82,14 @@ public class TimestampCell extends Cell {
         return stamp.getSecondOfMinute();
     }
 
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TimestampCell && ((TimestampCell) other).stamp.equals(stamp);
+    }
+
+    @Override
+    public int hashCode() {
+        return stamp.hashCode();
+    }
+
 }
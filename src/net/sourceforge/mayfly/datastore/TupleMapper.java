@@ -2,25 +2,26 @@ package net.sourceforge.mayfly.datastore;
 
 import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.util.CaseInsensitiveString;
-import net.sourceforge.mayfly.util.ImmutableMap;
 
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class TupleMapper {
     
-    private Map columnToCell;
+    private final Map<CaseInsensitiveString, Cell> columnToCell;
+    private final RowLayout initialLayout;
 
     public TupleMapper() {
-        columnToCell = new HashMap();
+        columnToCell = new LinkedHashMap<CaseInsensitiveString, Cell>();
+        initialLayout = null;
     }
 
     public TupleMapper(Row initial) {
-        this();
-        for (Iterator iter = initial.columnNames(); iter.hasNext();) {
-            CaseInsensitiveString name = (CaseInsensitiveString) iter.next();
-            columnToCell.put(name, initial.cell(name));
+        columnToCell = new LinkedHashMap<CaseInsensitiveString, Cell>();
+        initialLayout = initial.layout();
+        for (int i = 0; i < initialLayout.size(); ++i) {
+            columnToCell.put(initialLayout.name(i), initial.cell(i));
         }
     }
 
@@ -33,7 +34,7 @@ public class TupleMapper {
     }
 
     private Cell put(CaseInsensitiveString column, Cell cell) {
-        return (Cell) columnToCell.put(column, cell);
+        return columnToCell.put(column, cell);
     }
 
     public void add(String column, Cell cell) {
@@ -52,7 +53,17 @@ public class TupleMapper {
     }
 
     public Row asRow() {
-        return new Row(new ImmutableMap(columnToCell));
+        Cell[] cells = (Cell[]) 
+            columnToCell.values().toArray(new Cell[columnToCell.size()]);
+        if (initialLayout != null && initialLayout.size() == cells.length) {
+            /* Only replaced cells of the initial row, which are still
+               in the same order.  */
+            return new Row(initialLayout, cells);
+        }
+        return new Row(
+            new RowLayout(
+                new ArrayList<CaseInsensitiveString>(columnToCell.keySet())),
+            cells);
     }
 
 }
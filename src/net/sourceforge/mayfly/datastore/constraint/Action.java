@@ -9,16 +9,24 @@ import net.sourceforge.mayfly.evaluation.command.SetClause;
 import net.sourceforge.mayfly.evaluation.command.UpdateStore;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
 import net.sourceforge.mayfly.evaluation.condition.Equal;
+import net.sourceforge.mayfly.evaluation.condition.InCells;
 import net.sourceforge.mayfly.evaluation.expression.SingleColumn;
 import net.sourceforge.mayfly.evaluation.expression.literal.CellExpression;
 import net.sourceforge.mayfly.util.ImmutableList;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.List;
 
 public abstract class Action {
 
-    abstract public DataStore handleDelete(Cell oldValue, DataStore store, 
+    /**
+     * @internal
+     * Rows have been deleted from the target table, and the
+     * referencing table has rows which refer to each of oldValues.
+     * Deal with all of those rows at once.
+     */
+    abstract public DataStore handleDelete(List<Cell> oldValues, DataStore store, 
         String referencerSchema, String referencerTable, 
         String referencerColumn, 
         TableReference targetTable, String targetColumn);
@@ -28,13 +36,13 @@ public abstract class Action {
         String referencerTable, 
         String referencerColumn, TableReference targetTable, String targetColumn);
 
-    protected DataStore setValue(Cell oldValue, Expression valueToAssign, 
+    protected DataStore setValue(List<Cell> oldValues, Expression valueToAssign, 
         DataStore store, 
         String referencerSchema, String referencerTable, String referencerColumn) {
         UpdateStore update = store.update(referencerSchema, referencerTable,
             ImmutableList.singleton(
                 new SetClause(referencerColumn, valueToAssign)), 
-            where(oldValue, referencerTable, referencerColumn),
+            where(oldValues, referencerTable, referencerColumn),
             //Location.UNKNOWN,
             new Options()
         );
@@ -48,6 +56,14 @@ public abstract class Action {
         );
     }
 
+    protected Condition where(List<Cell> oldValues, 
+        String referencerTable, String referencerColumn) {
+        return new InCells(
+            new SingleColumn(referencerTable, referencerColumn),
+            oldValues
+        );
+    }
+
     abstract public void dump(Writer out) throws IOException;
 
 }
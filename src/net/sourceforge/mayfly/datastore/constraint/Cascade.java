@@ -12,15 +12,16 @@ import net.sourceforge.mayfly.util.ImmutableList;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.List;
 
 public class Cascade extends Action {
 
     @Override
-    public DataStore handleDelete(Cell oldValue, DataStore store, 
+    public DataStore handleDelete(List<Cell> oldValues, DataStore store, 
         String referencerSchema, String referencerTable, String referencerColumn, 
         TableReference targetTable, String targetColumn) {
         UpdateStore update = store.delete(referencerSchema, referencerTable,
-            where(oldValue, referencerTable, referencerColumn),
+            where(oldValues, referencerTable, referencerColumn),
             new Options()
         );
         return update.store();
@@ -1,6 +1,7 @@
 package net.sourceforge.mayfly.datastore.constraint;
 
 import net.sourceforge.mayfly.MayflyException;
+import net.sourceforge.mayfly.datastore.ColumnNames;
 import net.sourceforge.mayfly.datastore.DataStore;
 import net.sourceforge.mayfly.datastore.Row;
 import net.sourceforge.mayfly.datastore.Rows;
@@ -53,8 +54,29 @@ public abstract class Constraint {
         DataStore store, TableReference table);
 
     abstract public void check(
-        Rows existingRows, Row proposedRow, 
-        TableReference table, Location location);
+        Row proposedRow, TableReference table, Location location);
+
+    /**
+     * @internal
+     * Return a constraint which also knows about a newly added row.
+     * Only does something for constraints which keep an index
+     * of the rows in their table.
+     */
+    public Constraint withRow(Row row) {
+        return this;
+    }
+
+    public Constraint withoutRow(Row row) {
+        return this;
+    }
+
+    /**
+     * @internal
+     * Return a constraint which knows about exactly the given rows.
+     */
+    public Constraint forRows(Rows rows) {
+        return this;
+    }
 
     public void checkInsert(DataStore store, String schema, String table, 
         Row proposedRow, Location location) {
@@ -88,6 +110,35 @@ public abstract class Constraint {
          */        
     }
 
+    /**
+     * @internal
+     * The columns which this constraint keeps unique, or null if
+     * it is not that kind of constraint.
+     */
+    public ColumnNames uniqueColumns() {
+        return null;
+    }
+
+    /**
+     * @internal
+     * The columns by which checking this constraint looks up rows
+     * of its table, so that the table should keep an index on them,
+     * or null if there are none.
+     */
+    public ColumnNames indexedColumns() {
+        return uniqueColumns();
+    }
+
+    /**
+     * @internal
+     * Does checking this constraint on a new row look at other
+     * rows of the same table (as a foreign key which refers to its
+     * own table does)?
+     */
+    public boolean refersToSameTable() {
+        return false;
+    }
+
     public boolean canBeTargetOfForeignKey(String targetColumn) {
         return false;
     }
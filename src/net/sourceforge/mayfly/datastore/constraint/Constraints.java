@@ -3,6 +3,7 @@ package net.sourceforge.mayfly.datastore.constraint;
 import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.MayflyInternalException;
 import net.sourceforge.mayfly.datastore.Column;
+import net.sourceforge.mayfly.datastore.ColumnNames;
 import net.sourceforge.mayfly.datastore.DataStore;
 import net.sourceforge.mayfly.datastore.Row;
 import net.sourceforge.mayfly.datastore.Rows;
@@ -29,6 +30,20 @@ public class Constraints implements Iterable<Constraint> {
         checkOnlyOnePrimaryKey(constraints);
     }
 
+    /**
+     * @internal
+     * For when the constraints are the same as ones we already have,
+     * apart from the rows they know about, so that there is no need
+     * to check them again.
+     */
+    private Constraints(List<Constraint> constraints, boolean alreadyChecked) {
+        if (!alreadyChecked) {
+            throw new MayflyInternalException(
+                "Call the public constructor instead");
+        }
+        this.constraints = new ImmutableList<Constraint>(constraints);
+    }
+
     private static void checkDuplicates(ImmutableList constraints) {
         for (int i = 0; i < constraints.size(); ++i) {
             Constraint constraint = (Constraint) constraints.get(i);
@@ -61,27 +76,41 @@ public class Constraints implements Iterable<Constraint> {
      * Not-null is checked in 
      * {@link Column#coerce(net.sourceforge.mayfly.datastore.Cell, Location)}
      */
-    public void check(Rows rows, Row newRow, TableReference table, Location location) {
+    public void check(Row newRow, TableReference table, Location location) {
         for (Constraint constraint : constraints) {
-            constraint.check(rows, newRow, table, location);
+            constraint.check(newRow, table, location);
         }
     }
 
-    public void checkInsert(
-        DataStore store, String schema, String table, Row proposedRow, Location location) {
+    public Constraints withRow(Row row) {
+        List<Constraint> result = new ArrayList<Constraint>();
         for (Constraint constraint : constraints) {
-            constraint.checkInsert(store, schema, table, proposedRow, location);
+            result.add(constraint.withRow(row));
         }
+        return new Constraints(result, true);
     }
 
-    public DataStore checkDelete(
-        DataStore store, String schema, String table, 
-        Row rowToDelete, Row replacementRow) {
+    public Constraints withoutRow(Row row) {
+        List<Constraint> result = new ArrayList<Constraint>();
+        for (Constraint constraint : constraints) {
+            result.add(constraint.withoutRow(row));
+        }
+        return new Constraints(result, true);
+    }
+
+    public Constraints forRows(Rows rows) {
+        List<Constraint> result = new ArrayList<Constraint>();
+        for (Constraint constraint : constraints) {
+            result.add(constraint.forRows(rows));
+        }
+        return new Constraints(result, true);
+    }
+
+    public void checkInsert(
+        DataStore store, String schema, String table, Row proposedRow, Location location) {
         for (Constraint constraint : constraints) {
-            store = constraint.checkDelete(store, schema, table, 
-                rowToDelete, replacementRow);
+            constraint.checkInsert(store, schema, table, proposedRow, location);
         }
-        return store;
     }
 
     public void checkDropTable(DataStore store, String schema, String table) {
@@ -224,6 +253,28 @@ public class Constraints implements Iterable<Constraint> {
         return constraints.get(index);
     }
 
+    public List<ColumnNames> uniqueColumns() {
+        List<ColumnNames> result = new ArrayList<ColumnNames>();
+        for (Constraint constraint : constraints) {
+            ColumnNames columns = constraint.uniqueColumns();
+            if (columns != null) {
+                result.add(columns);
+            }
+        }
+        return result;
+    }
+
+    public List<ColumnNames> indexedColumns() {
+        List<ColumnNames> result = new ArrayList<ColumnNames>();
+        for (Constraint constraint : constraints) {
+            ColumnNames columns = constraint.indexedColumns();
+            if (columns != null) {
+                result.add(columns);
+            }
+        }
+        return result;
+    }
+
     public boolean hasPrimaryKey() {
         for (Iterator iter = constraints.iterator(); iter.hasNext();) {
             Constraint constraint = (Constraint) iter.next();
@@ -234,6 +285,15 @@ public class Constraints implements Iterable<Constraint> {
         return false;
     }
 
+    public boolean refersToSameTable() {
+        for (Constraint constraint : constraints) {
+            if (constraint.refersToSameTable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean refersTo(String table, Evaluator evaluator) {
         evaluator.store().table(table);
         for (Iterator iter = constraints.iterator(); iter.hasNext();) {
@@ -3,6 +3,7 @@ package net.sourceforge.mayfly.datastore.constraint;
 import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.MayflyInternalException;
 import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.datastore.ColumnNames;
 import net.sourceforge.mayfly.datastore.DataStore;
 import net.sourceforge.mayfly.datastore.NullCell;
 import net.sourceforge.mayfly.datastore.Row;
@@ -14,6 +15,7 @@ import net.sourceforge.mayfly.parser.Location;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -141,7 +143,8 @@ public class ForeignKey extends Constraint {
         }
     }
 
-    private boolean refersToSameTable() {
+    @Override
+    public boolean refersToSameTable() {
         return targetTable.matches(referencerSchema, referencerTable);
     }
 
@@ -185,16 +188,40 @@ public class ForeignKey extends Constraint {
                 }
             }
             else {
-                if (referencer.hasValue(referencerColumn, oldValue)) {
-                    return onDelete.handleDelete(oldValue, store, 
-                        referencerSchema, referencerTable, referencerColumn,
-                        targetTable, targetColumn);
-                }
+                return checkDelete(store, schema, table, 
+                    Collections.singletonList(rowToDelete));
             }
         }
         return store;
     }
 
+    /**
+     * @internal
+     * Check deleting several rows from the target table, carrying
+     * out the ON DELETE action for all of them at once.
+     */
+    public DataStore checkDelete(DataStore store, String schema, String table, 
+        List<Row> rowsToDelete) {
+        if (!tableIsMyTarget(schema, table)) {
+            return store;
+        }
+
+        TableData referencer = store.table(referencerSchema, referencerTable);
+        List<Cell> referencedValues = new ArrayList<Cell>();
+        for (Row row : rowsToDelete) {
+            Cell oldValue = row.cell(targetColumn);
+            if (referencer.hasValue(referencerColumn, oldValue)) {
+                referencedValues.add(oldValue);
+            }
+        }
+        if (referencedValues.isEmpty()) {
+            return store;
+        }
+        return onDelete.handleDelete(referencedValues, store, 
+            referencerSchema, referencerTable, referencerColumn,
+            targetTable, targetColumn);
+    }
+
     @Override
     public void checkDropTable(DataStore store, String schema, String table) {
         if (tableIsMyTarget(schema, table) && !refersToSameTable()) {
@@ -286,8 +313,8 @@ public class ForeignKey extends Constraint {
      * {@link #checkInsert(DataStore, String, String, Row, Location)}.
      */
     @Override
-    public void check(Rows existingRows, Row proposedRow, 
-        TableReference table, Location location) {
+    public void check(Row proposedRow, TableReference table, 
+        Location location) {
     }
 
     /**
@@ -308,6 +335,19 @@ public class ForeignKey extends Constraint {
         return super.canBeTargetOfForeignKey(targetColumn);
     }
     
+    /**
+     * @internal
+     * The referring column, so that deleting or updating a row of
+     * the target table can find the rows which refer to it without
+     * looking at every row.  (Inserting a row here looks up the
+     * target value through the index which the target table keeps
+     * for the key on the target column.)
+     */
+    @Override
+    public ColumnNames indexedColumns() {
+        return ColumnNames.singleton(referencerColumn);
+    }
+
     @Override
     public boolean refersTo(String table, Evaluator evaluator) {
         return targetTable.matches(DataStore.ANONYMOUS_SCHEMA_NAME, table);
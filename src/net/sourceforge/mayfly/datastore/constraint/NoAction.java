@@ -2,6 +2,8 @@ package net.sourceforge.mayfly.datastore.constraint;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
 
 import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.datastore.Cell;
@@ -11,9 +13,10 @@ import net.sourceforge.mayfly.datastore.TableReference;
 public class NoAction extends Action {
 
     @Override
-    public DataStore handleDelete(Cell oldValue, DataStore store, 
+    public DataStore handleDelete(List<Cell> oldValues, DataStore store, 
         String referencerSchema, String referencerTable, String referencerColumn, 
         TableReference targetTable, String targetColumn) {
+        Cell oldValue = oldValues.get(0);
         throw new MayflyException(
             "foreign key violation: table " + 
             referencerTable + " refers to " + 
@@ -26,7 +29,7 @@ public class NoAction extends Action {
         DataStore store, 
         String referencerSchema, String referencerTable, String referencerColumn, 
         TableReference targetTable, String targetColumn) {
-        return handleDelete(oldValue, store, 
+        return handleDelete(Collections.singletonList(oldValue), store, 
             referencerSchema, referencerTable, referencerColumn, 
             targetTable, targetColumn);
     }
@@ -6,19 +6,29 @@ import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.ColumnNames;
 import net.sourceforge.mayfly.datastore.Columns;
 import net.sourceforge.mayfly.datastore.DataStore;
+import net.sourceforge.mayfly.datastore.IndexKey;
 import net.sourceforge.mayfly.datastore.Row;
 import net.sourceforge.mayfly.datastore.Rows;
 import net.sourceforge.mayfly.datastore.TableReference;
 import net.sourceforge.mayfly.parser.Location;
+import net.sourceforge.mayfly.util.PersistentHashMap;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public abstract class NotNullOrUnique extends Constraint {
 
     protected final ColumnNames names;
 
+    /**
+     * @internal
+     * The keys of the rows in the table, so that checking a proposed
+     * row need not look at every existing row.  Keys containing
+     * null are left out, as they never conflict with anything.
+     */
+    protected final PersistentHashMap<IndexKey, Occurrences> keys;
+
     /**
      * Here we take {@link Columns} as opposed to {@link ColumnNames}
      * merely as a way to express the concept that the names have
@@ -29,39 +39,136 @@ public abstract class NotNullOrUnique extends Constraint {
     }
     
     protected NotNullOrUnique(ColumnNames columns, String constraintName) {
+        this(columns, constraintName, 
+            new PersistentHashMap<IndexKey, Occurrences>());
+    }
+
+    protected NotNullOrUnique(ColumnNames columns, String constraintName,
+        PersistentHashMap<IndexKey, Occurrences> keys) {
         super(constraintName);
         this.names = columns;
+        this.keys = keys;
         if (names.size() == 0) {
             throw new MayflyInternalException("must have at least one column for a constraint");
         }
     }
+
+    /**
+     * @internal
+     * A constraint just like this one but with a different
+     * set of existing keys.
+     */
+    protected abstract NotNullOrUnique withKeys(
+        PersistentHashMap<IndexKey, Occurrences> newKeys);
     
     @Override
     public void checkExistingRows(DataStore store, TableReference table) {
         Rows allRows = store.table(table).rows();
-        for (int i = 0; i < allRows.rowCount(); ++i) {
-            check(allRows.subList(0, i), allRows.row(i), table, Location.UNKNOWN);
+        NotNullOrUnique checked = forRows(new Rows());
+        for (Iterator iter = allRows.iterator(); iter.hasNext();) {
+            Row row = (Row) iter.next();
+            checked.check(row, table, Location.UNKNOWN);
+            checked = checked.withRow(row);
         }
     }
 
     @Override
-    public void check(Rows existingRows, Row proposedRow, 
-        TableReference table, Location location) {
-        List proposedValues = collectProposedValues(proposedRow);
+    public void check(Row proposedRow, TableReference table, Location location) {
+        IndexKey proposed = new IndexKey(collectProposedValues(proposedRow));
+        if (proposed.hasNull()) {
+            return;
+        }
 
-        for (Iterator iter = existingRows.iterator(); iter.hasNext();) {
-            Row row = (Row) iter.next();
-            List valuesForRow = valuesForRow(row);
+        if (proposed.hasBinary()) {
+            checkByComparing(proposed, table, location);
+            return;
+        }
+
+        Occurrences existing = keys.get(proposed);
+        if (existing != null) {
+            throw duplicate(table, existing.firstKey.asList());
+        }
+    }
+
+    /**
+     * Binary data cannot be compared yet, so a binary key is compared
+     * with each existing key, as before there was an index, which
+     * reports that at the location of the command.
+     */
+    private void checkByComparing(IndexKey proposed, TableReference table,
+        Location location) {
+        List proposedValues = proposed.asList();
+        for (Map.Entry<IndexKey, Occurrences> entry : keys) {
+            List valuesForRow = entry.getValue().firstKey.asList();
             if (sqlEquals(proposedValues, valuesForRow, location)) {
-                throw new MayflyException(
-                    constraintName(table) + ": duplicate value" +
-                    (valuesForRow.size() == 1 ? "" : "s") +
-                    " " + 
-                    describeValues(valuesForRow));
+                throw duplicate(table, valuesForRow);
             }
         }
     }
 
+    private MayflyException duplicate(TableReference table, List valuesForRow) {
+        return new MayflyException(
+            constraintName(table) + ": duplicate value" +
+            (valuesForRow.size() == 1 ? "" : "s") +
+            " " + 
+            describeValues(valuesForRow));
+    }
+
+    @Override
+    public NotNullOrUnique withRow(Row row) {
+        IndexKey key = IndexKey.fromRow(row, names);
+        if (key.hasNull()) {
+            return this;
+        }
+        Occurrences existing = keys.get(key);
+        Occurrences updated = existing == null ?
+            new Occurrences(key, 1) :
+            new Occurrences(existing.firstKey, existing.count + 1);
+        return withKeys(keys.with(key, updated));
+    }
+
+    @Override
+    public NotNullOrUnique withoutRow(Row row) {
+        IndexKey key = IndexKey.fromRow(row, names);
+        Occurrences existing = keys.get(key);
+        if (existing == null) {
+            return this;
+        }
+        else if (existing.count == 1) {
+            return withKeys(keys.without(key));
+        }
+        else {
+            return withKeys(keys.with(key, 
+                new Occurrences(existing.firstKey, existing.count - 1)));
+        }
+    }
+
+    @Override
+    public NotNullOrUnique forRows(Rows rows) {
+        NotNullOrUnique result = 
+            withKeys(new PersistentHashMap<IndexKey, Occurrences>());
+        for (Iterator iter = rows.iterator(); iter.hasNext();) {
+            Row row = (Row) iter.next();
+            result = result.withRow(row);
+        }
+        return result;
+    }
+
+    /**
+     * @internal
+     * How many rows have a given key.  Normally just one, but
+     * we don't want to depend on that.
+     */
+    protected static class Occurrences {
+        final IndexKey firstKey;
+        final int count;
+
+        Occurrences(IndexKey firstKey, int count) {
+            this.firstKey = firstKey;
+            this.count = count;
+        }
+    }
+
     public static boolean sqlEquals(List left, List right, Location location) {
         if (left.size() != right.size()) {
             throw new MayflyInternalException(
@@ -78,15 +185,6 @@ public abstract class NotNullOrUnique extends Constraint {
         return true;
     }
 
-    private List valuesForRow(Row row) {
-        List valuesForRow = new ArrayList();
-        for (Iterator iterator = names.iterator(); iterator.hasNext();) {
-            String column = (String) iterator.next();
-            valuesForRow.add(row.cell(column));
-        }
-        return valuesForRow;
-    }
-
     static String describeValues(List valuesForRow) {
         StringBuilder message = new StringBuilder();
         Iterator iter = valuesForRow.iterator();
@@ -133,13 +231,13 @@ public abstract class NotNullOrUnique extends Constraint {
         return message.toString();
     }
     
-    private List collectProposedValues(Row proposedRow) {
-        List proposedValues = new ArrayList();
-        for (Iterator iter = names.iterator(); iter.hasNext();) {
-            String column = (String) iter.next();
+    private Cell[] collectProposedValues(Row proposedRow) {
+        Cell[] proposedValues = new Cell[names.size()];
+        for (int i = 0; i < proposedValues.length; ++i) {
+            String column = names.name(i);
             Cell proposedCell = proposedRow.cell(column);
             checkForNull(column, proposedCell);
-            proposedValues.add(proposedCell);
+            proposedValues[i] = proposedCell;
         }
         return proposedValues;
     }
@@ -161,6 +259,11 @@ public abstract class NotNullOrUnique extends Constraint {
         return true;
     }
     
+    @Override
+    public ColumnNames uniqueColumns() {
+        return names;
+    }
+
     @Override
     public boolean canBeTargetOfForeignKey(String targetColumn) {
         return names.size() == 1 && names.hasColumn(targetColumn);
@@ -17,7 +17,7 @@ public class NullConstraint extends Constraint {
     }
 
     @Override
-    public void check(Rows existingRows, Row proposedRow, TableReference table,
+    public void check(Row proposedRow, TableReference table,
         Location location) {
     }
 
@@ -4,7 +4,9 @@ import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.ColumnNames;
 import net.sourceforge.mayfly.datastore.Columns;
+import net.sourceforge.mayfly.datastore.IndexKey;
 import net.sourceforge.mayfly.datastore.NullCell;
+import net.sourceforge.mayfly.util.PersistentHashMap;
 
 import java.io.IOException;
 import java.io.Writer;
@@ -23,6 +25,17 @@ public class PrimaryKey extends NotNullOrUnique {
         super(columns, constraintName);
     }
 
+    private PrimaryKey(ColumnNames columns, String constraintName,
+        PersistentHashMap<IndexKey, Occurrences> keys) {
+        super(columns, constraintName, keys);
+    }
+
+    @Override
+    protected NotNullOrUnique withKeys(
+        PersistentHashMap<IndexKey, Occurrences> newKeys) {
+        return new PrimaryKey(names, constraintName, newKeys);
+    }
+
     @Override
     protected void checkForNull(String column, Cell proposedCell) {
         if (proposedCell instanceof NullCell) {
@@ -34,7 +47,8 @@ public class PrimaryKey extends NotNullOrUnique {
     public Constraint renameColumn(String oldName, String newName) {
         return new PrimaryKey(
             names.renameColumn(oldName, newName), 
-            constraintName);
+            constraintName,
+            keys);
     }
 
     @Override
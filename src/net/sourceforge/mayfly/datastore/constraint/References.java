@@ -0,0 +1,89 @@
+package net.sourceforge.mayfly.datastore.constraint;
+
+import net.sourceforge.mayfly.datastore.DataStore;
+import net.sourceforge.mayfly.datastore.Row;
+import net.sourceforge.mayfly.datastore.TableReference;
+import net.sourceforge.mayfly.util.CaseInsensitiveString;
+import net.sourceforge.mayfly.util.ImmutableList;
+import net.sourceforge.mayfly.util.ImmutableMap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @internal
+ * For each table, the foreign keys which refer to it.  Deleting or
+ * updating a row then only needs to consult those keys, rather
+ * than every constraint of every table in the store.
+ *
+ * The keys for each table are in the order in which we would have
+ * found them by looking through the tables, so that actions like
+ * ON DELETE CASCADE happen in the same order as they did before
+ * we kept this.
+ */
+public class References {
+
+    private final ImmutableMap<CaseInsensitiveString, ImmutableList<ForeignKey>>
+        byTarget;
+
+    public References(List<Constraints> allConstraints) {
+        Map<CaseInsensitiveString, List<ForeignKey>> found =
+            new LinkedHashMap<CaseInsensitiveString, List<ForeignKey>>();
+        for (Constraints constraints : allConstraints) {
+            for (Constraint constraint : constraints) {
+                if (constraint instanceof ForeignKey) {
+                    ForeignKey key = (ForeignKey) constraint;
+                    CaseInsensitiveString target = key(key.targetTable);
+                    List<ForeignKey> keys = found.get(target);
+                    if (keys == null) {
+                        keys = new ArrayList<ForeignKey>();
+                        found.put(target, keys);
+                    }
+                    keys.add(key);
+                }
+            }
+        }
+
+        Map<CaseInsensitiveString, ImmutableList<ForeignKey>> result =
+            new LinkedHashMap<CaseInsensitiveString, ImmutableList<ForeignKey>>();
+        for (Map.Entry<CaseInsensitiveString, List<ForeignKey>> entry :
+            found.entrySet()) {
+            result.put(entry.getKey(),
+                new ImmutableList<ForeignKey>(entry.getValue()));
+        }
+        this.byTarget = new ImmutableMap(result);
+    }
+
+    private static CaseInsensitiveString key(TableReference table) {
+        return new CaseInsensitiveString(table.toString());
+    }
+
+    public List<ForeignKey> referencers(String schema, String table) {
+        ImmutableList<ForeignKey> keys =
+            byTarget.get(key(new TableReference(schema, table)));
+        if (keys == null) {
+            return new ImmutableList<ForeignKey>();
+        }
+        return keys;
+    }
+
+    public DataStore checkDelete(DataStore store, String schema, String table,
+        Row rowToDelete, Row replacementRow) {
+        for (ForeignKey key : referencers(schema, table)) {
+            store = key.checkDelete(store, schema, table,
+                rowToDelete, replacementRow);
+        }
+        return store;
+    }
+
+    public DataStore checkDelete(DataStore store, String schema, String table,
+        List<Row> rowsToDelete) {
+        for (ForeignKey key : referencers(schema, table)) {
+            store = key.checkDelete(store, schema, table, rowsToDelete);
+        }
+        return store;
+    }
+
+}
@@ -2,6 +2,7 @@ package net.sourceforge.mayfly.datastore.constraint;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.List;
 
 import net.sourceforge.mayfly.UnimplementedException;
 import net.sourceforge.mayfly.datastore.Cell;
@@ -11,11 +12,11 @@ import net.sourceforge.mayfly.datastore.TableReference;
 public class SetDefault extends Action {
 
     @Override
-    public DataStore handleDelete(Cell oldValue, DataStore store, 
+    public DataStore handleDelete(List<Cell> oldValues, DataStore store, 
         String referencerSchema, String referencerTable, 
         String referencerColumn, 
         TableReference targetTable, String targetColumn) {
-        return setValue(oldValue, null, 
+        return setValue(oldValues, null, 
             store, referencerSchema, referencerTable, referencerColumn);
     }
 
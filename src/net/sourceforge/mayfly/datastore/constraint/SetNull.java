@@ -2,6 +2,8 @@ package net.sourceforge.mayfly.datastore.constraint;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
 
 import net.sourceforge.mayfly.UnimplementedException;
 import net.sourceforge.mayfly.datastore.Cell;
@@ -13,11 +15,11 @@ import net.sourceforge.mayfly.parser.Location;
 public class SetNull extends Action {
 
     @Override
-    public DataStore handleDelete(Cell oldValue, DataStore store, 
+    public DataStore handleDelete(List<Cell> oldValues, DataStore store, 
         String referencerSchema, String referencerTable, 
         String referencerColumn, 
         TableReference targetTable, String targetColumn) {
-        return setValue(oldValue, new NullExpression(Location.UNKNOWN), 
+        return setValue(oldValues, new NullExpression(Location.UNKNOWN), 
             store, referencerSchema, referencerTable, referencerColumn);
     }
 
@@ -29,7 +31,7 @@ public class SetNull extends Action {
         if (true) throw new UnimplementedException();
 
         // I don't know why this wasn't working
-        return handleDelete(oldValue, store, 
+        return handleDelete(Collections.singletonList(oldValue), store, 
             referencerSchema, referencerTable, referencerColumn, 
             targetTable, targetColumn);
     }
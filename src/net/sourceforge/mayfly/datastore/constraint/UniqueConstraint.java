@@ -3,6 +3,8 @@ package net.sourceforge.mayfly.datastore.constraint;
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.ColumnNames;
 import net.sourceforge.mayfly.datastore.Columns;
+import net.sourceforge.mayfly.datastore.IndexKey;
+import net.sourceforge.mayfly.util.PersistentHashMap;
 
 import java.io.IOException;
 import java.io.Writer;
@@ -21,6 +23,17 @@ public class UniqueConstraint extends NotNullOrUnique {
         super(columns, constraintName);
     }
 
+    private UniqueConstraint(ColumnNames columns, String constraintName,
+        PersistentHashMap<IndexKey, Occurrences> keys) {
+        super(columns, constraintName, keys);
+    }
+
+    @Override
+    protected NotNullOrUnique withKeys(
+        PersistentHashMap<IndexKey, Occurrences> newKeys) {
+        return new UniqueConstraint(names, constraintName, newKeys);
+    }
+
     @Override
     protected void checkForNull(String column, Cell proposedCell) {
     }
@@ -29,7 +42,8 @@ public class UniqueConstraint extends NotNullOrUnique {
     public Constraint renameColumn(String oldName, String newName) {
         return new UniqueConstraint(
             names.renameColumn(oldName, newName), 
-            constraintName);
+            constraintName,
+            keys);
     }
 
     @Override
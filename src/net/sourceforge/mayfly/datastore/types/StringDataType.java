@@ -4,17 +4,64 @@ import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.StringCell;
 import net.sourceforge.mayfly.evaluation.Value;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 public class StringDataType extends DataType {
 
+    /**
+     * Past this many distinct values, we stop adding to the
+     * dictionary (the column is probably something like names,
+     * rather than codes, and sharing wouldn't save much).
+     */
+    static final int MAXIMUM_DICTIONARY_SIZE = 4096;
+
     private final String dumpName;
 
+    /**
+     * Cells stored in this column, so that rows with the same value
+     * share one {@link StringCell} (for example, a status code which
+     * repeats in every row).  Since cells are immutable, sharing them
+     * can't be seen except as less memory used, and as faster
+     * comparisons (equal cells are usually the same object).
+     * 
+     * The column is part of the table's definition, so every 
+     * snapshot of the table shares the dictionary.  It only grows,
+     * but values which are no longer in the table cost no more than
+     * the dictionary entry.
+     */
+    private final ConcurrentMap<String, StringCell> dictionary =
+        new ConcurrentHashMap<String, StringCell>();
+
     public StringDataType(String dumpName) {
         this.dumpName = dumpName;
     }
 
     @Override
     public Cell coerce(Value value, String columnName) {
-        return genericCoerce(value, columnName, "string", StringCell.class);
+        Cell cell = genericCoerce(value, columnName, "string", StringCell.class);
+        if (cell instanceof StringCell) {
+            return share((StringCell) cell);
+        }
+        return cell;
+    }
+
+    /**
+     * @internal
+     * The cell from the dictionary which is equal to cell
+     * (adding cell if there is none and there is room).
+     */
+    public StringCell share(StringCell cell) {
+        String content = cell.asString();
+        StringCell shared = dictionary.get(content);
+        if (shared != null) {
+            return shared;
+        }
+        if (dictionary.size() >= MAXIMUM_DICTIONARY_SIZE) {
+            return cell;
+        }
+        shared = dictionary.putIfAbsent(content, cell);
+        return shared == null ? cell : shared;
     }
     
     @Override
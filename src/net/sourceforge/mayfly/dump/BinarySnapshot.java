@@ -0,0 +1,299 @@
+package net.sourceforge.mayfly.dump;
+
+import net.sourceforge.mayfly.MayflyException;
+import net.sourceforge.mayfly.MayflyInternalException;
+import net.sourceforge.mayfly.Options;
+import net.sourceforge.mayfly.datastore.BinaryCell;
+import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.datastore.Column;
+import net.sourceforge.mayfly.datastore.Columns;
+import net.sourceforge.mayfly.datastore.DataStore;
+import net.sourceforge.mayfly.datastore.DateCell;
+import net.sourceforge.mayfly.datastore.DecimalCell;
+import net.sourceforge.mayfly.datastore.LongCell;
+import net.sourceforge.mayfly.datastore.NullCell;
+import net.sourceforge.mayfly.datastore.Row;
+import net.sourceforge.mayfly.datastore.RowLayout;
+import net.sourceforge.mayfly.datastore.StringCell;
+import net.sourceforge.mayfly.datastore.TableData;
+import net.sourceforge.mayfly.datastore.TableReference;
+import net.sourceforge.mayfly.datastore.TimestampCell;
+import net.sourceforge.mayfly.datastore.types.StringDataType;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Saves a {@link DataStore} to a file, and reads it back, much
+ * faster than dumping it as SQL and executing the dump.  The idea
+ * is to build a large fixture once, save it, and then read it in
+ * each test run (or each JVM, if tests run in several).
+ *
+ * The table definitions (columns, constraints, indexes and the
+ * next value of each auto-increment column) are saved as SQL, as
+ * {@link SqlDumper} writes them, since they are small.  The rows
+ * are saved as binary data, and reading them back does not check
+ * constraints again (they were checked when the rows were first
+ * inserted).  The file is read through a memory mapping.
+ *
+ * The format is only meant to be read by the same version of
+ * Mayfly which wrote it.
+ */
+public class BinarySnapshot {
+
+    private static final int MAGIC = 0x4d415946; // "MAYF"
+    private static final int VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte STRING = 2;
+    private static final byte DECIMAL = 3;
+    private static final byte DATE = 4;
+    private static final byte TIMESTAMP = 5;
+    private static final byte BINARY = 6;
+
+    private static final String UTF_8 = "UTF-8";
+
+    public void write(DataStore store, File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            write(store, out);
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    private void write(DataStore store, DataOutputStream out)
+    throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        List<String> schemas = schemaNames(store);
+        writeString(definitions(store, schemas), out);
+
+        for (String schema : schemas) {
+            out.writeInt(store.tables(schema).size());
+            for (Iterator iter = store.tables(schema).iterator(); iter.hasNext();) {
+                String table = (String) iter.next();
+                writeString(table, out);
+                rows(store.table(schema, table), out);
+            }
+        }
+    }
+
+    /**
+     * The anonymous schema first, so that executing the
+     * definitions can start there, and then the others.
+     */
+    private List<String> schemaNames(DataStore store) {
+        List<String> result = new ArrayList<String>();
+        result.add(DataStore.ANONYMOUS_SCHEMA_NAME);
+        for (Iterator iter = store.schemas().iterator(); iter.hasNext();) {
+            result.add((String) iter.next());
+        }
+        return result;
+    }
+
+    private String definitions(DataStore store, List<String> schemas)
+    throws IOException {
+        StringWriter out = new StringWriter();
+        SqlDumper dumper = new SqlDumper();
+        for (String schema : schemas) {
+            if (!schema.equals(DataStore.ANONYMOUS_SCHEMA_NAME)) {
+                out.write("CREATE SCHEMA ");
+                SqlDumper.identifier(schema, out);
+                out.write(" AUTHORIZATION DBA;\nSET SCHEMA ");
+                SqlDumper.identifier(schema, out);
+                out.write(";\n");
+            }
+            dumper.definition(new DataStore(store.schema(schema)), out);
+        }
+        return out.toString();
+    }
+
+    private void rows(TableData table, DataOutputStream out)
+    throws IOException {
+        Columns columns = table.columns();
+        out.writeInt(columns.columnCount());
+        out.writeInt(table.rowCount());
+
+        RowLayout layout = null;
+        int[] positions = new int[columns.columnCount()];
+        for (int i = 0; i < table.rowCount(); ++i) {
+            Row row = table.row(i);
+            if (row.layout() != layout) {
+                layout = row.layout();
+                for (int column = 0; column < positions.length; ++column) {
+                    positions[column] =
+                        layout.position(columns.columnCase(column));
+                }
+            }
+            for (int column = 0; column < positions.length; ++column) {
+                cell(row.cell(positions[column]), out);
+            }
+        }
+    }
+
+    private void cell(Cell cell, DataOutputStream out) throws IOException {
+        try {
+            if (cell instanceof NullCell) {
+                out.writeByte(NULL);
+            }
+            else if (cell instanceof LongCell) {
+                out.writeByte(LONG);
+                out.writeLong(cell.asLong());
+            }
+            else if (cell instanceof StringCell) {
+                out.writeByte(STRING);
+                writeString(cell.asString(), out);
+            }
+            else if (cell instanceof DecimalCell) {
+                out.writeByte(DECIMAL);
+                writeString(cell.asBigDecimal().toString(), out);
+            }
+            else if (cell instanceof DateCell) {
+                out.writeByte(DATE);
+                out.writeLong(cell.asDate(DateTimeZone.UTC).getTime());
+            }
+            else if (cell instanceof TimestampCell) {
+                out.writeByte(TIMESTAMP);
+                out.writeLong(cell.asTimestamp(DateTimeZone.UTC).getTime());
+            }
+            else if (cell instanceof BinaryCell) {
+                out.writeByte(BINARY);
+                byte[] bytes = cell.asBytes();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            else {
+                throw new MayflyInternalException(
+                    "don't know how to save " + cell.displayName());
+            }
+        }
+        catch (SQLException e) {
+            throw new MayflyInternalException(e);
+        }
+    }
+
+    private void writeString(String string, DataOutputStream out)
+    throws IOException {
+        byte[] bytes = string.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public DataStore read(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            return read(channel.map(
+                FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    private DataStore read(ByteBuffer in) throws IOException {
+        if (in.remaining() < 8 || in.getInt() != MAGIC) {
+            throw new MayflyException("not a Mayfly snapshot");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new MayflyException(
+                "cannot read snapshot version " + version);
+        }
+
+        DataStore store = new DumpLoader(1).load(
+            new DataStore(), new StringReader(readString(in)), new Options());
+
+        List<String> schemas = schemaNames(store);
+        for (String schema : schemas) {
+            int tableCount = in.getInt();
+            for (int i = 0; i < tableCount; ++i) {
+                TableReference table =
+                    new TableReference(schema, readString(in));
+                store = store.replaceTable(table,
+                    readRows(store.table(table), in));
+            }
+        }
+        return store;
+    }
+
+    private TableData readRows(TableData table, ByteBuffer in)
+    throws IOException {
+        Columns columns = table.columns();
+        int columnCount = in.getInt();
+        if (columnCount != columns.columnCount()) {
+            throw new MayflyInternalException(
+                "expected " + columns.columnCount() +
+                " columns but got " + columnCount);
+        }
+
+        int rowCount = in.getInt();
+        List<Cell[]> rows = new ArrayList<Cell[]>(rowCount);
+        for (int i = 0; i < rowCount; ++i) {
+            Cell[] cells = new Cell[columnCount];
+            for (int column = 0; column < columnCount; ++column) {
+                cells[column] = readCell(columns.column(column), in);
+            }
+            rows.add(cells);
+        }
+        return table.withCheckedRows(rows);
+    }
+
+    private Cell readCell(Column column, ByteBuffer in) throws IOException {
+        byte type = in.get();
+        switch (type) {
+        case NULL:
+            return NullCell.INSTANCE;
+        case LONG:
+            return LongCell.valueOf(in.getLong());
+        case STRING:
+            StringCell string = new StringCell(readString(in));
+            if (column.type instanceof StringDataType) {
+                return ((StringDataType) column.type).share(string);
+            }
+            return string;
+        case DECIMAL:
+            return new DecimalCell(new BigDecimal(readString(in)));
+        case DATE:
+            return new DateCell(new LocalDate(in.getLong(), DateTimeZone.UTC));
+        case TIMESTAMP:
+            return new TimestampCell(
+                new LocalDateTime(in.getLong(), DateTimeZone.UTC));
+        case BINARY:
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            return new BinaryCell(bytes);
+        default:
+            throw new MayflyException("unknown cell type " + type);
+        }
+    }
+
+    private String readString(ByteBuffer in) throws IOException {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+}
@@ -0,0 +1,274 @@
+package net.sourceforge.mayfly.dump;
+
+import net.sourceforge.mayfly.MayflyException;
+import net.sourceforge.mayfly.Options;
+import net.sourceforge.mayfly.datastore.ColumnNames;
+import net.sourceforge.mayfly.datastore.DataStore;
+import net.sourceforge.mayfly.datastore.Row;
+import net.sourceforge.mayfly.datastore.TableData;
+import net.sourceforge.mayfly.datastore.TableReference;
+import net.sourceforge.mayfly.datastore.constraint.Constraints;
+import net.sourceforge.mayfly.evaluation.RealChecker;
+import net.sourceforge.mayfly.evaluation.command.Command;
+import net.sourceforge.mayfly.evaluation.command.Insert;
+import net.sourceforge.mayfly.evaluation.command.SetSchema;
+import net.sourceforge.mayfly.evaluation.select.StoreEvaluator;
+import net.sourceforge.mayfly.parser.Parser;
+import net.sourceforge.mayfly.util.CaseInsensitiveString;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads a script of the kind written by {@link SqlDumper}: the
+ * definitions of the tables, followed by INSERT commands for
+ * their rows.  The rows of each table are inserted on a separate
+ * thread, so that on a machine with several processors, loading
+ * many tables is faster than executing the script one command
+ * at a time.
+ *
+ * Foreign keys are checked once all the rows are loaded (rather
+ * than as each row is inserted, as they would be when executing
+ * the script), so the rows of a table need not come after the
+ * rows which they refer to.  All other constraints are checked
+ * as each row is inserted.
+ *
+ * Other scripts still load correctly: once we see a command other
+ * than INSERT after the first INSERT, we go back to executing the
+ * script one command at a time.
+ */
+public class DumpLoader {
+
+    private final int threads;
+
+    /**
+     * Construct a loader which uses one thread per processor.
+     */
+    public DumpLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public DumpLoader(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(
+                "need at least one thread but got " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Execute script, starting with store.  The caller is
+     * responsible for closing the Reader.
+     *
+     * @return The store with the changes from the whole script.
+     * If any command fails, there is no result at all (the
+     * exception is thrown instead), so there is no need to
+     * undo the commands before it.
+     */
+    public DataStore load(DataStore store, Reader script, Options options) {
+        return new Loading(store, new Parser(script, options)).load();
+    }
+
+    private class Loading {
+
+        private final Parser parser;
+        private DataStore store;
+        private String currentSchema = DataStore.ANONYMOUS_SCHEMA_NAME;
+
+        Loading(DataStore store, Parser parser) {
+            this.store = store;
+            this.parser = parser;
+        }
+
+        DataStore load() {
+            Command command = parser.nextCommand();
+            while (command != null && !(command instanceof Insert)) {
+                execute(command);
+                command = parser.nextCommand();
+            }
+
+            List<Insert> inserts = new ArrayList<Insert>();
+            while (command instanceof Insert) {
+                inserts.add((Insert) command);
+                command = parser.nextCommand();
+            }
+
+            if (command == null) {
+                insertInParallel(inserts);
+            }
+            else {
+                for (Insert insert : inserts) {
+                    execute(insert);
+                }
+                while (command != null) {
+                    execute(command);
+                    command = parser.nextCommand();
+                }
+            }
+            return store;
+        }
+
+        private void execute(Command command) {
+            if (command instanceof SetSchema) {
+                String proposed = ((SetSchema) command).name();
+                store.schema(proposed);
+                currentSchema = proposed;
+            }
+            else {
+                store = command.update(
+                    new StoreEvaluator(store, currentSchema)).store();
+            }
+        }
+
+        private void insertInParallel(List<Insert> inserts) {
+            if (inserts.isEmpty()) {
+                return;
+            }
+            List<TableLoader> tables = byTable(inserts);
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                DataStore loaded = store;
+                List<Future<TableData>> rows = executor.invokeAll(
+                    new ArrayList<Callable<TableData>>(tables));
+                for (int i = 0; i < tables.size(); ++i) {
+                    loaded = loaded.replaceTable(
+                        tables.get(i).table, finish(rows.get(i)));
+                }
+
+                List<Callable<Object>> checks = new ArrayList<Callable<Object>>();
+                for (TableLoader table : tables) {
+                    checks.add(table.foreignKeyCheck(loaded));
+                }
+                for (Future<Object> check : executor.invokeAll(checks)) {
+                    finish(check);
+                }
+                store = loaded;
+            }
+            catch (InterruptedException e) {
+                throw new MayflyException(e);
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+
+        /**
+         * Group the inserts by table, keeping the order within
+         * each table.
+         */
+        private List<TableLoader> byTable(List<Insert> inserts) {
+            Map<CaseInsensitiveString, TableLoader> tables =
+                new LinkedHashMap<CaseInsensitiveString, TableLoader>();
+            for (Insert insert : inserts) {
+                TableReference table =
+                    insert.table.resolve(store, currentSchema, null);
+                CaseInsensitiveString key =
+                    new CaseInsensitiveString(table.toString());
+                TableLoader loader = tables.get(key);
+                if (loader == null) {
+                    loader = new TableLoader(store, table);
+                    tables.put(key, loader);
+                }
+                loader.inserts.add(insert);
+            }
+            return new ArrayList<TableLoader>(tables.values());
+        }
+
+    }
+
+    /**
+     * Wait for a task, and if it failed, throw what it threw.
+     */
+    private static <T> T finish(Future<T> task) throws InterruptedException {
+        try {
+            return task.get();
+        }
+        catch (ExecutionException e) {
+            Throwable failure = e.getCause();
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new MayflyException(failure);
+        }
+    }
+
+    /**
+     * Inserts the rows of one table, starting from that table
+     * in the store as it was after the definitions.
+     */
+    private static class TableLoader implements Callable<TableData> {
+
+        private final DataStore store;
+        private final TableReference table;
+        private final int rowsBefore;
+        private final List<Insert> inserts = new ArrayList<Insert>();
+
+        TableLoader(DataStore store, TableReference table) {
+            this.store = store;
+            this.table = table;
+            this.rowsBefore = store.table(table).rowCount();
+        }
+
+        public TableData call() {
+            TableData data = store.table(table);
+            for (Insert insert : inserts) {
+                ColumnNames columns =
+                    ColumnNames.fromParser(store, table, insert.columnNames);
+                data = data.addRow(
+                    new LoadingChecker(store, table, insert),
+                    table, columns.asList(), insert.values);
+            }
+            return data;
+        }
+
+        /**
+         * Check the foreign keys of the rows we inserted, reporting
+         * a failure at the INSERT of the offending row.
+         */
+        Callable<Object> foreignKeyCheck(final DataStore loaded) {
+            return new Callable<Object>() {
+                public Object call() {
+                    TableData data = loaded.table(table);
+                    Iterator<Insert> insert = inserts.iterator();
+                    for (int i = rowsBefore; i < data.rowCount(); ++i) {
+                        data.constraints.checkInsert(
+                            loaded, table.schema(), table.tableName(),
+                            data.row(i), insert.next().location);
+                    }
+                    return null;
+                }
+            };
+        }
+
+    }
+
+    /**
+     * Checks everything that {@link Insert} would, except for
+     * foreign keys, which we check once all the tables are loaded.
+     */
+    private static class LoadingChecker extends RealChecker {
+
+        LoadingChecker(DataStore store, TableReference table, Insert insert) {
+            super(store, table, insert.location, insert.table.options);
+        }
+
+        @Override
+        public void checkInsert(Constraints constraints, Row proposedRow) {
+        }
+
+    }
+
+}
@@ -0,0 +1,22 @@
+package net.sourceforge.mayfly.evaluation;
+
+import net.sourceforge.mayfly.datastore.Cell;
+
+/**
+ * @internal
+ * The running state of an aggregate (like SUM or COUNT) over one
+ * group of rows.  Rows are added as they go by, and
+ * {@link #result()} gives the same answer which
+ * {@link Expression#aggregate(ResultRows)} would give for all
+ * the rows which were added.
+ *
+ * Accumulators are mutable; get a fresh one for each group from
+ * {@link Expression#accumulator()}.
+ */
+public abstract class Accumulator {
+
+    public abstract void add(ResultRow row);
+
+    public abstract Cell result();
+
+}
@@ -9,8 +9,8 @@ import net.sourceforge.mayfly.evaluation.what.Selected;
  */
 public interface Aggregator {
 
-    public abstract ResultRows group(
-        ResultRows rows, Evaluator evaluator, Selected selected);
+    public abstract RowSource group(
+        RowSource rows, Evaluator evaluator, Selected selected);
 
     public abstract ResultRow check(
         ResultRow dummyRow, Evaluator evaluator, Selected selected);
@@ -6,6 +6,8 @@ import net.sourceforge.mayfly.datastore.Row;
 import net.sourceforge.mayfly.datastore.constraint.Constraints;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
 
+import java.util.List;
+
 public abstract class Checker {
 
     public abstract boolean evaluate(Condition condition, Row row, String tableName);
@@ -24,4 +26,11 @@ public abstract class Checker {
 
     public abstract void checkDelete(Row rowToDelete, Row replacementRow);
 
+    /**
+     * Check deleting all of rowsToDelete, which is like calling
+     * {@link #checkDelete(Row, Row)} for each one, except that
+     * actions like ON DELETE CASCADE happen once for all of them.
+     */
+    public abstract void checkDelete(List<Row> rowsToDelete);
+
 }
@@ -3,11 +3,13 @@ package net.sourceforge.mayfly.evaluation;
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.Row;
 import net.sourceforge.mayfly.evaluation.expression.CurrentTimestampExpression;
+import net.sourceforge.mayfly.evaluation.expression.ParameterMarker;
 import net.sourceforge.mayfly.evaluation.expression.literal.Literal;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.evaluation.what.Selected;
 import net.sourceforge.mayfly.evaluation.what.WhatElement;
 import net.sourceforge.mayfly.parser.Location;
+import net.sourceforge.mayfly.util.L;
 
 /**
  * @internal
@@ -60,6 +62,29 @@ abstract public class Expression extends WhatElement {
 
     abstract public Cell aggregate(ResultRows rows);
 
+    /**
+     * @internal
+     * A fresh accumulator for computing {@link #aggregate(ResultRows)}
+     * a row at a time.  This default keeps the rows and aggregates
+     * them at the end; aggregate functions, and expressions made from
+     * them, override it to keep just a running total.
+     */
+    public Accumulator accumulator() {
+        return new Accumulator() {
+            private final L rows = new L();
+
+            @Override
+            public void add(ResultRow row) {
+                rows.add(row);
+            }
+
+            @Override
+            public Cell result() {
+                return aggregate(new ResultRows(rows.asImmutable()));
+            }
+        };
+    }
+
     abstract public boolean sameExpression(Expression other);
 
     public final Expression resolve(ResultRow row) {
@@ -70,6 +95,17 @@ abstract public class Expression extends WhatElement {
         return this;
     }
     
+    /**
+     * @internal
+     * Replace the {@link ParameterMarker}s in this expression with
+     * literals.  An expression which does not know how to look for
+     * markers inside itself returns itself, leaving them unbound
+     * (see {@link Parameters#boundCount()}).
+     */
+    public Expression bind(Parameters parameters) {
+        return this;
+    }
+    
     public static String firstAggregate(Expression left, Expression right) {
         String firstInLeft = left.firstAggregate();
         if (firstInLeft != null) {
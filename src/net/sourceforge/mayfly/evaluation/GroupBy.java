@@ -32,6 +32,11 @@ public class GroupBy implements Aggregator {
         return grouped;
     }
 
+    public RowSource group(RowSource rows, 
+        Evaluator evaluator, Selected selected) {
+        return HashAggregation.groupBy(rows, keys, having, selected, evaluator);
+    }
+
     public ResultRows group(ResultRows rows, Evaluator evaluator, Selected selected) {
         ResultRows resultOfGrouping = makeGroupedRows(rows, evaluator).ungroup(selected);
         return resultOfGrouping.select(having, evaluator);
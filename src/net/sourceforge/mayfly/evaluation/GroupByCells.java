@@ -2,7 +2,6 @@ package net.sourceforge.mayfly.evaluation;
 
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.util.ImmutableList;
-import net.sourceforge.mayfly.util.ValueObject;
 
 import java.util.Arrays;
 import java.util.List;
@@ -16,9 +15,12 @@ import java.util.List;
  * 
  * See also {@link Cell}'s equals/hashCode
  */
-public class GroupByCells extends ValueObject {
+public class GroupByCells {
     
     private final ImmutableList<Cell> cells;
+
+    // Cached, because we are a hash key for every row we group
+    private final int hashCode;
     
     public GroupByCells(Cell... array) {
         this(Arrays.asList(array));
@@ -31,6 +33,7 @@ public class GroupByCells extends ValueObject {
             }
         }
         cells = new ImmutableList<Cell>(list);
+        hashCode = cells.hashCode();
     }
 
     public Cell firstKey() {
@@ -45,4 +48,31 @@ public class GroupByCells extends ValueObject {
         return cells.get(index);
     }
 
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof GroupByCells)) {
+            return false;
+        }
+        GroupByCells that = (GroupByCells) other;
+        if (hashCode != that.hashCode || size() != that.size()) {
+            return false;
+        }
+        for (int i = 0; i < size(); ++i) {
+            if (!get(i).equals(that.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return cells.toString();
+    }
+
 }
@@ -5,6 +5,7 @@ import net.sourceforge.mayfly.MayflyInternalException;
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.evaluation.what.Selected;
+import net.sourceforge.mayfly.util.L;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -36,16 +37,12 @@ public class GroupedRows {
     }
 
     private void addRowToGroup(GroupByCells keys, ResultRow resultRow) {
-        ResultRows start;
-        if (groups.containsKey(keys)) {
-            start = (ResultRows) groups.get(keys);
+        L rowsForKey = (L) groups.get(keys);
+        if (rowsForKey == null) {
+            rowsForKey = new L();
+            groups.put(keys, rowsForKey);
         }
-        else {
-            start = new ResultRows();
-        }
-        
-        ResultRows modified = start.with(resultRow);
-        groups.put(keys, modified);
+        rowsForKey.append(resultRow);
     }
 
     public Iterator iteratorForFirstKeys() {
@@ -58,20 +55,21 @@ public class GroupedRows {
     }
 
     public ResultRows getRows(GroupByCells keys) {
-        return (ResultRows) groups.get(keys);
+        L rowsForKey = (L) groups.get(keys);
+        return rowsForKey == null ? null : 
+            new ResultRows(rowsForKey.asImmutable());
     }
 
     public ResultRows ungroup(Selected selected) {
-        ResultRows result = new ResultRows();
+        L result = new L();
 
         Iterator iter = groups.keySet().iterator();
         while (iter.hasNext()) {
             GroupByCells keys = (GroupByCells) iter.next();
-            result = result.with(
-                rowForKey(keys, getRows(keys), selected));
+            result.append(rowForKey(keys, getRows(keys), selected));
         }
 
-        return result;
+        return new ResultRows(result.asImmutable());
     }
 
     private ResultRow rowForKey(
@@ -0,0 +1,150 @@
+package net.sourceforge.mayfly.evaluation;
+
+import net.sourceforge.mayfly.MayflyException;
+import net.sourceforge.mayfly.evaluation.condition.Condition;
+import net.sourceforge.mayfly.evaluation.select.Evaluator;
+import net.sourceforge.mayfly.evaluation.what.Selected;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @internal
+ * GROUP BY (or aggregates without GROUP BY) done in one pass
+ * over the input.  Each group gets an {@link Accumulator} for
+ * each aggregate which is selected, and the input rows are
+ * added to those as they go by, so that what we hold on to is
+ * proportional to the number of groups rather than the
+ * number of rows.
+ *
+ * The rows which come out are the same as from
+ * {@link GroupedRows#ungroup(Selected)} (followed by HAVING):
+ * one per group, in the order in which each group was first
+ * seen.
+ */
+public class HashAggregation extends RowSource {
+
+    private final RowSource input;
+    private final GroupByKeys keys;
+    private final Condition having;
+    private final Selected selected;
+    private final Evaluator evaluator;
+    private final boolean wholeInput;
+
+    private Iterator<Map.Entry<GroupByCells, Accumulator[]>> groups;
+
+    private HashAggregation(RowSource input, GroupByKeys keys,
+        Condition having, Selected selected, Evaluator evaluator,
+        boolean wholeInput) {
+        this.input = input;
+        this.keys = keys;
+        this.having = having;
+        this.selected = selected;
+        this.evaluator = evaluator;
+        this.wholeInput = wholeInput;
+    }
+
+    public static RowSource groupBy(RowSource input, GroupByKeys keys,
+        Condition having, Selected selected, Evaluator evaluator) {
+        return new HashAggregation(
+            input, keys, having, selected, evaluator, false);
+    }
+
+    /**
+     * Aggregate all of the input into a single row, even if there
+     * is no input.
+     */
+    public static RowSource aggregate(
+        RowSource input, Selected selected, Evaluator evaluator) {
+        return new HashAggregation(
+            input, new GroupByKeys(), Condition.TRUE, selected, evaluator,
+            true);
+    }
+
+    @Override
+    public void open() {
+        Map<GroupByCells, Accumulator[]> accumulators =
+            new LinkedHashMap<GroupByCells, Accumulator[]>();
+        input.open();
+        for (ResultRow row = input.next(); row != null; row = input.next()) {
+            GroupByCells cells = keys.evaluate(row, evaluator);
+            Accumulator[] forGroup = accumulators.get(cells);
+            if (forGroup == null) {
+                forGroup = newAccumulators();
+                accumulators.put(cells, forGroup);
+            }
+            for (int i = 0; i < forGroup.length; ++i) {
+                if (forGroup[i] != null) {
+                    forGroup[i].add(row);
+                }
+            }
+        }
+        input.close();
+
+        if (wholeInput && accumulators.isEmpty()) {
+            accumulators.put(
+                keys.evaluate(new ResultRow(), evaluator), newAccumulators());
+        }
+        groups = accumulators.entrySet().iterator();
+    }
+
+    /**
+     * One accumulator for each selected expression which we
+     * aggregate (null for the ones which come from the keys or
+     * are not aggregates).
+     */
+    private Accumulator[] newAccumulators() {
+        Accumulator[] result = new Accumulator[selected.size()];
+        for (int i = 0; i < result.length; ++i) {
+            Expression expression = selected.element(i);
+            if (wholeInput ||
+                (!keys.containsExpresion(expression)
+                    && expression.firstAggregate() != null)) {
+                result[i] = expression.accumulator();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ResultRow next() {
+        while (groups.hasNext()) {
+            Map.Entry<GroupByCells, Accumulator[]> group = groups.next();
+            ResultRow row = rowForGroup(group.getKey(), group.getValue());
+            if (having.evaluate(row, evaluator)) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    private ResultRow rowForGroup(GroupByCells cells,
+        Accumulator[] accumulators) {
+        ResultRow result = new ResultRow();
+        for (int i = 0; i < selected.size(); ++i) {
+            Expression expression = selected.element(i);
+            if (accumulators[i] != null) {
+                result = result.with(expression, accumulators[i].result());
+            }
+            else if (keys.containsExpresion(expression)) {
+                /* Added with the keys, below. */
+            }
+            else {
+                throw new MayflyException(
+                    expression.displayName() +
+                    " is not aggregate or mentioned in GROUP BY"
+                );
+            }
+        }
+
+        List keyColumns = keys.expressions();
+        for (int i = 0; i < cells.size(); ++i) {
+            result = result.with(
+                (Expression) keyColumns.get(i), cells.get(i));
+        }
+        return result;
+    }
+
+}
@@ -6,9 +6,10 @@ import net.sourceforge.mayfly.evaluation.what.Selected;
 
 public class NoGroupBy implements Aggregator {
 
-    public ResultRows group(ResultRows rows, Evaluator evaluator, Selected selected) {
+    public RowSource group(RowSource rows, Evaluator evaluator, 
+        Selected selected) {
         if (isAggregate(selected)) {
-            return selected.aggregate(rows);
+            return HashAggregation.aggregate(rows, selected, evaluator);
         }
         return rows;
     }
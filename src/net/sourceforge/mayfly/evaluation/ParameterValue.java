@@ -0,0 +1,43 @@
+package net.sourceforge.mayfly.evaluation;
+
+import net.sourceforge.mayfly.parser.Location;
+
+/**
+ * @internal
+ * An element of a {@link ValueList} which contains parameters,
+ * and so cannot be evaluated until they are bound.  It takes
+ * the place of a {@link Value} in a prepared command.
+ */
+public class ParameterValue {
+
+    public final Location location;
+    private final Expression expression;
+    private final int parameterCount;
+    private final ResultRow row;
+
+    /**
+     * @param row The row to evaluate the bound expression
+     * against, which is the one the parser uses for VALUES.
+     */
+    public ParameterValue(Expression expression, int parameterCount,
+        ResultRow row) {
+        this.location = expression.location;
+        this.expression = expression;
+        this.parameterCount = parameterCount;
+        this.row = row;
+    }
+
+    /**
+     * @return The evaluated value, or null if some of the
+     * parameters could not be bound.
+     */
+    public Value bind(Parameters parameters) {
+        int boundBefore = parameters.boundCount();
+        Expression bound = parameters.expressionOrNull(expression);
+        if (parameters.boundCount() - boundBefore != parameterCount) {
+            return null;
+        }
+        return new Value(bound.evaluate(row), bound.location);
+    }
+
+}
@@ -0,0 +1,120 @@
+package net.sourceforge.mayfly.evaluation;
+
+import net.sourceforge.mayfly.datastore.BinaryCell;
+import net.sourceforge.mayfly.evaluation.expression.NullExpression;
+import net.sourceforge.mayfly.evaluation.expression.ParameterMarker;
+import net.sourceforge.mayfly.evaluation.expression.literal.CellExpression;
+import net.sourceforge.mayfly.evaluation.expression.literal.DecimalLiteral;
+import net.sourceforge.mayfly.evaluation.expression.literal.IntegerLiteral;
+import net.sourceforge.mayfly.evaluation.expression.literal.LongLiteral;
+import net.sourceforge.mayfly.evaluation.expression.literal.QuotedString;
+import net.sourceforge.mayfly.parser.Location;
+import net.sourceforge.mayfly.util.ImmutableByteArray;
+
+import org.apache.commons.lang.StringEscapeUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * @internal
+ * The values for the parameters of a prepared statement, as
+ * they are bound into a parsed command.
+ *
+ * Each value becomes the same literal which the parser would
+ * produce from the tokens which the
+ * {@link net.sourceforge.mayfly.parser.Substitutor} puts in place
+ * of the '?'.  Where that would not work (for example a null
+ * anywhere but as a whole value, where the parser has its own
+ * error message), the marker is left unbound, and the caller
+ * goes back to substituting and parsing (see
+ * {@link #boundCount()}).
+ */
+public class Parameters {
+
+    private final List values;
+    private int boundCount = 0;
+
+    public Parameters(List values) {
+        this.values = values;
+    }
+
+    /**
+     * How many markers have been replaced so far.  If this is
+     * less than the number of parameters, some marker was left
+     * alone, and the bound command is not complete.
+     */
+    public int boundCount() {
+        return boundCount;
+    }
+
+    public Expression literal(ParameterMarker marker) {
+        Expression literal =
+            literalFromValue(values.get(marker.index), marker.location);
+        if (literal == null) {
+            return marker;
+        }
+        ++boundCount;
+        return literal;
+    }
+
+    /**
+     * Bind an expression which is allowed to be null as a whole,
+     * like an element of VALUES or the right side of a SET.
+     */
+    public Expression expressionOrNull(Expression expression) {
+        if (expression instanceof ParameterMarker) {
+            ParameterMarker marker = (ParameterMarker) expression;
+            if (values.get(marker.index) == null) {
+                ++boundCount;
+                return new NullExpression(marker.location);
+            }
+        }
+        return expression.bind(this);
+    }
+
+    private static Expression literalFromValue(
+        Object value, Location location) {
+        if (value instanceof Long || value instanceof Integer
+            || value instanceof Short || value instanceof Byte) {
+            long longValue = ((Number) value).longValue();
+            if (longValue >= Integer.MIN_VALUE
+                && longValue <= Integer.MAX_VALUE) {
+                return new IntegerLiteral((int) longValue, location);
+            }
+            return new LongLiteral(longValue, location);
+        }
+        else if (value instanceof BigDecimal) {
+            return decimalLiteral((BigDecimal) value, location);
+        }
+        else if (value instanceof String) {
+            return new QuotedString(
+                "'" + StringEscapeUtils.escapeSql((String) value) + "'",
+                location);
+        }
+        else if (value instanceof ImmutableByteArray) {
+            return new CellExpression(
+                new BinaryCell((ImmutableByteArray) value), location);
+        }
+        else {
+            return null;
+        }
+    }
+
+    private static Expression decimalLiteral(
+        BigDecimal decimal, Location location) {
+        /* The substitutor only manages digits, a period, and more
+           digits; leave anything else (like a decimal without a
+           fractional part) to its error message. */
+        BigDecimal magnitude = decimal.abs();
+        BigInteger integerPart = magnitude.toBigInteger();
+        BigDecimal fractionalPart = magnitude.subtract(
+            new BigDecimal(integerPart.toString()));
+        if (!fractionalPart.toString().startsWith("0.")) {
+            return null;
+        }
+        return new DecimalLiteral(decimal, location);
+    }
+
+}
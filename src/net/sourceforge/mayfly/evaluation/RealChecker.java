@@ -10,6 +10,8 @@ import net.sourceforge.mayfly.evaluation.condition.Condition;
 import net.sourceforge.mayfly.evaluation.select.StoreEvaluator;
 import net.sourceforge.mayfly.parser.Location;
 
+import java.util.List;
+
 /**
  * @internal
  * This class knows about the various things which are
@@ -66,6 +68,11 @@ public class RealChecker extends Checker {
         store = store.checkDelete(schema, table, rowToDelete, replacementRow);
     }
 
+    @Override
+    public void checkDelete(List<Row> rowsToDelete) {
+        store = store.checkDelete(schema, table, rowsToDelete);
+    }
+
     @Override
     public void checkInsert(Constraints constraints, Row proposedRow) {
         constraints.checkInsert(store, schema, table, proposedRow, location);
@@ -57,13 +57,13 @@ public class ResultRows implements Iterable<ResultRow> {
     }
 
     public ResultRows select(Condition condition, Evaluator evaluator) {
-        ResultRows selected = new ResultRows();
+        List<ResultRow> selected = new ArrayList<ResultRow>();
         for (ResultRow row : rows) {
             if (condition.evaluate(row, evaluator)) {
-                selected = selected.with(row);
+                selected.add(row);
             }
         }
-        return selected;
+        return new ResultRows(new ImmutableList<ResultRow>(selected));
     }
     
     public ResultRows join(ResultRows right) {
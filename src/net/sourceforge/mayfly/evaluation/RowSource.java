@@ -0,0 +1,125 @@
+package net.sourceforge.mayfly.evaluation;
+
+import net.sourceforge.mayfly.evaluation.condition.Condition;
+import net.sourceforge.mayfly.evaluation.select.Evaluator;
+import net.sourceforge.mayfly.util.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @internal
+ * Rows which are produced one at a time, as they are asked for.
+ * A query is a chain of these (reading a table, filtering with
+ * WHERE, and so on), and the result set pulls rows through the
+ * chain, so that only the steps which really need every row
+ * (like ORDER BY) hold on to all of them.
+ *
+ * Call {@link #open()} once, then {@link #next()} until it
+ * returns null, then {@link #close()}.  A source which has been
+ * closed may not be opened again.
+ */
+public abstract class RowSource {
+
+    public void open() {
+    }
+
+    /**
+     * @return The next row, or null if there are no more.
+     */
+    public abstract ResultRow next();
+
+    public void close() {
+    }
+
+    /**
+     * Open this source, read all its rows, and close it.
+     */
+    public ResultRows readAll() {
+        open();
+        List<ResultRow> rows = new ArrayList<ResultRow>();
+        for (ResultRow row = next(); row != null; row = next()) {
+            rows.add(row);
+        }
+        close();
+        return new ResultRows(new ImmutableList<ResultRow>(rows));
+    }
+
+    /**
+     * A source which produces the rows of this one for which
+     * condition is true.
+     */
+    public RowSource select(
+        final Condition condition, final Evaluator evaluator) {
+        if (condition == Condition.TRUE) {
+            return this;
+        }
+        final RowSource input = this;
+        return new RowSource() {
+
+            @Override
+            public void open() {
+                input.open();
+            }
+
+            @Override
+            public ResultRow next() {
+                for (ResultRow row = input.next(); row != null;
+                    row = input.next()) {
+                    if (condition.evaluate(row, evaluator)) {
+                        return row;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void close() {
+                input.close();
+            }
+
+        };
+    }
+
+    /**
+     * A source which has to read all of its input before it can
+     * produce its first row (for example, ORDER BY).  It does that
+     * when it is opened.
+     */
+    public static abstract class Blocking extends RowSource {
+
+        private final RowSource input;
+        private Iterator<ResultRow> output;
+
+        protected Blocking(RowSource input) {
+            this.input = input;
+        }
+
+        protected abstract ResultRows process(ResultRows rows);
+
+        @Override
+        public void open() {
+            output = process(input.readAll()).iterator();
+        }
+
+        @Override
+        public ResultRow next() {
+            return output.hasNext() ? output.next() : null;
+        }
+
+    }
+
+    public static RowSource of(ResultRows rows) {
+        final Iterator<ResultRow> iterator = rows.iterator();
+        return new RowSource() {
+
+            @Override
+            public ResultRow next() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+        };
+    }
+
+}
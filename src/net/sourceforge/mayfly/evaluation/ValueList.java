@@ -30,10 +30,34 @@ public class ValueList {
         return new ValueList(values.with(newValue), this.location.combine(newValue.location));
     }
     
+    public ValueList with(ParameterValue newValue) {
+        return new ValueList(values.with(newValue), this.location.combine(newValue.location));
+    }
+
     public ValueList with(Location end) {
         return new ValueList(values, this.location.combine(end));
     }
 
+    /**
+     * Evaluate the elements which contain parameters.  Any which
+     * cannot be bound are left as they are, which the caller
+     * notices from {@link Parameters#boundCount()}.
+     */
+    public ValueList bind(Parameters parameters) {
+        List bound = new ArrayList();
+        for (Iterator iter = values.iterator(); iter.hasNext();) {
+            Object element = iter.next();
+            if (element instanceof ParameterValue) {
+                Value value = ((ParameterValue) element).bind(parameters);
+                bound.add(value == null ? element : value);
+            }
+            else {
+                bound.add(element);
+            }
+        }
+        return new ValueList(new ImmutableList(bound), location);
+    }
+
     public ImmutableList<Cell> asCells() {
         List cells = new ArrayList();
         for (Iterator iter = values.iterator(); iter.hasNext();) {
@@ -5,6 +5,7 @@ import net.sourceforge.mayfly.MayflyResultSet;
 import net.sourceforge.mayfly.Options;
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.DataStore;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.expression.RealTimeSource;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.parser.Lexer;
@@ -28,6 +29,17 @@ public abstract class Command {
         return new Parser(tokens, false, new RealTimeSource(), options).parse();
     }
     
+    /**
+     * @internal
+     * Replace the parameter markers in a prepared command with
+     * literals (see {@link net.sourceforge.mayfly.parser.PreparedCommand}).
+     * A command which does not know where its markers are returns
+     * itself, leaving them unbound.
+     */
+    public Command bind(Parameters parameters) {
+        return this;
+    }
+
     public UpdateStore update(Evaluator evaluator) {
         return update(evaluator.store(), evaluator.currentSchema());
     }
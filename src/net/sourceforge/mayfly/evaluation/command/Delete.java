@@ -3,6 +3,7 @@ package net.sourceforge.mayfly.evaluation.command;
 import net.sourceforge.mayfly.MayflyInternalException;
 import net.sourceforge.mayfly.datastore.DataStore;
 import net.sourceforge.mayfly.datastore.TableReference;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
@@ -16,6 +17,11 @@ public class Delete extends Command {
         this.where = where;
     }
 
+    @Override
+    public Command bind(Parameters parameters) {
+        return new Delete(table, where.bind(parameters));
+    }
+
     @Override
     public UpdateStore update(Evaluator evaluator) {
         where.rejectAggregates("DELETE");
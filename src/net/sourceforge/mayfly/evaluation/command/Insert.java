@@ -4,6 +4,7 @@ import net.sourceforge.mayfly.datastore.ColumnNames;
 import net.sourceforge.mayfly.datastore.DataStore;
 import net.sourceforge.mayfly.datastore.TableReference;
 import net.sourceforge.mayfly.evaluation.Checker;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.RealChecker;
 import net.sourceforge.mayfly.evaluation.ValueList;
 import net.sourceforge.mayfly.parser.Location;
@@ -29,6 +30,12 @@ public class Insert extends Command {
         return table.tableName();
     }
 
+    @Override
+    public Command bind(Parameters parameters) {
+        return new Insert(table, columnNames, values.bind(parameters),
+            location);
+    }
+
     @Override
     public UpdateStore update(DataStore store, String defaultSchema) {
         TableReference resolved = table.resolve(store, defaultSchema, null);
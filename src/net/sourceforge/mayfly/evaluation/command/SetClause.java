@@ -5,6 +5,7 @@ import net.sourceforge.mayfly.datastore.Column;
 import net.sourceforge.mayfly.datastore.Columns;
 import net.sourceforge.mayfly.datastore.Row;
 import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
 import net.sourceforge.mayfly.parser.Location;
 
@@ -21,6 +22,13 @@ public class SetClause {
         this.value = value;
     }
 
+    public SetClause bind(Parameters parameters) {
+        if (value == null) {
+            return this;
+        }
+        return new SetClause(column, parameters.expressionOrNull(value));
+    }
+
     public Column column(Columns columns) {
         return columns.columnFromName(column);
     }
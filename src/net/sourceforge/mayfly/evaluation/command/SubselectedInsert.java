@@ -64,7 +64,7 @@ public class SubselectedInsert extends Command {
         checkColumnCount(names.asList(), optimized.selected);
 
         MayflyResultSet rows = optimized.asResultSet();
-        while (rows.next()) {
+        while (rows.advance()) {
             ValueList values = rows.asValues(subselect.location);
             store = store.addRow(table, names.asList(), values, checker);
         }
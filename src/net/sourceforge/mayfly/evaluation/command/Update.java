@@ -3,9 +3,11 @@ package net.sourceforge.mayfly.evaluation.command;
 import net.sourceforge.mayfly.MayflyInternalException;
 import net.sourceforge.mayfly.datastore.DataStore;
 import net.sourceforge.mayfly.datastore.TableReference;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -21,6 +23,16 @@ public class Update extends Command {
         this.where = where;
     }
 
+    @Override
+    public Command bind(Parameters parameters) {
+        List newSetClauses = new ArrayList();
+        for (Iterator iter = setClauses.iterator(); iter.hasNext();) {
+            SetClause clause = (SetClause) iter.next();
+            newSetClauses.add(clause.bind(parameters));
+        }
+        return new Update(table, newSetClauses, where.bind(parameters));
+    }
+
     @Override
     public UpdateStore update(Evaluator evaluator) {
         where.rejectAggregates("UPDATE");
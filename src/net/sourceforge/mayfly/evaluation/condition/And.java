@@ -1,5 +1,6 @@
 package net.sourceforge.mayfly.evaluation.condition;
 
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
@@ -42,6 +43,18 @@ public class And extends Condition {
         }
     }
 
+    @Override
+    public Condition bind(Parameters parameters) {
+        Condition newLeftSide = leftSide.bind(parameters);
+        Condition newRightSide = rightSide.bind(parameters);
+        if (newLeftSide != leftSide || newRightSide != rightSide) {
+            return new And(newLeftSide, newRightSide);
+        }
+        else {
+            return this;
+        }
+    }
+
     @Override
     public String firstAggregate() {
         return firstAggregate(leftSide, rightSide);
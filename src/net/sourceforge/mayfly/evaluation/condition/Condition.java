@@ -2,6 +2,8 @@ package net.sourceforge.mayfly.evaluation.condition;
 
 import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.datastore.Row;
+import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.parser.Location;
@@ -27,6 +29,15 @@ public abstract class Condition {
     
     abstract public Condition resolve(ResultRow row, Evaluator evaluator);
 
+    /**
+     * @internal
+     * Replace the parameter markers in this condition with literals
+     * (see {@link Expression#bind(Parameters)}).
+     */
+    public Condition bind(Parameters parameters) {
+        return this;
+    }
+
     abstract public String firstAggregate();
 
     public String firstAggregate(Condition left, Condition right) {
@@ -2,6 +2,7 @@ package net.sourceforge.mayfly.evaluation.condition;
 
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
@@ -28,4 +29,16 @@ public class Greater extends RowExpression {
         }
     }
 
+    @Override
+    public Condition bind(Parameters parameters) {
+        Expression newLeftSide = leftSide.bind(parameters);
+        Expression newRightSide = rightSide.bind(parameters);
+        if (newLeftSide != leftSide || newRightSide != rightSide) {
+            return new Greater(newLeftSide, newRightSide);
+        }
+        else {
+            return this;
+        }
+    }
+
 }
@@ -2,6 +2,7 @@ package net.sourceforge.mayfly.evaluation.condition;
 
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.util.ImmutableList;
@@ -55,6 +56,31 @@ public class In extends Condition {
         }
     }
 
+    @Override
+    public Condition bind(Parameters parameters) {
+        boolean boundSomething = false;
+        Expression newLeftSide = leftSide.bind(parameters);
+        if (newLeftSide != leftSide) {
+            boundSomething = true;
+        }
+
+        L<Expression> newRightSide = new L<Expression>();
+        for (Expression aRightSide : expressions) {
+            Expression bound = aRightSide.bind(parameters);
+            if (bound != aRightSide) {
+                boundSomething = true;
+            }
+            newRightSide.add(bound);
+        }
+
+        if (boundSomething) {
+            return new In(newLeftSide, newRightSide.asImmutable());
+        }
+        else {
+            return this;
+        }
+    }
+
     @Override
     public String firstAggregate() {
         String firstInLeft = leftSide.firstAggregate();
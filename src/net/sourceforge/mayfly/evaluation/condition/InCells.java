@@ -0,0 +1,82 @@
+package net.sourceforge.mayfly.evaluation.condition;
+
+import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.datastore.NullCell;
+import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.ResultRow;
+import net.sourceforge.mayfly.evaluation.select.Evaluator;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * @internal
+ * Like {@link In}, but with a list of values which are already
+ * known (rather than expressions), so that we can look the value
+ * up in a sorted set rather than comparing it with each one.
+ * This is for ON DELETE CASCADE and the like, which find the
+ * referring rows for all the deleted rows at once.
+ */
+public class InCells extends Condition {
+
+    public final Expression leftSide;
+    private final SortedSet<Cell> values;
+
+    public InCells(Expression leftSide, Collection<Cell> values) {
+        this.leftSide = leftSide;
+        this.values = new TreeSet<Cell>(SQL_ORDER);
+        for (Cell value : values) {
+            if (!(value instanceof NullCell)) {
+                this.values.add(value);
+            }
+        }
+    }
+
+    private InCells(Expression leftSide, SortedSet<Cell> values) {
+        this.leftSide = leftSide;
+        this.values = values;
+    }
+
+    @Override
+    public boolean evaluate(ResultRow row, Evaluator evaluator) {
+        Cell leftSideValue = leftSide.evaluate(row, evaluator);
+        if (leftSideValue instanceof NullCell) {
+            return false;
+        }
+        return values.contains(leftSideValue);
+    }
+
+    @Override
+    public Condition resolve(ResultRow row, Evaluator evaluator) {
+        Expression newLeftSide = leftSide.resolve(row, evaluator);
+        if (newLeftSide != leftSide) {
+            return new InCells(newLeftSide, values);
+        }
+        else {
+            return this;
+        }
+    }
+
+    @Override
+    public String firstAggregate() {
+        return leftSide.firstAggregate();
+    }
+
+    @Override
+    public void check(ResultRow row) {
+        leftSide.check(row);
+    }
+
+    /**
+     * Cells which are {@link Cell#sqlEquals(Cell)} to each other
+     * compare as equal.
+     */
+    private static final Comparator<Cell> SQL_ORDER = new Comparator<Cell>() {
+        public int compare(Cell first, Cell second) {
+            return first.compareTo(second);
+        }
+    };
+
+}
@@ -3,6 +3,7 @@ package net.sourceforge.mayfly.evaluation.condition;
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.NullCell;
 import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
@@ -31,6 +32,17 @@ public class IsNull extends Condition {
         }
     }
 
+    @Override
+    public Condition bind(Parameters parameters) {
+        Expression bound = expression.bind(parameters);
+        if (bound != expression) {
+            return new IsNull(bound);
+        }
+        else {
+            return this;
+        }
+    }
+
     @Override
     public String firstAggregate() {
         return expression.firstAggregate();
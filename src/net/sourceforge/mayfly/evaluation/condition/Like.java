@@ -3,6 +3,7 @@ package net.sourceforge.mayfly.evaluation.condition;
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.NullCell;
 import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
@@ -64,4 +65,16 @@ public class Like extends RowExpression {
         }
     }
 
+    @Override
+    public Condition bind(Parameters parameters) {
+        Expression newLeftSide = leftSide.bind(parameters);
+        Expression newRightSide = rightSide.bind(parameters);
+        if (newLeftSide != leftSide || newRightSide != rightSide) {
+            return new Like(newLeftSide, newRightSide);
+        }
+        else {
+            return this;
+        }
+    }
+
 }
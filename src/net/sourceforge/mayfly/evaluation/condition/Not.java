@@ -1,5 +1,6 @@
 package net.sourceforge.mayfly.evaluation.condition;
 
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
@@ -28,6 +29,17 @@ public class Not extends Condition {
         }
     }
 
+    @Override
+    public Condition bind(Parameters parameters) {
+        Condition newOperand = operand.bind(parameters);
+        if (newOperand != operand) {
+            return new Not(newOperand);
+        }
+        else {
+            return this;
+        }
+    }
+
     @Override
     public String firstAggregate() {
         return operand.firstAggregate();
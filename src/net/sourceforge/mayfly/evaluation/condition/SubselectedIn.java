@@ -24,7 +24,7 @@ public class SubselectedIn extends Condition {
         Cell leftCell = leftSide.evaluate(row, evaluator);
         MayflyResultSet rows = 
             ScalarSubselect.subselect(row, evaluator, subselect);
-        while (rows.next()) {
+        while (rows.advance()) {
             Cell aRightSideValue = rows.singleColumn(subselect.location);
             if (leftCell.sqlEquals(aRightSideValue)) {
                 return true;
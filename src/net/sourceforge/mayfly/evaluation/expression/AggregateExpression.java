@@ -5,16 +5,15 @@ import net.sourceforge.mayfly.MayflyInternalException;
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.LongCell;
 import net.sourceforge.mayfly.datastore.NullCell;
+import net.sourceforge.mayfly.evaluation.Accumulator;
 import net.sourceforge.mayfly.evaluation.Expression;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.parser.Location;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Set;
 
 public abstract class AggregateExpression extends Expression {
 
@@ -60,74 +59,101 @@ public abstract class AggregateExpression extends Expression {
 
     @Override
     public Cell aggregate(ResultRows rows) {
-        Collection values = findValues(rows);
-        return aggregate(values);
+        Accumulator accumulator = accumulator();
+        for (ResultRow row : rows) {
+            accumulator.add(row);
+        }
+        return accumulator.result();
     }
 
-    abstract Cell aggregate(Collection values);
-
-    Cell aggregateSumAverage(Collection values, boolean isSum) {
-        if (values.isEmpty()) {
-            /* In this case of sum, this is lame (0 would be more convenient), but standard.
-               Is it possible/desirable for Mayfly to help?
-               (giving an error and pointing out a better way, or whatever). */
-            return NullCell.INSTANCE;
-        }
+    /**
+     * Pass the non-null values of the column (only the first time
+     * we see each value, for DISTINCT) to {@link #values()}.
+     */
+    @Override
+    public Accumulator accumulator() {
+        final ValueAccumulator values = values();
+        final Set<Cell> seen = distinct ? new HashSet<Cell>() : null;
+        return new Accumulator() {
+            @Override
+            public void add(ResultRow row) {
+                Cell cell = evaluateColumn(row);
+                if (cell instanceof NullCell) {
+                    return;
+                }
+                if (seen != null && !seen.add(cell)) {
+                    return;
+                }
+                values.add(cell);
+            }
 
-        if (!(values.iterator().next() instanceof LongCell)) {
-            Cell first = (Cell) values.iterator().next();
-            throw new MayflyException("attempt to apply " + displayName() + " to " + first.displayName());
-        }
+            @Override
+            public Cell result() {
+                return values.result();
+            }
+        };
+    }
 
-        long count = 0;
-        long sum = 0;
-        for (Iterator iter = values.iterator(); iter.hasNext();) {
-            long value = ((LongCell) iter.next()).asLong();
-            count++;
-            sum += value;
-        }
-        
-        return new LongCell(isSum ? sum : sum / count);
+    /**
+     * Running state for the values being aggregated, which are never
+     * null.  There are no values if the group is empty, or every
+     * value in it was null.
+     */
+    static abstract class ValueAccumulator {
+        abstract void add(Cell value);
+        abstract Cell result();
     }
 
-    Cell aggregateMinMax(Collection values) {
-        Iterator iter = values.iterator();
-        if (!iter.hasNext()) {
-            return NullCell.INSTANCE;
-        }
-        
-        Cell bestSoFar = (Cell) iter.next();
-        while (iter.hasNext()) {
-            Cell candidate = (Cell) iter.next();
-            if (isBetter(candidate, bestSoFar)) {
-                bestSoFar = candidate;
+    abstract ValueAccumulator values();
+
+    ValueAccumulator sumAverage(final boolean isSum) {
+        return new ValueAccumulator() {
+            private long count = 0;
+            private long sum = 0;
+
+            @Override
+            void add(Cell value) {
+                if (!(value instanceof LongCell)) {
+                    throw new MayflyException("attempt to apply " + 
+                        displayName() + " to " + value.displayName());
+                }
+                count++;
+                sum += value.asLong();
             }
-        }
-        
-        return bestSoFar;
-    }
 
-    boolean isBetter(Cell candidate, Cell bestSoFar) {
-        throw new MayflyInternalException("Override this for min/max");
+            @Override
+            Cell result() {
+                if (count == 0) {
+                    /* In this case of sum, this is lame (0 would be more convenient), but standard.
+                       Is it possible/desirable for Mayfly to help?
+                       (giving an error and pointing out a better way, or whatever). */
+                    return NullCell.INSTANCE;
+                }
+                return new LongCell(isSum ? sum : sum / count);
+            }
+        };
     }
 
-    private Collection findValues(ResultRows rows) {
-        Collection values;
-        if (distinct) {
-            values = new HashSet();
-        }
-        else {
-            values = new ArrayList();
-        }
+    ValueAccumulator minMax() {
+        return new ValueAccumulator() {
+            private Cell bestSoFar = null;
 
-        for (Iterator iter = rows.iterator(); iter.hasNext();) {
-            ResultRow row = (ResultRow) iter.next();
-            Cell cell = evaluateColumn(row);
-            if (!(cell instanceof NullCell)) {
-                values.add(cell);
+            @Override
+            void add(Cell candidate) {
+                if (bestSoFar == null || isBetter(candidate, bestSoFar)) {
+                    bestSoFar = candidate;
+                }
             }
-        }
-        return values;
+
+            @Override
+            Cell result() {
+                return bestSoFar == null ? NullCell.INSTANCE : bestSoFar;
+            }
+        };
+    }
+
+    boolean isBetter(Cell candidate, Cell bestSoFar) {
+        throw new MayflyInternalException("Override this for min/max");
     }
 
     @Override
@@ -6,7 +6,6 @@ import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.parser.Location;
 
-import java.util.Collection;
 
 public class Average extends AggregateExpression {
 
@@ -20,8 +19,8 @@ public class Average extends AggregateExpression {
     }
 
     @Override
-    Cell aggregate(Collection values) {
-        return aggregateSumAverage(values, false);
+    ValueAccumulator values() {
+        return sumAverage(false);
     }
     
     @Override
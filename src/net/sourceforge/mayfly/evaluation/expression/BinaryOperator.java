@@ -2,6 +2,7 @@ package net.sourceforge.mayfly.evaluation.expression;
 
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.NullCell;
+import net.sourceforge.mayfly.evaluation.Accumulator;
 import net.sourceforge.mayfly.evaluation.Expression;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
@@ -32,6 +33,25 @@ abstract public class BinaryOperator extends Expression {
         return combineCellsOrNulls(leftCell, rightCell);
     }
 
+    @Override
+    public Accumulator accumulator() {
+        final Accumulator leftAccumulator = left.accumulator();
+        final Accumulator rightAccumulator = right.accumulator();
+        return new Accumulator() {
+            @Override
+            public void add(ResultRow row) {
+                leftAccumulator.add(row);
+                rightAccumulator.add(row);
+            }
+
+            @Override
+            public Cell result() {
+                return combineCellsOrNulls(
+                    leftAccumulator.result(), rightAccumulator.result());
+            }
+        };
+    }
+
     private Cell combineCellsOrNulls(Cell leftCell, Cell rightCell) {
         if (leftCell instanceof NullCell) {
             return leftCell;
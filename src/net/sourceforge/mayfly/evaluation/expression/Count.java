@@ -7,7 +7,6 @@ import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.parser.Location;
 
-import java.util.Collection;
 
 public class Count extends AggregateExpression {
 
@@ -21,8 +20,20 @@ public class Count extends AggregateExpression {
     }
 
     @Override
-    Cell aggregate(Collection values) {
-        return new LongCell(values.size());
+    ValueAccumulator values() {
+        return new ValueAccumulator() {
+            private long count = 0;
+
+            @Override
+            void add(Cell value) {
+                ++count;
+            }
+
+            @Override
+            Cell result() {
+                return new LongCell(count);
+            }
+        };
     }
 
     @Override
@@ -2,6 +2,7 @@ package net.sourceforge.mayfly.evaluation.expression;
 
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.LongCell;
+import net.sourceforge.mayfly.evaluation.Accumulator;
 import net.sourceforge.mayfly.evaluation.Expression;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
@@ -43,6 +44,23 @@ public class CountAll extends Expression {
         return new LongCell(rows.rowCount());
     }
     
+    @Override
+    public Accumulator accumulator() {
+        return new Accumulator() {
+            private long count = 0;
+
+            @Override
+            public void add(ResultRow row) {
+                ++count;
+            }
+
+            @Override
+            public Cell result() {
+                return new LongCell(count);
+            }
+        };
+    }
+    
     @Override
     public boolean sameExpression(Expression other) {
         return other instanceof CountAll;
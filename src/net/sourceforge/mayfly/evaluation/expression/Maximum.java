@@ -1,6 +1,5 @@
 package net.sourceforge.mayfly.evaluation.expression;
 
-import java.util.Collection;
 
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.evaluation.Expression;
@@ -19,8 +18,8 @@ public class Maximum extends AggregateExpression {
     }
     
     @Override
-    Cell aggregate(Collection values) {
-        return aggregateMinMax(values);
+    ValueAccumulator values() {
+        return minMax();
     }
     
     @Override
@@ -6,7 +6,6 @@ import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.parser.Location;
 
-import java.util.Collection;
 
 public class Minimum extends AggregateExpression {
 
@@ -19,8 +18,8 @@ public class Minimum extends AggregateExpression {
     }
     
     @Override
-    Cell aggregate(Collection values) {
-        return aggregateMinMax(values);
+    ValueAccumulator values() {
+        return minMax();
     }
     
     @Override
@@ -3,6 +3,7 @@ package net.sourceforge.mayfly.evaluation.expression;
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.LongCell;
 import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
@@ -22,4 +23,16 @@ public class Multiply extends BinaryOperator {
         return new Multiply(left.resolve(row, evaluator), right.resolve(row, evaluator));
     }
 
+    @Override
+    public Expression bind(Parameters parameters) {
+        Expression newLeft = left.bind(parameters);
+        Expression newRight = right.bind(parameters);
+        if (newLeft != left || newRight != right) {
+            return new Multiply(newLeft, newRight);
+        }
+        else {
+            return this;
+        }
+    }
+
 }
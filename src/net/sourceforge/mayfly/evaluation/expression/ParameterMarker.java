@@ -0,0 +1,64 @@
+package net.sourceforge.mayfly.evaluation.expression;
+
+import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.datastore.LongCell;
+import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.Parameters;
+import net.sourceforge.mayfly.evaluation.ResultRow;
+import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.select.Evaluator;
+import net.sourceforge.mayfly.parser.Location;
+
+/**
+ * @internal
+ * A '?' in a prepared statement, which {@link #bind(Parameters)}
+ * replaces with the literal for the value of the parameter.
+ */
+public class ParameterMarker extends Expression {
+
+    /** Zero-based, counting the parameters in the order they
+        appear in the SQL. */
+    public final int index;
+
+    public ParameterMarker(int index, Location location) {
+        super(location);
+        this.index = index;
+    }
+
+    /**
+     * Until it is bound, a marker evaluates to 0, so that the
+     * parser can check a prepared statement the same way it
+     * checks one without parameters.
+     */
+    @Override
+    public Cell evaluate(ResultRow row, Evaluator evaluator) {
+        return new LongCell(0);
+    }
+
+    @Override
+    public Cell aggregate(ResultRows rows) {
+        return new LongCell(0);
+    }
+
+    @Override
+    public Expression bind(Parameters parameters) {
+        return parameters.literal(this);
+    }
+
+    @Override
+    public boolean sameExpression(Expression other) {
+        if (other instanceof ParameterMarker) {
+            ParameterMarker marker = (ParameterMarker) other;
+            return index == marker.index;
+        }
+        else {
+            return false;
+        }
+    }
+
+    @Override
+    public String displayName() {
+        return "?";
+    }
+
+}
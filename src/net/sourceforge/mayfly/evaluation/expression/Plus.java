@@ -3,6 +3,7 @@ package net.sourceforge.mayfly.evaluation.expression;
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.LongCell;
 import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
@@ -22,4 +23,16 @@ public class Plus extends BinaryOperator {
         return new Plus(left.resolve(row, evaluator), right.resolve(row, evaluator));
     }
 
+    @Override
+    public Expression bind(Parameters parameters) {
+        Expression newLeft = left.bind(parameters);
+        Expression newRight = right.bind(parameters);
+        if (newLeft != left || newRight != right) {
+            return new Plus(newLeft, newRight);
+        }
+        else {
+            return this;
+        }
+    }
+
 }
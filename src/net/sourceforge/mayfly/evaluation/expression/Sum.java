@@ -1,6 +1,5 @@
 package net.sourceforge.mayfly.evaluation.expression;
 
-import java.util.Collection;
 
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.evaluation.Expression;
@@ -20,8 +19,8 @@ public class Sum extends AggregateExpression {
     }
 
     @Override
-    Cell aggregate(Collection values) {
-        return aggregateSumAverage(values, true);
+    ValueAccumulator values() {
+        return sumAverage(true);
     }
 
     @Override
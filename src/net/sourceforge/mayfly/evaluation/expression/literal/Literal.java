@@ -1,6 +1,7 @@
 package net.sourceforge.mayfly.evaluation.expression.literal;
 
 import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.evaluation.Accumulator;
 import net.sourceforge.mayfly.evaluation.Expression;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
@@ -23,6 +24,20 @@ public abstract class Literal extends Expression {
         return valueAsCell();
     }
     
+    @Override
+    public Accumulator accumulator() {
+        return new Accumulator() {
+            @Override
+            public void add(ResultRow row) {
+            }
+
+            @Override
+            public Cell result() {
+                return valueAsCell();
+            }
+        };
+    }
+    
     public abstract Cell valueAsCell();
 
 }
@@ -24,6 +24,10 @@ public class QuotedString extends Literal {
 
     public String stringWithoutQuotes() {
         String withoutQuotes = stringInQuotes.substring(1, stringInQuotes.length()-1);
+        if (withoutQuotes.indexOf('\'') == -1) {
+            // The usual case, and replaceAll compiles a pattern every time
+            return withoutQuotes;
+        }
         return withoutQuotes.replaceAll("''", "'");
     }
 
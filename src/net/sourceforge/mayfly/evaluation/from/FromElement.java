@@ -2,6 +2,7 @@ package net.sourceforge.mayfly.evaluation.from;
 
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
@@ -13,6 +14,16 @@ public abstract class FromElement {
 
     public abstract ResultRows tableContents(Evaluator evaluator);
 
+    /**
+     * @internal
+     * The same rows as {@link #tableContents(Evaluator)}, but read
+     * as they are needed.  Subclasses which can avoid reading
+     * everything up front should override this.
+     */
+    public RowSource rows(Evaluator evaluator) {
+        return RowSource.of(tableContents(evaluator));
+    }
+
     public abstract ResultRow dummyRow(Evaluator evaluator);
 
     public FromElement addToCondition(Condition conditionToAndIn) {
@@ -4,19 +4,20 @@ import net.sourceforge.mayfly.MayflyInternalException;
 import net.sourceforge.mayfly.Options;
 import net.sourceforge.mayfly.datastore.Columns;
 import net.sourceforge.mayfly.datastore.Row;
+import net.sourceforge.mayfly.datastore.RowLayout;
 import net.sourceforge.mayfly.datastore.Rows;
 import net.sourceforge.mayfly.datastore.TableData;
+import net.sourceforge.mayfly.evaluation.NoColumn;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.evaluation.expression.SingleColumn;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.parser.Location;
 import net.sourceforge.mayfly.util.CaseInsensitiveString;
 import net.sourceforge.mayfly.util.ImmutableList;
 
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 
 public class FromTable extends FromElement {
 
@@ -38,8 +39,101 @@ public class FromTable extends FromElement {
 
     @Override
     public ResultRows tableContents(Evaluator evaluator) {
-        TableData table = evaluator.table(this);
-        return applyAlias(table.rows(), table.columns(), evaluator.options());
+        return rows(evaluator).readAll();
+    }
+
+    @Override
+    public RowSource rows(Evaluator evaluator) {
+        return rows(evaluator, evaluator.table(this).rows());
+    }
+
+    /**
+     * @internal
+     * Like {@link #rows(Evaluator)}, but for only some of
+     * the rows of the table.
+     */
+    public RowSource rows(Evaluator evaluator, Rows someRows) {
+        final Iterator iterator = someRows.iterator();
+        return new TableRows(evaluator) {
+            @Override
+            Row nextRow() {
+                return iterator.hasNext() ? (Row) iterator.next() : null;
+            }
+        };
+    }
+
+    /**
+     * @internal
+     * Read the rows at the given positions of the table, in the
+     * order given (for example, positions found via an index).
+     */
+    public RowSource rows(Evaluator evaluator, final int[] positions) {
+        final Rows allRows = evaluator.table(this).rows();
+        return new TableRows(evaluator) {
+            private int next = 0;
+
+            @Override
+            Row nextRow() {
+                return next < positions.length ? 
+                    allRows.row(positions[next++]) : null;
+            }
+        };
+    }
+
+    /**
+     * Rows of this table, with this table's alias applied.
+     */
+    private abstract class TableRows extends RowSource {
+        
+        private final ImmutableList<CaseInsensitiveString> columnNames;
+        private final SingleColumn[] columns;
+        
+        /** Where each column is, in rows with {@link #layout} */
+        private final int[] positions;
+        private RowLayout layout;
+        
+        TableRows(Evaluator evaluator) {
+            columnNames = evaluator.table(FromTable.this).columns().asCaseNames();
+            columns = columns(columnNames, evaluator.options());
+            positions = new int[columnNames.size()];
+        }
+
+        abstract Row nextRow();
+
+        @Override
+        public ResultRow next() {
+            Row row = nextRow();
+            if (row == null) {
+                return null;
+            }
+            if (row.layout() != layout) {
+                /* Normally just for the first row; the rows of a table
+                   share a layout except after ALTER TABLE.  */
+                layout = row.layout();
+                for (int i = 0; i < positions.length; ++i) {
+                    positions[i] = layout.position(columnNames.get(i));
+                    if (positions[i] == -1) {
+                        throw new NoColumn(columnNames.get(i));
+                    }
+                }
+            }
+            ResultRow result = new ResultRow();
+            for (int i = 0; i < columns.length; ++i) {
+                result = result.with(columns[i], row.cell(positions[i]));
+            }
+            return result;
+        }
+
+    }
+
+    private SingleColumn[] columns(
+        ImmutableList<CaseInsensitiveString> names, Options options) {
+        SingleColumn[] result = new SingleColumn[names.size()];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = new SingleColumn(alias, names.get(i).getString(), 
+                options);
+        }
+        return result;
     }
 
     @Override
@@ -49,16 +143,6 @@ public class FromTable extends FromElement {
             evaluator.options());
     }
 
-    private ResultRows applyAlias(Rows storedRows, Columns tableColumns, 
-        Options options) {
-        List rows = new ArrayList();
-        for (Iterator iter = storedRows.iterator(); iter.hasNext();) {
-            Row row = (Row) iter.next();
-            rows.add(applyAlias(row, tableColumns, options));
-        }
-        return new ResultRows(new ImmutableList(rows));
-    }
-
     private ResultRow applyAlias(Row row, Columns tableColumns,
         Options options) {
         ResultRow result = new ResultRow();
@@ -0,0 +1,243 @@
+package net.sourceforge.mayfly.evaluation.from;
+
+import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.datastore.IndexKey;
+import net.sourceforge.mayfly.datastore.NullCell;
+import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.ResultRow;
+import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.condition.Condition;
+import net.sourceforge.mayfly.evaluation.select.Evaluator;
+import net.sourceforge.mayfly.util.ImmutableList;
+import net.sourceforge.mayfly.util.L;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @internal
+ * An inner or left join whose ON condition includes one or more
+ * conditions of the form left_column = right_column.  Rather than
+ * trying every pair of rows, we hash one side on those columns
+ * and look up each row of the other side.
+ *
+ * The whole ON condition is still evaluated for each pair which
+ * the hash finds, so the hash only needs to narrow things down.
+ * Rows come out in the same order as from the {@link InnerJoin}
+ * or {@link LeftJoin} which this replaces (see
+ * {@link net.sourceforge.mayfly.evaluation.select.Planner}).
+ */
+public class HashJoin extends Join {
+
+    private final Join nestedLoop;
+    private final ImmutableList<Expression> leftKeys;
+    private final ImmutableList<Expression> rightKeys;
+
+    /**
+     * @param nestedLoop The join which this one replaces.  Must be
+     * an {@link InnerJoin} or a {@link LeftJoin}.
+     * @param leftKeys Expressions to evaluate on rows from the left
+     * side.
+     * @param rightKeys Expressions to evaluate on rows from the right
+     * side, each of which must be equal to the corresponding
+     * left key for the ON condition to be true.
+     */
+    public HashJoin(Join nestedLoop,
+        ImmutableList<Expression> leftKeys,
+        ImmutableList<Expression> rightKeys) {
+        super(nestedLoop.left, nestedLoop.right, nestedLoop.condition);
+        this.nestedLoop = nestedLoop;
+        this.leftKeys = leftKeys;
+        this.rightKeys = rightKeys;
+    }
+
+    public boolean isOuter() {
+        return nestedLoop instanceof LeftJoin;
+    }
+
+    @Override
+    ResultRows join(ResultRows leftRows, ResultRows rightRows,
+        Evaluator evaluator) {
+        IndexKey[] leftHashes = keys(leftRows, leftKeys, evaluator);
+        IndexKey[] rightHashes = keys(rightRows, rightKeys, evaluator);
+        if (!sameKindsOfCells(leftHashes, rightHashes)) {
+            /* Comparing, say, a string to a date can involve
+               coercion which hashing won't see.  */
+            return nestedLoop.join(leftRows, rightRows, evaluator);
+        }
+
+        if (isOuter()) {
+            return outerJoin(leftRows, rightRows, leftHashes, rightHashes,
+                evaluator);
+        }
+
+        long[] pairs;
+        if (leftRows.rowCount() < rightRows.rowCount()) {
+            pairs = pairs(rightHashes, leftHashes, false, rightRows.rowCount());
+            Arrays.sort(pairs);
+        }
+        else {
+            pairs = pairs(leftHashes, rightHashes, true, rightRows.rowCount());
+        }
+
+        List<ResultRow> result = new ArrayList<ResultRow>();
+        for (int i = 0; i < pairs.length; ++i) {
+            int leftIndex = (int) (pairs[i] / rightRows.rowCount());
+            int rightIndex = (int) (pairs[i] % rightRows.rowCount());
+            ResultRow combined =
+                leftRows.row(leftIndex).combine(rightRows.row(rightIndex));
+            if (condition.evaluate(combined, evaluator)) {
+                result.add(combined);
+            }
+        }
+        return new ResultRows(new ImmutableList<ResultRow>(result));
+    }
+
+    /**
+     * Find the pairs of rows with equal keys, by hashing the build
+     * side and probing it with each row of the probe side (in order).
+     *
+     * @return each pair as leftIndex * rightCount + rightIndex.
+     */
+    private long[] pairs(IndexKey[] probe, IndexKey[] build,
+        boolean probeIsLeft, int rightCount) {
+        Map<IndexKey, int[]> table = hash(build);
+        long[] result = new long[16];
+        int count = 0;
+        for (int probeIndex = 0; probeIndex < probe.length; ++probeIndex) {
+            int[] matches = lookup(table, probe[probeIndex]);
+            for (int i = 1; i <= matches[0]; ++i) {
+                if (count == result.length) {
+                    long[] bigger = new long[count * 2];
+                    System.arraycopy(result, 0, bigger, 0, count);
+                    result = bigger;
+                }
+                long leftIndex = probeIsLeft ? probeIndex : matches[i];
+                long rightIndex = probeIsLeft ? matches[i] : probeIndex;
+                result[count++] = leftIndex * rightCount + rightIndex;
+            }
+        }
+        long[] trimmed = new long[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    private ResultRows outerJoin(ResultRows leftRows, ResultRows rightRows,
+        IndexKey[] leftHashes, IndexKey[] rightHashes, Evaluator evaluator) {
+        Map<IndexKey, int[]> table = hash(rightHashes);
+        L joinResult = new L();
+        for (int leftIndex = 0; leftIndex < leftHashes.length; ++leftIndex) {
+            ResultRow leftRow = leftRows.row(leftIndex);
+            boolean haveJoinedThisLeftRow = false;
+
+            int[] matches = lookup(table, leftHashes[leftIndex]);
+            for (int i = 1; i <= matches[0]; ++i) {
+                ResultRow combined =
+                    leftRow.combine(rightRows.row(matches[i]));
+                if (condition.evaluate(combined, evaluator)) {
+                    joinResult.append(combined);
+                    haveJoinedThisLeftRow = true;
+                }
+            }
+
+            if (!haveJoinedThisLeftRow) {
+                ResultRow nullRightRow = right.dummyRow(evaluator);
+                joinResult.append(leftRow.combine(nullRightRow));
+            }
+        }
+        return new ResultRows(joinResult.asImmutable());
+    }
+
+    private static final int[] NO_MATCHES = new int[] { 0 };
+
+    /**
+     * @return For each key, the row indexes which have it.  Element 0
+     * of each array is the number of indexes which follow.
+     */
+    private static Map<IndexKey, int[]> hash(IndexKey[] keys) {
+        Map<IndexKey, int[]> table = new HashMap<IndexKey, int[]>();
+        for (int i = 0; i < keys.length; ++i) {
+            IndexKey key = keys[i];
+            if (key.hasNull()) {
+                // null is not equal to anything
+                continue;
+            }
+            int[] indexes = table.get(key);
+            if (indexes == null) {
+                indexes = new int[] { 0, 0 };
+            }
+            else if (indexes[0] + 1 == indexes.length) {
+                int[] bigger = new int[indexes.length * 2];
+                System.arraycopy(indexes, 0, bigger, 0, indexes.length);
+                indexes = bigger;
+            }
+            indexes[++indexes[0]] = i;
+            table.put(key, indexes);
+        }
+        return table;
+    }
+
+    private static int[] lookup(Map<IndexKey, int[]> table, IndexKey key) {
+        if (key.hasNull()) {
+            return NO_MATCHES;
+        }
+        int[] found = table.get(key);
+        return found == null ? NO_MATCHES : found;
+    }
+
+    private static IndexKey[] keys(ResultRows rows,
+        ImmutableList<Expression> expressions, Evaluator evaluator) {
+        IndexKey[] result = new IndexKey[rows.rowCount()];
+        for (int i = 0; i < result.length; ++i) {
+            ResultRow row = rows.row(i);
+            Cell[] cells = new Cell[expressions.size()];
+            for (int j = 0; j < cells.length; ++j) {
+                cells[j] = expressions.get(j).evaluate(row, evaluator);
+            }
+            result[i] = new IndexKey(cells);
+        }
+        return result;
+    }
+
+    /**
+     * Does each key column hold the same class of cell (or null)
+     * on both sides?  Only then does a hash lookup find
+     * everything which the ON condition would.
+     */
+    private static boolean sameKindsOfCells(
+        IndexKey[] leftHashes, IndexKey[] rightHashes) {
+        int width = leftHashes.length > 0 ? leftHashes[0].size() :
+            rightHashes.length > 0 ? rightHashes[0].size() : 0;
+        Class[] kinds = new Class[width];
+        return sameKinds(leftHashes, kinds) && sameKinds(rightHashes, kinds);
+    }
+
+    private static boolean sameKinds(IndexKey[] keys, Class[] kinds) {
+        for (int i = 0; i < keys.length; ++i) {
+            for (int column = 0; column < kinds.length; ++column) {
+                Cell cell = keys[i].cell(column);
+                if (cell instanceof NullCell) {
+                    continue;
+                }
+                if (kinds[column] == null) {
+                    kinds[column] = cell.getClass();
+                }
+                else if (kinds[column] != cell.getClass()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public FromElement addToCondition(Condition conditionToAndIn) {
+        return new HashJoin(
+            (Join) nestedLoop.addToCondition(conditionToAndIn),
+            leftKeys, rightKeys);
+    }
+
+}
@@ -0,0 +1,50 @@
+package net.sourceforge.mayfly.evaluation.from;
+
+import net.sourceforge.mayfly.MayflyInternalException;
+import net.sourceforge.mayfly.datastore.Index;
+import net.sourceforge.mayfly.evaluation.ResultRow;
+import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
+import net.sourceforge.mayfly.evaluation.select.Evaluator;
+
+/**
+ * @internal
+ * A whole table, read in the order of an index.  The
+ * {@link net.sourceforge.mayfly.evaluation.select.Planner} uses
+ * this in place of sorting, when ORDER BY is a single column which
+ * an index starts with.  Rows come back in exactly the order which
+ * sorting the table would give them.
+ */
+public class IndexOrderScan extends FromElement {
+
+    public final FromTable table;
+    public final String column;
+    private final boolean ascending;
+
+    public IndexOrderScan(FromTable table, String column, boolean ascending) {
+        this.table = table;
+        this.column = column;
+        this.ascending = ascending;
+    }
+
+    @Override
+    public ResultRows tableContents(Evaluator evaluator) {
+        return rows(evaluator).readAll();
+    }
+
+    @Override
+    public RowSource rows(Evaluator evaluator) {
+        Index index = evaluator.table(table).indexStartingWith(column);
+        if (index == null) {
+            // The planner checked for the index, so shouldn't get here.
+            throw new MayflyInternalException("no index on " + column);
+        }
+        return table.rows(evaluator, index.positionsInOrder(ascending));
+    }
+
+    @Override
+    public ResultRow dummyRow(Evaluator evaluator) {
+        return table.dummyRow(evaluator);
+    }
+
+}
@@ -0,0 +1,272 @@
+package net.sourceforge.mayfly.evaluation.from;
+
+import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.datastore.Index;
+import net.sourceforge.mayfly.datastore.NullCell;
+import net.sourceforge.mayfly.datastore.StringCell;
+import net.sourceforge.mayfly.datastore.TableData;
+import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.ResultRow;
+import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
+import net.sourceforge.mayfly.evaluation.condition.And;
+import net.sourceforge.mayfly.evaluation.condition.Condition;
+import net.sourceforge.mayfly.evaluation.condition.Equal;
+import net.sourceforge.mayfly.evaluation.condition.Greater;
+import net.sourceforge.mayfly.evaluation.condition.In;
+import net.sourceforge.mayfly.evaluation.condition.IsNull;
+import net.sourceforge.mayfly.evaluation.condition.LessEqual;
+import net.sourceforge.mayfly.evaluation.condition.Like;
+import net.sourceforge.mayfly.evaluation.condition.RowExpression;
+import net.sourceforge.mayfly.evaluation.expression.SingleColumn;
+import net.sourceforge.mayfly.evaluation.expression.literal.Literal;
+import net.sourceforge.mayfly.evaluation.select.Evaluator;
+
+import java.util.Arrays;
+
+/**
+ * @internal
+ * A table, but reading only those rows which an index says
+ * can satisfy a condition (see
+ * {@link net.sourceforge.mayfly.evaluation.select.Planner}).
+ *
+ * The condition itself stays in the WHERE clause, so this only
+ * needs to return a superset of the matching rows.  That lets us
+ * give up and read the whole table in any case which is at all
+ * tricky (for example, comparing a string literal to a date column,
+ * which the condition knows how to coerce).  Rows come back in
+ * the same order as a full scan would return them.
+ */
+public class IndexScan extends FromElement {
+
+    public final FromTable table;
+    public final String column;
+    private final Condition condition;
+
+    public IndexScan(FromTable table, String column, Condition condition) {
+        this.table = table;
+        this.column = column;
+        this.condition = condition;
+    }
+
+    /**
+     * @internal
+     * If condition is a comparison which an index on a single column
+     * could speed up, return that column (not yet resolved to a
+     * table).  Otherwise return null.
+     */
+    public static SingleColumn indexableColumn(Condition condition) {
+        if (condition instanceof Equal
+            || condition instanceof Greater
+            || condition instanceof LessEqual) {
+            RowExpression comparison = (RowExpression) condition;
+            if (comparison.leftSide instanceof SingleColumn
+                && comparison.rightSide instanceof Literal) {
+                return (SingleColumn) comparison.leftSide;
+            }
+            else if (comparison.rightSide instanceof SingleColumn
+                && comparison.leftSide instanceof Literal) {
+                return (SingleColumn) comparison.rightSide;
+            }
+        }
+        else if (condition instanceof Like) {
+            Like like = (Like) condition;
+            if (like.leftSide instanceof SingleColumn
+                && like.rightSide instanceof Literal
+                && likePrefix((Literal) like.rightSide) != null) {
+                return (SingleColumn) like.leftSide;
+            }
+        }
+        else if (condition instanceof In) {
+            In in = (In) condition;
+            if (!(in.leftSide instanceof SingleColumn)) {
+                return null;
+            }
+            for (Expression element : in.expressions) {
+                if (!(element instanceof Literal)) {
+                    return null;
+                }
+            }
+            return (SingleColumn) in.leftSide;
+        }
+        else if (condition instanceof IsNull) {
+            IsNull isNull = (IsNull) condition;
+            if (isNull.expression instanceof SingleColumn) {
+                return (SingleColumn) isNull.expression;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Is this a lookup of specific values (as opposed to a range)?
+     */
+    public boolean isPointLookup() {
+        return condition instanceof Equal || condition instanceof In
+            || condition instanceof IsNull;
+    }
+
+    @Override
+    public ResultRows tableContents(Evaluator evaluator) {
+        return rows(evaluator).readAll();
+    }
+
+    @Override
+    public RowSource rows(Evaluator evaluator) {
+        TableData data = evaluator.table(table);
+        Index index = data.indexStartingWith(column);
+        int[] positions = index == null ? null : positions(index, condition);
+        if (positions == null) {
+            return table.rows(evaluator);
+        }
+        return table.rows(evaluator, positions);
+    }
+
+    /**
+     * @internal
+     * For UPDATE and DELETE, which read a single table: the
+     * positions of the rows of data which might satisfy where,
+     * in ascending order, or null to read every row.  As with
+     * a scan, the caller still evaluates where on each row.
+     * Of the conditions joined by AND, we use whichever the
+     * indexes narrow down the most.
+     */
+    public static int[] positions(TableData data, Condition where) {
+        if (where instanceof And) {
+            And and = (And) where;
+            int[] left = positions(data, and.leftSide);
+            int[] right = positions(data, and.rightSide);
+            if (left == null) {
+                return right;
+            }
+            else if (right == null) {
+                return left;
+            }
+            return left.length <= right.length ? left : right;
+        }
+
+        SingleColumn column = indexableColumn(where);
+        if (column == null) {
+            return null;
+        }
+        Index index = data.indexStartingWith(column.columnName());
+        return index == null ? null : positions(index, where);
+    }
+
+    /**
+     * @return positions of rows which might match, or null
+     * to read the whole table.
+     */
+    private static int[] positions(Index index, Condition condition) {
+        if (condition instanceof IsNull) {
+            return index.positionsOfNull();
+        }
+
+        Cell sample = index.highestValue();
+        if (sample == null || sample instanceof NullCell) {
+            // No non-null values, so no comparison can be true
+            return new int[0];
+        }
+
+        if (condition instanceof In) {
+            In in = (In) condition;
+            int[] result = new int[0];
+            for (Expression element : in.expressions) {
+                Cell value = ((Literal) element).valueAsCell();
+                if (value instanceof NullCell) {
+                    continue;
+                }
+                if (value.getClass() != sample.getClass()) {
+                    return null;
+                }
+                result = union(result,
+                    index.positions(value, true, value, true));
+            }
+            return result;
+        }
+        else if (condition instanceof Like) {
+            Like like = (Like) condition;
+            String prefix = likePrefix((Literal) like.rightSide);
+            if (!(sample instanceof StringCell)) {
+                return null;
+            }
+            char last = prefix.charAt(prefix.length() - 1);
+            if (last == Character.MAX_VALUE) {
+                return null;
+            }
+            String after = prefix.substring(0, prefix.length() - 1) +
+                (char) (last + 1);
+            return index.positions(
+                new StringCell(prefix), true, new StringCell(after), false);
+        }
+
+        RowExpression comparison = (RowExpression) condition;
+        boolean columnOnLeft = comparison.leftSide instanceof SingleColumn;
+        Literal literal = (Literal)
+            (columnOnLeft ? comparison.rightSide : comparison.leftSide);
+        Cell value = literal.valueAsCell();
+        if (value instanceof NullCell) {
+            return new int[0];
+        }
+        if (value.getClass() != sample.getClass()) {
+            return null;
+        }
+
+        if (condition instanceof Equal) {
+            return index.positions(value, true, value, true);
+        }
+        else if (condition instanceof Greater) {
+            return columnOnLeft ?
+                index.positions(value, false, null, false) :
+                index.positions(null, false, value, false);
+        }
+        else {
+            // LessEqual
+            return columnOnLeft ?
+                index.positions(null, false, value, true) :
+                index.positions(value, true, null, false);
+        }
+    }
+
+    /**
+     * The part of a LIKE pattern before the first wildcard,
+     * or null if there is no such part.
+     */
+    private static String likePrefix(Literal pattern) {
+        Cell cell = pattern.valueAsCell();
+        if (!(cell instanceof StringCell)) {
+            return null;
+        }
+        String string = cell.asString();
+        int end = 0;
+        while (end < string.length()
+            && string.charAt(end) != '%' && string.charAt(end) != '_') {
+            ++end;
+        }
+        return end == 0 ? null : string.substring(0, end);
+    }
+
+    private static int[] union(int[] first, int[] second) {
+        int[] result = new int[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        Arrays.sort(result);
+
+        // Remove duplicates (which come from IN lists like (5, 5)).
+        int count = 0;
+        for (int i = 0; i < result.length; ++i) {
+            if (count == 0 || result[count - 1] != result[i]) {
+                result[count++] = result[i];
+            }
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    @Override
+    public ResultRow dummyRow(Evaluator evaluator) {
+        return table.dummyRow(evaluator);
+    }
+
+}
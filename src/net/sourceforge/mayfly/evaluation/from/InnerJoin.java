@@ -1,6 +1,7 @@
 package net.sourceforge.mayfly.evaluation.from;
 
 import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
@@ -11,10 +12,14 @@ public class InnerJoin extends Join {
     }
 
     @Override
-    public ResultRows tableContents(Evaluator evaluator) {
-        ResultRows unfiltered = 
-            left.tableContents(evaluator)
-                .join(right.tableContents(evaluator));
+    public RowSource rows(Evaluator evaluator) {
+        return nestedLoop(evaluator, false);
+    }
+
+    @Override
+    ResultRows join(ResultRows leftRows, ResultRows rightRows,
+        Evaluator evaluator) {
+        ResultRows unfiltered = leftRows.join(rightRows);
         return unfiltered.select(condition, evaluator);
     }
     
@@ -1,6 +1,8 @@
 package net.sourceforge.mayfly.evaluation.from;
 
 import net.sourceforge.mayfly.evaluation.ResultRow;
+import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 
@@ -16,6 +18,81 @@ public abstract class Join extends FromElement {
         this.condition = condition;
     }
 
+    @Override
+    public ResultRows tableContents(Evaluator evaluator) {
+        return join(
+            left.tableContents(evaluator), 
+            right.tableContents(evaluator), 
+            evaluator);
+    }
+
+    /**
+     * @internal
+     * Join rows which have already been read from the left and
+     * right sides.
+     */
+    abstract ResultRows join(ResultRows leftRows, ResultRows rightRows,
+        Evaluator evaluator);
+
+    /**
+     * @internal
+     * Read the left side a row at a time, and pair each row with
+     * each row of the right side (which is read in full when we
+     * are opened).  If outer is true, a left row which matches
+     * nothing on the right comes out once, with nulls on the right.
+     */
+    RowSource nestedLoop(final Evaluator evaluator, final boolean outer) {
+        final RowSource leftRows = left.rows(evaluator);
+        return new RowSource() {
+            
+            private ResultRows rightRows;
+            private ResultRow leftRow;
+            private int rightIndex;
+            private boolean haveJoinedThisLeftRow;
+
+            @Override
+            public void open() {
+                leftRows.open();
+                rightRows = right.tableContents(evaluator);
+            }
+
+            @Override
+            public ResultRow next() {
+                while (true) {
+                    if (leftRow == null) {
+                        leftRow = leftRows.next();
+                        if (leftRow == null) {
+                            return null;
+                        }
+                        rightIndex = 0;
+                        haveJoinedThisLeftRow = false;
+                    }
+
+                    while (rightIndex < rightRows.rowCount()) {
+                        ResultRow combined = 
+                            leftRow.combine(rightRows.row(rightIndex++));
+                        if (condition.evaluate(combined, evaluator)) {
+                            haveJoinedThisLeftRow = true;
+                            return combined;
+                        }
+                    }
+
+                    ResultRow finished = leftRow;
+                    leftRow = null;
+                    if (outer && !haveJoinedThisLeftRow) {
+                        return finished.combine(right.dummyRow(evaluator));
+                    }
+                }
+            }
+
+            @Override
+            public void close() {
+                leftRows.close();
+            }
+
+        };
+    }
+
     @Override
     public ResultRow dummyRow(Evaluator evaluator) {
         ResultRow dummyRow = 
@@ -2,6 +2,7 @@ package net.sourceforge.mayfly.evaluation.from;
 
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
 import net.sourceforge.mayfly.evaluation.select.Evaluator;
 import net.sourceforge.mayfly.util.L;
@@ -15,10 +16,13 @@ public class LeftJoin extends Join {
     }
 
     @Override
-    public ResultRows tableContents(Evaluator evaluator) {
-        ResultRows leftRows = left.tableContents(evaluator);
-        ResultRows rightRows = right.tableContents(evaluator);
+    public RowSource rows(Evaluator evaluator) {
+        return nestedLoop(evaluator, true);
+    }
 
+    @Override
+    ResultRows join(ResultRows leftRows, ResultRows rightRows,
+        Evaluator evaluator) {
         final L joinResult = new L();
 
         Iterator leftIter = leftRows.iterator();
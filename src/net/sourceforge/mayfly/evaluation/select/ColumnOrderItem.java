@@ -17,6 +17,10 @@ public class ColumnOrderItem extends OrderItem {
         this.column = column;
     }
     
+    SingleColumn column() {
+        return column;
+    }
+
     @Override
     protected int compareAscending(What what, Evaluator evaluator,
         ResultRow first, ResultRow second) {
@@ -1,6 +1,7 @@
 package net.sourceforge.mayfly.evaluation.select;
 
 import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.evaluation.what.Selected;
 
 /**
@@ -12,4 +13,6 @@ public abstract class Distinct {
     
     abstract public ResultRows distinct(Selected selected, ResultRows rows);
 
+    abstract public RowSource distinct(Selected selected, RowSource rows);
+
 }
@@ -3,8 +3,10 @@ package net.sourceforge.mayfly.evaluation.select;
 import net.sourceforge.mayfly.evaluation.GroupByCells;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.evaluation.what.Selected;
 
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -17,6 +19,42 @@ public class IsDistinct extends Distinct {
         return distinctRowsToResultRows(selected, distinctRows);
     }
 
+    /**
+     * Pass along each row whose selected values we haven't
+     * already seen.  This is the same order as the
+     * {@link ResultRows} version gives.
+     */
+    @Override
+    public RowSource distinct(final Selected selected, final RowSource rows) {
+        return new RowSource() {
+            
+            private final Set<GroupByCells> seen = new HashSet<GroupByCells>();
+
+            @Override
+            public void open() {
+                rows.open();
+            }
+
+            @Override
+            public ResultRow next() {
+                for (ResultRow row = rows.next(); row != null; 
+                    row = rows.next()) {
+                    GroupByCells cells = selected.evaluateAll(row);
+                    if (seen.add(cells)) {
+                        return selected.toRow(cells);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void close() {
+                rows.close();
+            }
+
+        };
+    }
+
     private ResultRows distinctRowsToResultRows(
         Selected selected, Set<GroupByCells> distinctRows) {
         ResultRows result = new ResultRows();
@@ -1,6 +1,8 @@
 package net.sourceforge.mayfly.evaluation.select;
 
+import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.util.ImmutableList;
 
 public class Limit {
@@ -30,6 +32,63 @@ public class Limit {
         return new ResultRows(new ImmutableList(rows.asList().subList(offset, end)));
     }
 
+    /**
+     * Skip the offset, and then stop reading rows as soon as we
+     * have enough.
+     */
+    public RowSource limit(final RowSource rows) {
+        if (!isSpecified()) {
+            return rows;
+        }
+        return new RowSource() {
+            
+            private int returned = 0;
+            private boolean skipped = false;
+
+            @Override
+            public void open() {
+                rows.open();
+            }
+
+            @Override
+            public ResultRow next() {
+                if (!skipped) {
+                    skipped = true;
+                    for (int i = 0; i < offset; ++i) {
+                        if (rows.next() == null) {
+                            return null;
+                        }
+                    }
+                }
+                if (returned >= count) {
+                    return null;
+                }
+                ResultRow row = rows.next();
+                if (row != null) {
+                    ++returned;
+                }
+                return row;
+            }
+
+            @Override
+            public void close() {
+                rows.close();
+            }
+
+        };
+    }
+
+    /**
+     * How many rows, counting from the start, do we need to
+     * read to satisfy this limit?
+     */
+    public int rowsNeeded() {
+        if (count == NO_LIMIT || count > NO_LIMIT - offset) {
+            return NO_LIMIT;
+        }
+        return offset + count;
+    }
+
     public boolean isSpecified() {
         return offset != NO_OFFSET || count != NO_LIMIT;
     }
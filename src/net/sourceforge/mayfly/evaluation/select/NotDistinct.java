@@ -1,6 +1,7 @@
 package net.sourceforge.mayfly.evaluation.select;
 
 import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.evaluation.what.Selected;
 
 public class NotDistinct extends Distinct {
@@ -10,4 +11,9 @@ public class NotDistinct extends Distinct {
         return rows;
     }
 
+    @Override
+    public RowSource distinct(Selected selected, RowSource rows) {
+        return rows;
+    }
+
 }
@@ -4,6 +4,7 @@ import net.sourceforge.mayfly.MayflyResultSet;
 import net.sourceforge.mayfly.evaluation.Aggregator;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
 import net.sourceforge.mayfly.evaluation.from.FromElement;
 import net.sourceforge.mayfly.evaluation.what.Selected;
@@ -39,21 +40,30 @@ public class OptimizedSelect {
         this.limit = limit;
     }
 
-    ResultRows query() {
-        ResultRows joinedRows = from.tableContents(evaluator);
+    /**
+     * Set up the chain of steps which will produce the rows.  Nothing
+     * is actually read until the result is opened.
+     */
+    RowSource rows() {
+        RowSource joinedRows = from.rows(evaluator);
 
-        ResultRows afterWhere = joinedRows.select(where, evaluator);
+        RowSource afterWhere = joinedRows.select(where, evaluator);
         
-        ResultRows afterGrouping = groupBy.group(afterWhere, evaluator, selected);
+        RowSource afterGrouping = groupBy.group(afterWhere, evaluator, selected);
 
-        ResultRows afterDistinct = distinct.distinct(selected, afterGrouping);
+        RowSource afterDistinct = distinct.distinct(selected, afterGrouping);
 
-        ResultRows sorted = orderBy.sort(afterDistinct, what, evaluator);
+        RowSource sorted = 
+            orderBy.sort(afterDistinct, what, evaluator, limit.rowsNeeded());
         return limit.limit(sorted);
     }
 
+    ResultRows query() {
+        return rows().readAll();
+    }
+
     public MayflyResultSet asResultSet() {
-        return new MayflyResultSet(selected, query());
+        return new MayflyResultSet(selected, rows());
     }
     
     public MayflyResultSet dummyResultSet() {
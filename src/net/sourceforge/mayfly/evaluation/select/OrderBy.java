@@ -2,6 +2,7 @@ package net.sourceforge.mayfly.evaluation.select;
 
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
+import net.sourceforge.mayfly.evaluation.RowSource;
 import net.sourceforge.mayfly.evaluation.expression.SingleColumn;
 import net.sourceforge.mayfly.evaluation.what.What;
 import net.sourceforge.mayfly.util.ImmutableList;
@@ -11,6 +12,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 public class OrderBy {
 
@@ -36,6 +38,105 @@ public class OrderBy {
         return elements.iterator();
     }
 
+    public RowSource sort(RowSource rows, 
+        final What what, final Evaluator evaluator) {
+        if (isEmpty()) {
+            return rows;
+        }
+        return new RowSource.Blocking(rows) {
+            @Override
+            protected ResultRows process(ResultRows allRows) {
+                return sort(allRows, what, evaluator);
+            }
+        };
+    }
+
+    /**
+     * Like {@link #sort(RowSource, What, Evaluator)}, but only the
+     * first rowsNeeded rows of the sorted result will be read (because
+     * of a LIMIT).  Rather than sorting everything, we keep the best
+     * rowsNeeded rows seen so far in a heap.
+     */
+    public RowSource sort(final RowSource rows, 
+        What what, Evaluator evaluator, final int rowsNeeded) {
+        if (isEmpty() || rowsNeeded == Limit.NO_LIMIT) {
+            return sort(rows, what, evaluator);
+        }
+
+        final Comparator<ResultRow> order = comparator(what, evaluator);
+        return new RowSource() {
+            
+            private ResultRow[] sorted;
+            private int next;
+
+            @Override
+            public void open() {
+                sorted = topRows(rows, order, rowsNeeded);
+                next = 0;
+            }
+
+            @Override
+            public ResultRow next() {
+                return next < sorted.length ? sorted[next++] : null;
+            }
+
+        };
+    }
+
+    private static ResultRow[] topRows(RowSource rows, 
+        final Comparator<ResultRow> order, int rowsNeeded) {
+        /* The heap has the worst row on top, so that is the one we
+           replace.  Ties go by the order in which rows arrived, which
+           makes this agree with a stable sort of all the rows.  */
+        PriorityQueue<NumberedRow> heap = new PriorityQueue<NumberedRow>(
+            Math.max(1, Math.min(rowsNeeded, 1000)),
+            new Comparator<NumberedRow>() {
+                public int compare(NumberedRow first, NumberedRow second) {
+                    return second.compareTo(first, order);
+                }
+            });
+
+        rows.open();
+        int sequence = 0;
+        for (ResultRow row = rows.next(); row != null; row = rows.next()) {
+            NumberedRow candidate = new NumberedRow(row, sequence++);
+            if (heap.size() < rowsNeeded) {
+                heap.add(candidate);
+            }
+            else if (rowsNeeded > 0 && 
+                candidate.compareTo(heap.peek(), order) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+        rows.close();
+
+        ResultRow[] result = new ResultRow[heap.size()];
+        for (int i = result.length - 1; i >= 0; --i) {
+            result[i] = heap.poll().row;
+        }
+        return result;
+    }
+
+    private static class NumberedRow {
+        final ResultRow row;
+        final int sequence;
+
+        NumberedRow(ResultRow row, int sequence) {
+            this.row = row;
+            this.sequence = sequence;
+        }
+
+        int compareTo(NumberedRow other, Comparator<ResultRow> order) {
+            int comparison = order.compare(row, other.row);
+            if (comparison != 0) {
+                return comparison;
+            }
+            return sequence < other.sequence ? -1 :
+                sequence > other.sequence ? 1 : 0;
+        }
+    }
+
     public ResultRows sort(ResultRows rows, 
         final What what, final Evaluator evaluator) {
         if (isEmpty()) {
@@ -43,13 +144,16 @@ public class OrderBy {
         }
 
         List rowList = new ArrayList(rows.asList());
-        Collections.sort(rowList, new Comparator() {
+        Collections.sort(rowList, comparator(what, evaluator));
+        return new ResultRows(new ImmutableList(rowList));
+    }
+
+    private Comparator<ResultRow> comparator(
+        final What what, final Evaluator evaluator) {
+        return new Comparator<ResultRow>() {
 
-            public int compare(Object o1, Object o2) {
-                ResultRow first = (ResultRow) o1;
-                ResultRow second = (ResultRow) o2;
-                for (Iterator iter = elements.iterator(); iter.hasNext();) {
-                    OrderItem item = (OrderItem) iter.next();
+            public int compare(ResultRow first, ResultRow second) {
+                for (OrderItem item : elements) {
                     int comparison = item.compareRows(what, evaluator, first, second);
                     if (comparison != 0) {
                         return comparison;
@@ -58,8 +162,7 @@ public class OrderBy {
                 return 0;
             }
             
-        });
-        return new ResultRows(new ImmutableList(rowList));
+        };
     }
 
     public void check(ResultRow afterGroupByAndDistinct, 
@@ -70,6 +173,18 @@ public class OrderBy {
         }
     }
 
+    /**
+     * @internal
+     * If this is ordering by a single column (rather than an
+     * expression or several columns), return that item, otherwise null.
+     */
+    ColumnOrderItem singleColumn() {
+        if (elements.size() == 1 && elements.get(0) instanceof ColumnOrderItem) {
+            return (ColumnOrderItem) elements.get(0);
+        }
+        return null;
+    }
+
     public boolean isEmpty() {
         return elements.size() == 0;
     }
@@ -20,6 +20,10 @@ abstract public class OrderItem {
         return ascending ? comparison : - comparison;
     }
 
+    boolean isAscending() {
+        return ascending;
+    }
+
     abstract protected int compareAscending(What what, Evaluator evaluator, ResultRow first, ResultRow second);
 
     abstract public void check(ResultRow afterGroupByAndDistinct, 
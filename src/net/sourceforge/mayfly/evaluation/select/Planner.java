@@ -1,19 +1,35 @@
 package net.sourceforge.mayfly.evaluation.select;
 
 import net.sourceforge.mayfly.MayflyException;
+import net.sourceforge.mayfly.datastore.BinaryCell;
 import net.sourceforge.mayfly.datastore.DataStore;
+import net.sourceforge.mayfly.datastore.Index;
+import net.sourceforge.mayfly.datastore.TableData;
 import net.sourceforge.mayfly.evaluation.Aggregator;
 import net.sourceforge.mayfly.evaluation.Expression;
 import net.sourceforge.mayfly.evaluation.NoColumn;
+import net.sourceforge.mayfly.evaluation.NoGroupBy;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
 import net.sourceforge.mayfly.evaluation.condition.And;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
+import net.sourceforge.mayfly.evaluation.condition.Equal;
 import net.sourceforge.mayfly.evaluation.from.From;
+import net.sourceforge.mayfly.evaluation.expression.SingleColumn;
 import net.sourceforge.mayfly.evaluation.from.FromElement;
+import net.sourceforge.mayfly.evaluation.from.FromTable;
+import net.sourceforge.mayfly.evaluation.from.HashJoin;
+import net.sourceforge.mayfly.evaluation.from.IndexOrderScan;
+import net.sourceforge.mayfly.evaluation.from.IndexScan;
 import net.sourceforge.mayfly.evaluation.from.InnerJoin;
+import net.sourceforge.mayfly.evaluation.from.Join;
+import net.sourceforge.mayfly.evaluation.from.LeftJoin;
 import net.sourceforge.mayfly.evaluation.what.Selected;
 import net.sourceforge.mayfly.evaluation.what.What;
+import net.sourceforge.mayfly.util.L;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /* At least currently, this is written as a mutable object.  It is a short-lived
    one.  */
@@ -34,6 +50,9 @@ public class Planner {
     private final OrderBy orderBy;
     private final Limit limit;
 
+    // set if we read the table in index order instead of sorting
+    private boolean sortedByIndex = false;
+
     public Planner(What what, From from, Condition where, Aggregator groupBy,
         Distinct distinct, OrderBy orderBy, Limit limit) {
         this.what = what;
@@ -55,7 +74,8 @@ public class Planner {
         check(aliasEvaluator, selected, dummyRow);
         return new OptimizedSelect(
             aliasEvaluator, selected, dummyRow,
-            from.soleElement(), where, groupBy, distinct, orderBy, what, limit);
+            from.soleElement(), where, groupBy, distinct, 
+            sortedByIndex ? new OrderBy() : orderBy, what, limit);
     }
 
     private void check(Evaluator evaluator, Selected selected, ResultRow dummyRow) {
@@ -113,6 +133,202 @@ public class Planner {
         }
         
         moveAllWhereToOn(evaluator);
+        useIndex(evaluator);
+        useIndexForOrder(evaluator);
+        from = from.without(0).with(0, 
+            useHashJoins(from.soleElement(), evaluator));
+    }
+
+    /**
+     * @internal
+     * If we are reading all of a single table, and ordering by a
+     * column which an index starts with, read the table in index
+     * order and skip the sort.
+     */
+    private void useIndexForOrder(Evaluator evaluator) {
+        ColumnOrderItem item = orderBy.singleColumn();
+        if (item == null || !(groupBy instanceof NoGroupBy)
+            || from.size() != 1 || !(from.element(0) instanceof FromTable)) {
+            return;
+        }
+        FromTable table = (FromTable) from.element(0);
+        SingleColumn column = resolveColumn(
+            item.column(), table.dummyRow(evaluator), evaluator);
+        if (column == null || !column.matchesAliasOrTable(table.alias)) {
+            return;
+        }
+
+        String columnName = column.columnName();
+        Index index = evaluator.table(table).indexStartingWith(columnName);
+        if (index == null || index.highestValue() instanceof BinaryCell) {
+            // Binary columns have no SQL order for the index to match
+            return;
+        }
+        from = from.without(0).with(0, 
+            new IndexOrderScan(table, columnName, item.isAscending()));
+        sortedByIndex = true;
+    }
+
+    /**
+     * @internal
+     * Replace each join whose ON condition equates a column from
+     * one side with a column from the other by a {@link HashJoin}.
+     */
+    private FromElement useHashJoins(FromElement element, 
+        Evaluator evaluator) {
+        if (!(element instanceof InnerJoin || element instanceof LeftJoin)) {
+            return element;
+        }
+
+        Join join = (Join) element;
+        FromElement left = useHashJoins(join.left, evaluator);
+        FromElement right = useHashJoins(join.right, evaluator);
+        Join nestedLoop = join instanceof LeftJoin ?
+            (Join) new LeftJoin(left, right, join.condition) :
+            new InnerJoin(left, right, join.condition);
+
+        ResultRow leftDummyRow = left.dummyRow(evaluator);
+        ResultRow rightDummyRow = right.dummyRow(evaluator);
+        ResultRow dummyRow = leftDummyRow.combine(rightDummyRow);
+        
+        List<Condition> conjuncts = new ArrayList<Condition>();
+        addConjuncts(join.condition, conjuncts);
+        L<Expression> leftKeys = new L<Expression>();
+        L<Expression> rightKeys = new L<Expression>();
+        for (Condition conjunct : conjuncts) {
+            if (!(conjunct instanceof Equal)) {
+                continue;
+            }
+            Equal equal = (Equal) conjunct;
+            SingleColumn first = resolveColumn(equal.leftSide, dummyRow, evaluator);
+            SingleColumn second = resolveColumn(equal.rightSide, dummyRow, evaluator);
+            if (first == null || second == null) {
+                continue;
+            }
+
+            if (onlyIn(first, leftDummyRow, rightDummyRow)
+                && onlyIn(second, rightDummyRow, leftDummyRow)) {
+                leftKeys.add(first);
+                rightKeys.add(second);
+            }
+            else if (onlyIn(second, leftDummyRow, rightDummyRow)
+                && onlyIn(first, rightDummyRow, leftDummyRow)) {
+                leftKeys.add(second);
+                rightKeys.add(first);
+            }
+        }
+
+        if (leftKeys.isEmpty()) {
+            return nestedLoop;
+        }
+        return new HashJoin(nestedLoop, 
+            leftKeys.asImmutable(), rightKeys.asImmutable());
+    }
+
+    private static SingleColumn resolveColumn(Expression expression, 
+        ResultRow dummyRow, Evaluator evaluator) {
+        if (!(expression instanceof SingleColumn)) {
+            return null;
+        }
+        try {
+            Expression resolved = expression.resolve(dummyRow, evaluator);
+            return resolved instanceof SingleColumn ? 
+                (SingleColumn) resolved : null;
+        }
+        catch (MayflyException e) {
+            // For example, a column from an outer query
+            return null;
+        }
+    }
+
+    private static boolean onlyIn(SingleColumn column, 
+        ResultRow mine, ResultRow other) {
+        return refersTo(column, mine) && !refersTo(column, other);
+    }
+
+    private static boolean refersTo(SingleColumn column, ResultRow row) {
+        try {
+            column.check(row);
+            return true;
+        }
+        catch (MayflyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @internal
+     * If we are reading a single table, and WHERE has a condition
+     * which an index on that table can help with, read the table
+     * through the index.  The condition also stays in WHERE (see
+     * {@link IndexScan}).
+     */
+    private void useIndex(Evaluator evaluator) {
+        if (from.size() != 1 || !(from.element(0) instanceof FromTable)) {
+            return;
+        }
+        FromTable table = (FromTable) from.element(0);
+        ResultRow tableDummyRow = table.dummyRow(evaluator);
+        TableData data = evaluator.table(table);
+
+        List<Condition> conjuncts = new ArrayList<Condition>();
+        addConjuncts(where, conjuncts);
+        IndexScan best = null;
+        for (Condition conjunct : conjuncts) {
+            IndexScan scan = indexScan(
+                conjunct, table, data, tableDummyRow, evaluator);
+            if (scan != null && 
+                (best == null || 
+                    (scan.isPointLookup() && !best.isPointLookup()))) {
+                best = scan;
+            }
+        }
+        
+        if (best != null) {
+            from = from.without(0).with(0, best);
+        }
+    }
+
+    private static void addConjuncts(Condition condition, List<Condition> result) {
+        if (condition instanceof And) {
+            And and = (And) condition;
+            addConjuncts(and.leftSide, result);
+            addConjuncts(and.rightSide, result);
+        }
+        else {
+            result.add(condition);
+        }
+    }
+
+    private static IndexScan indexScan(Condition conjunct, 
+        FromTable table, TableData data, ResultRow tableDummyRow,
+        Evaluator evaluator) {
+        SingleColumn column = IndexScan.indexableColumn(conjunct);
+        if (column == null) {
+            return null;
+        }
+
+        Expression resolved;
+        try {
+            resolved = column.resolve(tableDummyRow, evaluator);
+        }
+        catch (MayflyException e) {
+            // For example, a column from an outer query
+            return null;
+        }
+        if (!(resolved instanceof SingleColumn)) {
+            return null;
+        }
+        SingleColumn resolvedColumn = (SingleColumn) resolved;
+        if (!resolvedColumn.matchesAliasOrTable(table.alias)) {
+            return null;
+        }
+
+        String columnName = resolvedColumn.columnName();
+        if (data.indexStartingWith(columnName) == null) {
+            return null;
+        }
+        return new IndexScan(table, columnName, conjunct);
     }
 
     private void moveAllWhereToOn(Evaluator evaluator) {
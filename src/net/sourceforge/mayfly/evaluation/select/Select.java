@@ -5,6 +5,7 @@ import net.sourceforge.mayfly.MayflyResultSet;
 import net.sourceforge.mayfly.datastore.Cell;
 import net.sourceforge.mayfly.datastore.DataStore;
 import net.sourceforge.mayfly.evaluation.Aggregator;
+import net.sourceforge.mayfly.evaluation.Parameters;
 import net.sourceforge.mayfly.evaluation.command.Command;
 import net.sourceforge.mayfly.evaluation.command.UpdateStore;
 import net.sourceforge.mayfly.evaluation.condition.Condition;
@@ -32,16 +33,37 @@ public class Select extends Command {
 
     public Select(What what, From from, Condition where, Aggregator groupBy, 
         boolean distinct, OrderBy orderBy, Limit limit, Location location) {
+        this(what, from, where, groupBy,
+            distinct ? new IsDistinct() : new NotDistinct(),
+            orderBy, limit, location);
+    }
+
+    private Select(What what, From from, Condition where, Aggregator groupBy, 
+        Distinct distinct, OrderBy orderBy, Limit limit, Location location) {
         this.what = what;
         this.from = from;
         this.where = where;
         this.groupBy = groupBy;
-        this.distinct = distinct ? new IsDistinct() : new NotDistinct();
+        this.distinct = distinct;
         this.orderBy = orderBy;
         this.limit = limit;
         this.location = location;
     }
 
+    /**
+     * Only binds parameters in the WHERE clause, which is where
+     * nearly all of them go.  Any elsewhere are left unbound.
+     */
+    @Override
+    public Command bind(Parameters parameters) {
+        Condition newWhere = where.bind(parameters);
+        if (newWhere == where) {
+            return this;
+        }
+        return new Select(what, from, newWhere, groupBy, distinct,
+            orderBy, limit, location);
+    }
+
     @Override
     public MayflyResultSet select(Evaluator evaluator, Cell lastIdentity) {
         return plan(evaluator).asResultSet();
@@ -1,6 +1,7 @@
 package net.sourceforge.mayfly.evaluation.what;
 
 import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.evaluation.Accumulator;
 import net.sourceforge.mayfly.evaluation.Expression;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.ResultRows;
@@ -42,6 +43,11 @@ public class AliasedExpression extends Expression {
         return expression.aggregate(rows);
     }
 
+    @Override
+    public Accumulator accumulator() {
+        return expression.accumulator();
+    }
+
     @Override
     public Cell evaluate(ResultRow row, Evaluator evaluator) {
         return expression.evaluate(row, evaluator);
@@ -133,12 +133,12 @@ public class JdbcConnection implements Connection {
 
     public void setTransactionIsolation(int level) throws SQLException {
         checkClosed();
-        // Not sure what we should do with this.
+        mayflyConnection.setTransactionIsolation(level);
     }
 
     public int getTransactionIsolation() throws SQLException {
         checkClosed();
-        return TRANSACTION_NONE;
+        return mayflyConnection.getTransactionIsolation();
     }
 
     public SQLWarning getWarnings() throws SQLException {
@@ -5,9 +5,7 @@ import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.UnimplementedException;
 import net.sourceforge.mayfly.datastore.TimestampCell;
 import net.sourceforge.mayfly.evaluation.command.Command;
-import net.sourceforge.mayfly.parser.Lexer;
-import net.sourceforge.mayfly.parser.Parser;
-import net.sourceforge.mayfly.parser.Substitutor;
+import net.sourceforge.mayfly.parser.PreparedCommand;
 import net.sourceforge.mayfly.util.ImmutableByteArray;
 
 import org.joda.time.LocalDate;
@@ -34,6 +32,7 @@ import java.sql.SQLWarning;
 import java.sql.SQLXML;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Calendar;
 import java.util.List;
@@ -43,22 +42,20 @@ public class JdbcPreparedStatement implements PreparedStatement {
 
     private final MayflyConnection mayflyConnection;
 
-    private final String sql;
+    private final PreparedCommand command;
     private Vector parameters;
     private final int parameterCount;
     private BitSet parameterSpecified;
+    private List<Command> batch = new ArrayList<Command>();
 
     JdbcPreparedStatement(String sql, MayflyConnection mayflyConnection) 
     throws SQLException {
         this.mayflyConnection = mayflyConnection;
 
         try {
-            this.sql = sql;
+            this.command = mayflyConnection.prepare(sql);
             this.parameters = new Vector();
-
-            List tokens = new Lexer(sql).tokens();
-            parameterCount = Substitutor.parameterCount(tokens);
-            new Parser(tokens, true).parse();
+            parameterCount = command.parameterCount();
 
             parameters.setSize(parameterCount);
             parameterSpecified = new BitSet(parameterCount);
@@ -86,10 +83,11 @@ public class JdbcPreparedStatement implements PreparedStatement {
     }
 
     private Command fromTokens() throws SQLException {
-        return Command.fromTokens(substitutedTokens(), mayflyConnection.options());
+        checkParameters();
+        return command.bind(parameters);
     }
 
-    private List substitutedTokens() throws SQLException {
+    private void checkParameters() throws SQLException {
         // This didn't work for me.  Perhaps a bug in which libgcj
         // was returning an answer past the length of the bitset, but
         // I didn't investigate enough to be sure.
@@ -104,8 +102,6 @@ public class JdbcPreparedStatement implements PreparedStatement {
                 throw new MayflyException("Parameter " + oneBased + " missing");
             }
         }
-        
-        return Substitutor.substitute(new Lexer(sql).tokens(), parameters);
     }
 
     public void setNull(int oneBased, int sqlType) throws SQLException {
@@ -240,7 +236,11 @@ public class JdbcPreparedStatement implements PreparedStatement {
     }
 
     public void addBatch() throws SQLException {
-        throw new UnimplementedException();
+        try {
+            batch.add(fromTokens());
+        } catch (MayflyException e) {
+            throw e.asSqlException();
+        }
     }
 
     public void setCharacterStream(int parameterIndex, Reader reader, int length)
@@ -411,11 +411,13 @@ public class JdbcPreparedStatement implements PreparedStatement {
     }
 
     public void clearBatch() throws SQLException {
-        throw new UnimplementedException();
+        batch.clear();
     }
 
     public int[] executeBatch() throws SQLException {
-        throw new UnimplementedException();
+        List<Command> commands = batch;
+        batch = new ArrayList<Command>();
+        return mayflyConnection.executeBatch(commands);
     }
 
     public Connection getConnection() throws SQLException {
@@ -3,16 +3,21 @@ package net.sourceforge.mayfly.jdbc;
 import net.sourceforge.mayfly.MayflyConnection;
 import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.UnimplementedException;
+import net.sourceforge.mayfly.evaluation.command.Command;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 public class JdbcStatement implements Statement {
 
     private final MayflyConnection mayflyConnection;
+    private List<String> batch = new ArrayList<String>();
 
     public JdbcStatement(MayflyConnection mayflyConnection) {
         this.mayflyConnection = mayflyConnection;
@@ -124,15 +129,31 @@ public class JdbcStatement implements Statement {
     }
 
     public void addBatch(String sql) throws SQLException {
-        throw new UnimplementedException();
+        batch.add(sql);
     }
 
     public void clearBatch() throws SQLException {
-        throw new UnimplementedException();
+        batch.clear();
     }
 
     public int[] executeBatch() throws SQLException {
-        throw new UnimplementedException();
+        List<Command> commands = new ArrayList<Command>();
+        try {
+            for (String sql : batch) {
+                commands.add(
+                    Command.fromSql(sql, mayflyConnection.options()));
+            }
+        }
+        catch (MayflyException e) {
+            batch.clear();
+            BatchUpdateException failure = 
+                new BatchUpdateException(e.getMessage(), new int[0]);
+            failure.initCause(e.asSqlException());
+            throw failure;
+        }
+
+        batch.clear();
+        return mayflyConnection.executeBatch(commands);
     }
 
     public Connection getConnection() throws SQLException {
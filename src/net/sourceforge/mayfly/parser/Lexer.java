@@ -43,6 +43,8 @@ public class Lexer {
 
     private int current;
     private List tokens;
+    private boolean started;
+    private boolean atEndOfFile;
 
     public Lexer(String sql) {
         this(new StringReader(sql), sql);
@@ -70,8 +72,9 @@ public class Lexer {
     }
 
     public List tokens() {
-        startCommand();
-        List tokens = lex();
+        List tokens = new ArrayList();
+        while (lexCommand(tokens)) {
+        }
         if (commands == null) {
             return tokens;
         }
@@ -80,6 +83,34 @@ public class Lexer {
         }
     }
 
+    /**
+     * Lex just as far as the end of the next command.  Reading
+     * a script this way, one command at a time, means we only
+     * hold on to the tokens (and text) of one command, however
+     * long the script is.
+     * 
+     * @return The tokens of the command, ending with the
+     * semicolon or end of file token which ends it, or null
+     * if we have already returned the end of file.
+     */
+    public List nextCommandTokens() {
+        if (atEndOfFile) {
+            return null;
+        }
+
+        List tokens = new ArrayList();
+        lexCommand(tokens);
+        if (commands == null) {
+            return tokens;
+        }
+        else {
+            List result = attachCommandsToEachToken(tokens);
+            commands.clear();
+            commandLocations.clear();
+            return result;
+        }
+    }
+
     private List attachCommandsToEachToken(List tokens) {
         List result = new ArrayList();
         for (int i = 0; i < tokens.size(); ++i) {
@@ -92,11 +123,21 @@ public class Lexer {
         return result;
     }
 
-    private List lex() {
-        tokens = new ArrayList();
-        current = nextCharacter();
-        markTokenStart();
-        characterLoop:
+    /**
+     * Add the tokens through the end of the next command.
+     * 
+     * @return true if the command ended with a semicolon (so there
+     * may be more commands), or false if it ended at end of file.
+     */
+    private boolean lexCommand(List tokens) {
+        this.tokens = tokens;
+        if (!started) {
+            started = true;
+            startCommand();
+            current = nextCharacter();
+            markTokenStart();
+        }
+
         while (true) {
             switch (current) {
             case '.':
@@ -107,7 +148,7 @@ public class Lexer {
                 endOfCommand();
                 current = nextCharacter();
                 addToken(tokens, TokenType.SEMICOLON, ";");
-                break;
+                return true;
             case ',':
                 current = nextCharacter();
                 addToken(tokens, TokenType.COMMA, ",");
@@ -323,7 +364,8 @@ public class Lexer {
             case -1:
                 addEndOfFile(tokens);
                 endOfCommand();
-                break characterLoop;
+                atEndOfFile = true;
+                return false;
             case '\'': {
                 StringBuilder text = new StringBuilder();
                 text.append("'");
@@ -355,7 +397,6 @@ public class Lexer {
                 throw new MayflyException("unexpected character " + describeCharacter(current));
             }
         }
-        return tokens;
     }
 
     private void lexIdentifierOrHex() {
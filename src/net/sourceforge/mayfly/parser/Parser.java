@@ -37,6 +37,7 @@ import net.sourceforge.mayfly.evaluation.Expression;
 import net.sourceforge.mayfly.evaluation.GroupBy;
 import net.sourceforge.mayfly.evaluation.GroupItem;
 import net.sourceforge.mayfly.evaluation.NoGroupBy;
+import net.sourceforge.mayfly.evaluation.ParameterValue;
 import net.sourceforge.mayfly.evaluation.ResultRow;
 import net.sourceforge.mayfly.evaluation.Value;
 import net.sourceforge.mayfly.evaluation.ValueList;
@@ -93,6 +94,7 @@ import net.sourceforge.mayfly.evaluation.expression.Minimum;
 import net.sourceforge.mayfly.evaluation.expression.Minus;
 import net.sourceforge.mayfly.evaluation.expression.Multiply;
 import net.sourceforge.mayfly.evaluation.expression.NullExpression;
+import net.sourceforge.mayfly.evaluation.expression.ParameterMarker;
 import net.sourceforge.mayfly.evaluation.expression.Plus;
 import net.sourceforge.mayfly.evaluation.expression.RealTimeSource;
 import net.sourceforge.mayfly.evaluation.expression.ScalarSubselect;
@@ -157,7 +159,14 @@ public class Parser {
     private List tokens;
     private Token currentToken;
 
+    /**
+     * Where more tokens come from when we run out, if we are
+     * reading a script a command at a time.
+     */
+    private final Lexer lexer;
+
     private final boolean allowParameters;
+    private int parameterCount = 0;
     
     private final TimeSource timeSource;
     private final Options options;
@@ -168,10 +177,17 @@ public class Parser {
     
     /**
      * Create a parser which reads input from a Reader.
+     * The input is read and lexed a command at a time, as
+     * the parser gets to it (see {@link #nextCommand()}).
      * The caller is responsible for closing the Reader.
      */
     public Parser(Reader sql, Options options) {
-        this(new Lexer(sql).tokens(), false, new RealTimeSource(), options);
+        this(new Lexer(sql), options);
+    }
+
+    private Parser(Lexer lexer, Options options) {
+        this(lexer.nextCommandTokens(), lexer, false, new RealTimeSource(),
+            options);
     }
 
     /**
@@ -192,8 +208,14 @@ public class Parser {
     }
 
     public Parser(List tokens, boolean allowParameters, 
+        TimeSource timeSource, Options options) {
+        this(tokens, null, allowParameters, timeSource, options);
+    }
+
+    private Parser(List tokens, Lexer lexer, boolean allowParameters, 
         TimeSource timeSource, Options options) {
         this.tokens = tokens;
+        this.lexer = lexer;
         this.currentToken = tokens.isEmpty() ? null : (Token) tokens.get(0);
         this.allowParameters = allowParameters;
         this.timeSource = timeSource;
@@ -203,18 +225,41 @@ public class Parser {
     public List parseCommands() {
         List commands = new ArrayList();
         while (true) {
-            if (consumeIfMatches(TokenType.END_OF_FILE)) {
+            Command command = nextCommand();
+            if (command == null) {
                 return commands;
             }
+            commands.add(command);
+        }
+    }
+
+    /**
+     * Parse the next of a series of commands separated by
+     * semicolons.  When reading from a Reader, only the input
+     * through this command has been read, so the caller can
+     * execute each command before the next one is parsed.
+     * 
+     * @return The command, or null if there are no more.
+     */
+    public Command nextCommand() {
+        while (true) {
+            if (currentToken == null) {
+                /* We already consumed the end of file. */
+                return null;
+            }
+            else if (consumeIfMatches(TokenType.END_OF_FILE)) {
+                return null;
+            }
             else if (consumeIfMatches(TokenType.SEMICOLON)) {
                 
             }
             else {
-                commands.add(parseCommand());
+                Command command = parseCommand();
                 if (currentToken.type != TokenType.END_OF_FILE
                     && currentToken.type != TokenType.SEMICOLON) {
                     throw new ParserException("end of command", currentToken);
                 }
+                return command;
             }
         }
     }
@@ -326,7 +371,7 @@ public class Parser {
             do {
                 names.add(consumeIdentifier());
                 expectAndConsume(EQUAL);
-                values = values.with(parseAndEvaluate());
+                values = parseAndEvaluate(values);
             } while (consumeIfMatches(TokenType.COMMA));
             return new Insert(table, new ImmutableList(names), values, 
                 start.combine(values.location));
@@ -435,23 +480,29 @@ public class Parser {
 
         if (currentToken.type != CLOSE_PAREN) {
             do {
-                values = values.with(parseAndEvaluate());
+                values = parseAndEvaluate(values);
             } while (consumeIfMatches(TokenType.COMMA));
         }
         Location end = expectAndConsume(CLOSE_PAREN).location;
         return values.with(end);
     }
 
-    private Value parseAndEvaluate() {
+    private ValueList parseAndEvaluate(ValueList values) {
+        int parametersBefore = parameterCount;
         Expression expression = parseExpressionOrNull();
         if (expression == null) {
             // default value
-            return new Value(null, Location.UNKNOWN);
+            return values.with(new Value(null, Location.UNKNOWN));
         }
         else {
             Cell cell = expression.evaluate(
                 PSEUDO_ROW_FOR_VALUE_CONSTRUCTOR);
-            return new Value(cell, expression.location);
+            if (parameterCount != parametersBefore) {
+                return values.with(new ParameterValue(expression, 
+                    parameterCount - parametersBefore, 
+                    PSEUDO_ROW_FOR_VALUE_CONSTRUCTOR));
+            }
+            return values.with(new Value(cell, expression.location));
         }
     }
 
@@ -1323,8 +1374,7 @@ public class Parser {
             return parseQuotedString();
         }
         else if (currentToken.type == TokenType.PARAMETER) {
-            return new NonBooleanParserExpression(
-                new IntegerLiteral(parameterDummy()));
+            return new NonBooleanParserExpression(parseParameter());
         }
         else if (consumeIfMatches(TokenType.KEYWORD_null)) {
             throw new FoundNullLiteral(start);
@@ -1392,15 +1442,29 @@ public class Parser {
         }
     }
 
+    private ParameterMarker parseParameter() {
+        checkParametersAllowed();
+        Token parameter = expectAndConsume(TokenType.PARAMETER);
+        return new ParameterMarker(parameterCount++, parameter.location);
+    }
+
+    /**
+     * For a parameter where the parser needs the value itself,
+     * like LIMIT.  Binding leaves such a parameter alone, so
+     * the statement gets parsed again with the value in place.
+     */
     private int parameterDummy() {
-        if (allowParameters) {
-            expectAndConsume(TokenType.PARAMETER);
+        checkParametersAllowed();
+        expectAndConsume(TokenType.PARAMETER);
+        ++parameterCount;
 
-            /* We are just checking the syntax, so this value won't
-               be used anywhere */
-            return 0;
-        }
-        else {
+        /* We are just checking the syntax, so this value won't
+           be used anywhere */
+        return 0;
+    }
+
+    private void checkParametersAllowed() {
+        if (!allowParameters) {
             throw new MayflyException(
                 "Attempt to specify '?' outside a prepared statement",
                 currentToken.location);
@@ -1943,6 +2007,12 @@ public class Parser {
      */
     private Token consume() {
         Token consumedToken = (Token) tokens.remove(0);
+        if (tokens.isEmpty() && lexer != null) {
+            List more = lexer.nextCommandTokens();
+            if (more != null) {
+                tokens = more;
+            }
+        }
         this.currentToken = tokens.isEmpty() ? null : (Token) tokens.get(0);
         return consumedToken;
     }
@@ -0,0 +1,78 @@
+package net.sourceforge.mayfly.parser;
+
+import net.sourceforge.mayfly.MayflyException;
+import net.sourceforge.mayfly.Options;
+import net.sourceforge.mayfly.evaluation.Parameters;
+import net.sourceforge.mayfly.evaluation.command.Command;
+import net.sourceforge.mayfly.evaluation.expression.ParameterMarker;
+import net.sourceforge.mayfly.evaluation.expression.RealTimeSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @internal
+ * The SQL for a prepared statement, lexed and parsed once.
+ *
+ * The parsed command has a {@link ParameterMarker} for each
+ * parameter, and each execution binds the values into a copy of
+ * it.  Where binding cannot produce the command which parsing
+ * the SQL with the values in place would (a LIMIT, a null inside
+ * an expression, a marker in a part of the command which does
+ * not bind), we fall back to substituting the parameters into
+ * the saved tokens and parsing the result (see {@link Substitutor}).
+ *
+ * Instances are immutable, so one can be shared between
+ * statements (and threads) which prepare the same SQL.
+ */
+public class PreparedCommand {
+
+    private final List tokens;
+    private final int parameterCount;
+    private final Options options;
+    private final Command parsed;
+
+    public PreparedCommand(String sql, Options options) {
+        this.tokens = Collections.unmodifiableList(new Lexer(sql).tokens());
+        this.parameterCount = Substitutor.parameterCount(tokens);
+        this.options = options;
+
+        this.parsed = new Parser(
+            new ArrayList(tokens), true, new RealTimeSource(), options)
+            .parse();
+    }
+
+    public int parameterCount() {
+        return parameterCount;
+    }
+
+    public Options options() {
+        return options;
+    }
+
+    /**
+     * @param parameters One value for each parameter, in the
+     * form which {@link Substitutor} expects.
+     */
+    public Command bind(List parameters) {
+        if (parameterCount == 0) {
+            return parsed;
+        }
+
+        Parameters binding = new Parameters(parameters);
+        try {
+            Command bound = parsed.bind(binding);
+            if (binding.boundCount() == parameterCount) {
+                return bound;
+            }
+        }
+        catch (MayflyException e) {
+            /* Evaluating a bound value failed.  Parsing will fail
+               too, but let it report the error in the usual way. */
+        }
+        return Command.fromTokens(
+            Substitutor.substitute(tokens, parameters), options);
+    }
+
+}
@@ -6,6 +6,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 public class ImmutableByteArray {
     
@@ -79,4 +80,15 @@ public class ImmutableByteArray {
         return bytes.length;
     }
 
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ImmutableByteArray
+            && Arrays.equals(((ImmutableByteArray) other).bytes, bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
 }
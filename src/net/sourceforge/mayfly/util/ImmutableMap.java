@@ -1,121 +1,273 @@
 package net.sourceforge.mayfly.util;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
-public class ImmutableMap<K, V> implements Map<K, V> {
+/**
+ * @internal
+ * An immutable map which iterates in the order in which keys
+ * were first added (like {@link java.util.LinkedHashMap}).
+ *
+ * {@link #with(Object, Object)}, {@link #add(Object, Object)} and
+ * {@link #without(Object)} share structure with the map they
+ * start from, rather than copying it, so they take O(log32 n)
+ * time.  That matters because every change to a table goes
+ * through the map of tables in its schema and the map of schemas
+ * in the {@link net.sourceforge.mayfly.datastore.DataStore}.
+ *
+ * The entries live in a {@link PersistentVector}, in insertion
+ * order, and a {@link PersistentHashMap} finds the position of
+ * each key in the vector.  Removing a key leaves a hole in the
+ * vector; once there are more holes than entries we copy the
+ * entries into a new vector, so the holes cost O(1) amortized.
+ *
+ * Keys may not be null.
+ */
+public class ImmutableMap<K, V> extends AbstractMap<K, V> {
 
-    Map<K, V> delegate;
+    private final PersistentHashMap<K, Integer> positions;
+    private final PersistentVector<Entry<K, V>> entries;
 
     public ImmutableMap() {
-        delegate = Collections.EMPTY_MAP;
+        this(new PersistentHashMap<K, Integer>(),
+            new PersistentVector<Entry<K, V>>());
     }
 
     public ImmutableMap(Map map) {
-        delegate = Collections.unmodifiableMap(new LinkedHashMap(map));
+        ImmutableMap<K, V> result = new ImmutableMap<K, V>();
+        for (Iterator iter = map.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry entry = (Map.Entry) iter.next();
+            result = result.with((K) entry.getKey(), (V) entry.getValue());
+        }
+        this.positions = result.positions;
+        this.entries = result.entries;
     }
 
     public ImmutableMap(K key, V value) {
-        delegate = Collections.singletonMap(key, value);
+        this(new PersistentHashMap<K, Integer>().with(key, new Integer(0)),
+            new PersistentVector<Entry<K, V>>().with(
+                new Entry<K, V>(key, value)));
     }
 
-    private ImmutableMap(Map alreadyCopied, boolean didICopyIt) {
-        if (!didICopyIt) {
-            throw new RuntimeException("Call with() or public constructor instead");
-        }
-        delegate = Collections.unmodifiableMap(alreadyCopied);
+    private ImmutableMap(PersistentHashMap<K, Integer> positions,
+        PersistentVector<Entry<K, V>> entries) {
+        this.positions = positions;
+        this.entries = entries;
     }
 
-    public ImmutableMap with(K key, V value) {
-        Map copy = new LinkedHashMap(this);
-        copy.put(key, value);
-        return new ImmutableMap(copy, true);
+    /**
+     * Return a map which has key mapped to value.  If key is
+     * already present, it keeps its place in the iteration order.
+     */
+    public ImmutableMap<K, V> with(K key, V value) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            int index = position.intValue();
+            /* Like LinkedHashMap, keep the key we already have
+               (which matters if equal keys can differ, as with
+               case-insensitive names). */
+            Entry<K, V> newEntry = new Entry<K, V>(
+                entries.get(index).key, value);
+            return new ImmutableMap<K, V>(
+                positions, entries.replace(index, newEntry));
+        }
+        return new ImmutableMap<K, V>(
+            positions.with(key, new Integer(entries.size())),
+            entries.with(new Entry<K, V>(key, value)));
     }
-    
-    public ImmutableMap add(K key, V value) {
-        Map copy = new LinkedHashMap(this);
-        if (copy.put(key, value) != null) {
+
+    public ImmutableMap<K, V> add(K key, V value) {
+        if (positions.containsKey(key)) {
             throw new RuntimeException("key " + key + " already exists");
         }
-        return new ImmutableMap(copy, true);
+        return with(key, value);
     }
 
-    public ImmutableMap without(K key) {
-        Map copy = new LinkedHashMap(this);
-        if (copy.remove(key) == null) {
+    public ImmutableMap<K, V> without(K key) {
+        Integer position = positions.get(key);
+        if (position == null) {
             throw new NoSuchKeyException(key.toString());
         }
-        return new ImmutableMap(copy, true);
+        PersistentHashMap<K, Integer> newPositions = positions.without(key);
+        PersistentVector<Entry<K, V>> newEntries =
+            entries.replace(position.intValue(), null);
+        int holes = newEntries.size() - newPositions.size();
+        if (holes > newPositions.size() + 32) {
+            return compact(newEntries);
+        }
+        return new ImmutableMap<K, V>(newPositions, newEntries);
     }
 
+    private static <K, V> ImmutableMap<K, V> compact(
+        PersistentVector<Entry<K, V>> withHoles) {
+        PersistentHashMap<K, Integer> positions =
+            new PersistentHashMap<K, Integer>();
+        PersistentVector<Entry<K, V>> entries =
+            new PersistentVector<Entry<K, V>>();
+        for (Entry<K, V> entry : withHoles) {
+            if (entry != null) {
+                positions = positions.with(
+                    entry.key, new Integer(entries.size()));
+                entries = entries.with(entry);
+            }
+        }
+        return new ImmutableMap<K, V>(positions, entries);
+    }
 
-    
-
-
+    @Override
     public void clear() {
         throw new UnsupportedOperationException("Attempt to mutate immutable map");
     }
 
+    @Override
     public boolean containsKey(Object key) {
-        return delegate.containsKey(key);
+        return key != null && positions.containsKey(key);
     }
 
-    public boolean containsValue(Object value) {
-        return delegate.containsValue(value);
+    @Override
+    public V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        Integer position = positions.get(key);
+        if (position == null) {
+            return null;
+        }
+        return entries.get(position.intValue()).value;
     }
 
+    @Override
     public Set<Map.Entry<K, V>> entrySet() {
-        return delegate.entrySet();
-    }
+        return new AbstractSet<Map.Entry<K, V>>() {
 
-    @Override
-    public boolean equals(Object o) {
-        return delegate.equals(o);
-    }
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator<K, V>(entries.iterator());
+            }
 
-    public V get(Object key) {
-        return delegate.get(key);
-    }
+            @Override
+            public int size() {
+                return positions.size();
+            }
 
-    @Override
-    public int hashCode() {
-        return delegate.hashCode();
+        };
     }
 
+    @Override
     public boolean isEmpty() {
-        return delegate.isEmpty();
-    }
-
-    public Set<K> keySet() {
-        return delegate.keySet();
+        return positions.isEmpty();
     }
 
+    @Override
     public V put(K key, V value) {
         throw new UnsupportedOperationException("Attempt to mutate immutable map");
     }
 
+    @Override
     public void putAll(Map m) {
         throw new UnsupportedOperationException("Attempt to mutate immutable map");
     }
 
+    @Override
     public V remove(Object key) {
         throw new UnsupportedOperationException("Attempt to mutate immutable map");
     }
 
+    @Override
     public int size() {
-        return delegate.size();
+        return positions.size();
     }
 
-    public Collection<V> values() {
-        return delegate.values();
+    /**
+     * Skips the holes left by {@link ImmutableMap#without(Object)}.
+     */
+    private static class EntryIterator<K, V>
+    implements Iterator<Map.Entry<K, V>> {
+
+        private final Iterator<Entry<K, V>> underlying;
+        private Entry<K, V> next;
+
+        EntryIterator(Iterator<Entry<K, V>> underlying) {
+            this.underlying = underlying;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && underlying.hasNext()) {
+                next = underlying.next();
+            }
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> result = next;
+            advance();
+            return result;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException(
+                "Attempt to mutate immutable map");
+        }
+
     }
 
-    @Override
-    public String toString() {
-        return delegate.toString();
+    private static class Entry<K, V> implements Map.Entry<K, V> {
+
+        final K key;
+        final V value;
+
+        Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public V setValue(V value) {
+            throw new UnsupportedOperationException(
+                "Attempt to mutate immutable map");
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry entry = (Map.Entry) other;
+            return key.equals(entry.getKey()) &&
+                (value == null ?
+                    entry.getValue() == null :
+                    value.equals(entry.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+
     }
 
 }
@@ -0,0 +1,430 @@
+package net.sourceforge.mayfly.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * @internal
+ * An immutable hash map in which adding or removing a key
+ * copies only the path from the root to that key
+ * (a hash array mapped trie).  Each node consumes five bits of
+ * the hash code, so the trie is at most seven levels deep and
+ * lookups and updates are O(log32 n).
+ *
+ * Iteration order is unspecified.  Keys may not be null.
+ */
+public class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    public PersistentHashMap() {
+        this(null, 0);
+    }
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(Object key) {
+        if (root == null) {
+            return null;
+        }
+        return (V) root.find(0, hash(key), key);
+    }
+
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Return a map which has key mapped to value, replacing
+     * any existing mapping for key.  Values may not be null.
+     */
+    public PersistentHashMap<K, V> with(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value is required");
+        }
+        Leaf newLeaf = new Leaf(hash(key), key, value);
+        if (root == null) {
+            return new PersistentHashMap<K, V>(newLeaf, 1);
+        }
+        boolean[] added = new boolean[1];
+        Node newRoot = root.with(0, newLeaf, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<K, V>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Return a map without key.  If key is not present,
+     * return this map.
+     */
+    public PersistentHashMap<K, V> without(Object key) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.without(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<K, V>(newRoot, size - 1);
+    }
+
+    private static int hash(Object key) {
+        if (key == null) {
+            throw new NullPointerException("key is required");
+        }
+        return key.hashCode();
+    }
+
+    private static int slot(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    public Iterator<Map.Entry<K, V>> iterator() {
+        final List<Node> stack = new ArrayList<Node>();
+        if (root != null) {
+            stack.add(root);
+        }
+        return new Iterator<Map.Entry<K, V>>() {
+
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            public Map.Entry<K, V> next() {
+                while (!stack.isEmpty()) {
+                    Node node = stack.remove(stack.size() - 1);
+                    if (node instanceof Leaf) {
+                        return (Leaf) node;
+                    }
+                    node.pushChildren(stack);
+                }
+                throw new NoSuchElementException();
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException(
+                    "Attempt to mutate immutable map");
+            }
+
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("{");
+        for (Iterator<Map.Entry<K, V>> iter = iterator(); iter.hasNext();) {
+            Map.Entry<K, V> entry = iter.next();
+            result.append(entry.getKey());
+            result.append("=");
+            result.append(entry.getValue());
+            if (iter.hasNext()) {
+                result.append(", ");
+            }
+        }
+        result.append("}");
+        return result.toString();
+    }
+
+    private static abstract class Node {
+
+        abstract Object find(int shift, int hash, Object key);
+
+        /**
+         * Return this node if nothing changed, otherwise a
+         * new node.  Set added[0] if the key was not
+         * previously present.
+         */
+        abstract Node with(int shift, Leaf leaf, boolean[] added);
+
+        /**
+         * Return this node if the key is not present, null if
+         * the node is now empty, otherwise a new node.
+         */
+        abstract Node without(int shift, int hash, Object key);
+
+        abstract void pushChildren(List<Node> stack);
+
+    }
+
+    private static class Leaf extends Node implements Map.Entry {
+
+        final int hash;
+        final Object key;
+        final Object value;
+
+        Leaf(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            if (this.hash == hash && this.key.equals(key)) {
+                return value;
+            }
+            return null;
+        }
+
+        @Override
+        Node with(int shift, Leaf leaf, boolean[] added) {
+            if (hash == leaf.hash && key.equals(leaf.key)) {
+                if (value == leaf.value) {
+                    return this;
+                }
+                return leaf;
+            }
+            added[0] = true;
+            return merge(shift, this, leaf);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            if (this.hash == hash && this.key.equals(key)) {
+                return null;
+            }
+            return this;
+        }
+
+        @Override
+        void pushChildren(List<Node> stack) {
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException(
+                "Attempt to mutate immutable map");
+        }
+
+    }
+
+    private static Node merge(int shift, Leaf first, Leaf second) {
+        if (first.hash == second.hash) {
+            return new CollisionNode(first.hash, new Leaf[] { first, second });
+        }
+
+        int firstSlot = slot(first.hash, shift);
+        int secondSlot = slot(second.hash, shift);
+        if (firstSlot == secondSlot) {
+            return new BitmapNode(firstSlot,
+                new Node[] { merge(shift + BITS, first, second) });
+        }
+        else if (((first.hash >>> shift) & MASK) <
+            ((second.hash >>> shift) & MASK)) {
+            return new BitmapNode(firstSlot | secondSlot,
+                new Node[] { first, second });
+        }
+        else {
+            return new BitmapNode(firstSlot | secondSlot,
+                new Node[] { second, first });
+        }
+    }
+
+    /**
+     * Children are stored compactly, in the order of their
+     * bits in the bitmap.
+     */
+    private static class BitmapNode extends Node {
+
+        final int bitmap;
+        final Node[] children;
+
+        BitmapNode(int bitmap, Node[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = slot(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            return children[index(bit)].find(shift + BITS, hash, key);
+        }
+
+        @Override
+        Node with(int shift, Leaf leaf, boolean[] added) {
+            int bit = slot(leaf.hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) == 0) {
+                Node[] newChildren = new Node[children.length + 1];
+                System.arraycopy(children, 0, newChildren, 0, index);
+                newChildren[index] = leaf;
+                System.arraycopy(children, index,
+                    newChildren, index + 1, children.length - index);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newChildren);
+            }
+
+            Node child = children[index];
+            Node newChild = child.with(shift + BITS, leaf, added);
+            if (newChild == child) {
+                return this;
+            }
+            return new BitmapNode(bitmap, replace(children, index, newChild));
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            int bit = slot(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Node child = children[index];
+            Node newChild = child.without(shift + BITS, hash, key);
+            if (newChild == child) {
+                return this;
+            }
+
+            if (newChild != null) {
+                if (children.length == 1 && newChild instanceof Leaf) {
+                    return newChild;
+                }
+                return new BitmapNode(bitmap,
+                    replace(children, index, newChild));
+            }
+
+            if (children.length == 1) {
+                return null;
+            }
+            if (children.length == 2 && children[1 - index] instanceof Leaf) {
+                return children[1 - index];
+            }
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(children, index + 1,
+                newChildren, index, children.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, newChildren);
+        }
+
+        @Override
+        void pushChildren(List<Node> stack) {
+            for (int i = children.length - 1; i >= 0; --i) {
+                stack.add(children[i]);
+            }
+        }
+
+    }
+
+    /**
+     * Keys whose hash codes are identical in all 32 bits.
+     */
+    private static class CollisionNode extends Node {
+
+        final int hash;
+        final Leaf[] leaves;
+
+        CollisionNode(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < leaves.length; ++i) {
+                if (leaves[i].key.equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            if (hash != this.hash) {
+                return null;
+            }
+            int index = indexOf(key);
+            return index == -1 ? null : leaves[index].value;
+        }
+
+        @Override
+        Node with(int shift, Leaf leaf, boolean[] added) {
+            if (leaf.hash != hash) {
+                BitmapNode wrapper = new BitmapNode(
+                    slot(hash, shift), new Node[] { this });
+                return wrapper.with(shift, leaf, added);
+            }
+
+            int index = indexOf(leaf.key);
+            if (index == -1) {
+                Leaf[] newLeaves = new Leaf[leaves.length + 1];
+                System.arraycopy(leaves, 0, newLeaves, 0, leaves.length);
+                newLeaves[leaves.length] = leaf;
+                added[0] = true;
+                return new CollisionNode(hash, newLeaves);
+            }
+            if (leaves[index].value == leaf.value) {
+                return this;
+            }
+            Leaf[] newLeaves = (Leaf[]) replace(leaves, index, leaf);
+            return new CollisionNode(hash, newLeaves);
+        }
+
+        @Override
+        Node without(int shift, int hash, Object key) {
+            if (hash != this.hash) {
+                return this;
+            }
+            int index = indexOf(key);
+            if (index == -1) {
+                return this;
+            }
+            if (leaves.length == 2) {
+                return leaves[1 - index];
+            }
+            Leaf[] newLeaves = new Leaf[leaves.length - 1];
+            System.arraycopy(leaves, 0, newLeaves, 0, index);
+            System.arraycopy(leaves, index + 1,
+                newLeaves, index, leaves.length - index - 1);
+            return new CollisionNode(hash, newLeaves);
+        }
+
+        @Override
+        void pushChildren(List<Node> stack) {
+            for (int i = leaves.length - 1; i >= 0; --i) {
+                stack.add(leaves[i]);
+            }
+        }
+
+    }
+
+    private static Node[] replace(Node[] nodes, int index, Node newNode) {
+        Node[] result = nodes.clone();
+        result[index] = newNode;
+        return result;
+    }
+
+}
@@ -0,0 +1,349 @@
+package net.sourceforge.mayfly.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * @internal
+ * An immutable sorted map in which adding or removing a key
+ * copies only the path from the root to that key (a balanced
+ * AVL tree).  Lookups, updates and the start of a range scan
+ * are all O(log n).
+ *
+ * Keys are ordered by the comparator given to the constructor
+ * and may not be null.
+ */
+public class PersistentTreeMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+    private final Comparator<? super K> comparator;
+    private final Node root;
+    private final int size;
+
+    public PersistentTreeMap(Comparator<? super K> comparator) {
+        this(comparator, null, 0);
+    }
+
+    private PersistentTreeMap(
+        Comparator<? super K> comparator, Node root, int size) {
+        this.comparator = comparator;
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Build a map from keys which are already in ascending order
+     * (according to comparator), without comparing them.  This
+     * takes time linear in the number of keys, rather than the
+     * n log n of adding them one at a time.
+     *
+     * @param values The value for each key, in the same order.
+     */
+    public static <K, V> PersistentTreeMap<K, V> fromSorted(
+        Comparator<? super K> comparator, List<K> keys, List<V> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException(
+                keys.size() + " keys but " + values.size() + " values");
+        }
+        return new PersistentTreeMap<K, V>(comparator,
+            fromSorted(keys, values, 0, keys.size()), keys.size());
+    }
+
+    /**
+     * Splitting at the middle makes the sizes of the two halves
+     * differ by at most one, so their heights do too, which is
+     * all that the balancing in {@link #balance} requires.
+     */
+    private static Node fromSorted(List keys, List values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(keys.get(middle), values.get(middle),
+            fromSorted(keys, values, from, middle),
+            fromSorted(keys, values, middle + 1, to));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(K key) {
+        Node node = root;
+        while (node != null) {
+            int comparison = compare(key, node.key);
+            if (comparison < 0) {
+                node = node.left;
+            }
+            else if (comparison > 0) {
+                node = node.right;
+            }
+            else {
+                return (V) node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the greatest key, or null if the map is empty.
+     */
+    public K lastKey() {
+        if (root == null) {
+            return null;
+        }
+        Node node = root;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return (K) node.key;
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Return a map which has key mapped to value, replacing
+     * any existing mapping for key.  Values may not be null.
+     */
+    public PersistentTreeMap<K, V> with(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException("key is required");
+        }
+        if (value == null) {
+            throw new NullPointerException("value is required");
+        }
+        boolean[] added = new boolean[1];
+        Node newRoot = with(root, key, value, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentTreeMap<K, V>(
+            comparator, newRoot, added[0] ? size + 1 : size);
+    }
+
+    private Node with(Node node, K key, V value, boolean[] added) {
+        if (node == null) {
+            added[0] = true;
+            return new Node(key, value, null, null);
+        }
+        int comparison = compare(key, node.key);
+        if (comparison < 0) {
+            Node newLeft = with(node.left, key, value, added);
+            return newLeft == node.left ?
+                node : balance(node.key, node.value, newLeft, node.right);
+        }
+        else if (comparison > 0) {
+            Node newRight = with(node.right, key, value, added);
+            return newRight == node.right ?
+                node : balance(node.key, node.value, node.left, newRight);
+        }
+        else if (node.value == value) {
+            return node;
+        }
+        else {
+            return new Node(key, value, node.left, node.right);
+        }
+    }
+
+    /**
+     * Return a map without key.  If key is not present,
+     * return this map.
+     */
+    public PersistentTreeMap<K, V> without(K key) {
+        Node newRoot = without(root, key);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentTreeMap<K, V>(comparator, newRoot, size - 1);
+    }
+
+    private Node without(Node node, K key) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(key, node.key);
+        if (comparison < 0) {
+            Node newLeft = without(node.left, key);
+            return newLeft == node.left ?
+                node : balance(node.key, node.value, newLeft, node.right);
+        }
+        else if (comparison > 0) {
+            Node newRight = without(node.right, key);
+            return newRight == node.right ?
+                node : balance(node.key, node.value, node.left, newRight);
+        }
+        else if (node.left == null) {
+            return node.right;
+        }
+        else if (node.right == null) {
+            return node.left;
+        }
+        else {
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            return balance(successor.key, successor.value,
+                node.left, withoutFirst(node.right));
+        }
+    }
+
+    private static Node withoutFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value,
+            withoutFirst(node.left), node.right);
+    }
+
+    private int compare(K first, Object second) {
+        return comparator.compare(first, (K) second);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static Node balance(Object key, Object value,
+        Node left, Node right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.key, left.value, left.left,
+                    new Node(key, value, left.right, right));
+            }
+            else {
+                Node pivot = left.right;
+                return new Node(pivot.key, pivot.value,
+                    new Node(left.key, left.value, left.left, pivot.left),
+                    new Node(key, value, pivot.right, right));
+            }
+        }
+        else if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(right.key, right.value,
+                    new Node(key, value, left, right.left),
+                    right.right);
+            }
+            else {
+                Node pivot = right.left;
+                return new Node(pivot.key, pivot.value,
+                    new Node(key, value, left, pivot.left),
+                    new Node(right.key, right.value, pivot.right, right.right));
+            }
+        }
+        else {
+            return new Node(key, value, left, right);
+        }
+    }
+
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return iterator(null, null);
+    }
+
+    /**
+     * Iterate, in order, over the entries whose keys are
+     * between low and high (both inclusive).  A null bound
+     * means to start at the beginning, or go to the end.
+     */
+    public Iterator<Map.Entry<K, V>> iterator(final K low, final K high) {
+        final List<Node> stack = new ArrayList<Node>();
+        Node node = root;
+        while (node != null) {
+            if (low == null || compare(low, node.key) <= 0) {
+                stack.add(node);
+                node = node.left;
+            }
+            else {
+                node = node.right;
+            }
+        }
+
+        return new Iterator<Map.Entry<K, V>>() {
+
+            public boolean hasNext() {
+                if (stack.isEmpty()) {
+                    return false;
+                }
+                Node next = stack.get(stack.size() - 1);
+                return high == null || compare(high, next.key) >= 0;
+            }
+
+            public Map.Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Node result = stack.remove(stack.size() - 1);
+                for (Node node = result.right; node != null; node = node.left) {
+                    stack.add(node);
+                }
+                return result;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException(
+                    "Attempt to mutate immutable map");
+            }
+
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("{");
+        for (Iterator<Map.Entry<K, V>> iter = iterator(); iter.hasNext();) {
+            Map.Entry<K, V> entry = iter.next();
+            result.append(entry.getKey());
+            result.append("=");
+            result.append(entry.getValue());
+            if (iter.hasNext()) {
+                result.append(", ");
+            }
+        }
+        result.append("}");
+        return result.toString();
+    }
+
+    private static class Node implements Map.Entry {
+
+        final Object key;
+        final Object value;
+        final Node left;
+        final Node right;
+        final int height;
+
+        Node(Object key, Object value, Node left, Node right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException(
+                "Attempt to mutate immutable map");
+        }
+
+    }
+
+}
@@ -0,0 +1,268 @@
+package net.sourceforge.mayfly.util;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @internal
+ * An immutable list which can be extended without copying
+ * the whole thing.
+ *
+ * The elements live in a trie with 32 entries per node,
+ * plus a tail of up to 32 elements which have not yet been
+ * pushed into the trie.  Appending copies the tail and, once
+ * every 32 elements, the path from the root to the new leaf.
+ * Old versions are unaffected and share all unchanged nodes
+ * with the new one (which is what lets us hand out
+ * {@link net.sourceforge.mayfly.datastore.DataStore} snapshots
+ * without copying rows).
+ *
+ * A vector can also be a window onto part of another one
+ * (see {@link #subList(int, int)}), in which case it
+ * shares all of the underlying storage.
+ */
+public class PersistentVector<T> implements Iterable<T> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[0];
+
+    public static <T> PersistentVector<T> fromCollection(
+        Collection<? extends T> elements) {
+        PersistentVector<T> result = new PersistentVector<T>();
+        for (T element : elements) {
+            result = result.with(element);
+        }
+        return result;
+    }
+
+    /** Number of elements in the trie and tail, including any
+        which are outside our window. */
+    private final int count;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    /** The window which this vector presents.  For a vector which
+        is not the result of {@link #subList(int, int)}, this is
+        0 through count. */
+    private final int start;
+    private final int end;
+
+    public PersistentVector() {
+        this(0, BITS, EMPTY_NODE, EMPTY_NODE);
+    }
+
+    private PersistentVector(int count, int shift,
+        Object[] root, Object[] tail) {
+        this(count, shift, root, tail, 0, count);
+    }
+
+    private PersistentVector(int count, int shift,
+        Object[] root, Object[] tail, int start, int end) {
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+        this.start = start;
+        this.end = end;
+    }
+
+    public int size() {
+        return end - start;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public T get(int index) {
+        checkIndex(index);
+        int position = start + index;
+        return (T) leafFor(position)[position & MASK];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(
+                "index " + index + " in vector of size " + size());
+        }
+    }
+
+    private int tailOffset() {
+        if (count < WIDTH) {
+            return 0;
+        }
+        return ((count - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] leafFor(int position) {
+        if (position >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(position >>> level) & MASK];
+        }
+        return node;
+    }
+
+    public PersistentVector<T> with(T newElement) {
+        if (start != 0 || end != count) {
+            return copyOfWindow().with(newElement);
+        }
+
+        if (count - tailOffset() < WIDTH) {
+            Object[] newTail = new Object[tail.length + 1];
+            System.arraycopy(tail, 0, newTail, 0, tail.length);
+            newTail[tail.length] = newElement;
+            return new PersistentVector<T>(count + 1, shift, root, newTail);
+        }
+
+        Object[] newRoot;
+        int newShift = shift;
+        if ((count >>> BITS) > (1 << shift)) {
+            // root is full; grow the trie by one level
+            newRoot = new Object[] { root, newPath(shift, tail) };
+            newShift += BITS;
+        }
+        else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<T>(count + 1, newShift,
+            newRoot, new Object[] { newElement });
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int subIndex = ((count - 1) >>> level) & MASK;
+        Object[] result = copyOf(parent, Math.max(parent.length, subIndex + 1));
+        Object[] toInsert;
+        if (level == BITS) {
+            toInsert = tailNode;
+        }
+        else if (subIndex < parent.length) {
+            toInsert = pushTail(level - BITS, (Object[]) parent[subIndex],
+                tailNode);
+        }
+        else {
+            toInsert = newPath(level - BITS, tailNode);
+        }
+        result[subIndex] = toInsert;
+        return result;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        return new Object[] { newPath(level - BITS, node) };
+    }
+
+    /**
+     * Return a vector which is like this one except that the
+     * element at index is replaced.  Only the path to that
+     * element is copied.
+     */
+    public PersistentVector<T> replace(int index, T newElement) {
+        checkIndex(index);
+        int position = start + index;
+        if (position >= tailOffset()) {
+            Object[] newTail = copyOf(tail, tail.length);
+            newTail[position & MASK] = newElement;
+            return new PersistentVector<T>(
+                count, shift, root, newTail, start, end);
+        }
+        return new PersistentVector<T>(count, shift,
+            replace(shift, root, position, newElement), tail, start, end);
+    }
+
+    private static Object[] replace(
+        int level, Object[] node, int position, Object newElement) {
+        Object[] result = copyOf(node, node.length);
+        if (level == 0) {
+            result[position & MASK] = newElement;
+        }
+        else {
+            int subIndex = (position >>> level) & MASK;
+            result[subIndex] = replace(level - BITS,
+                (Object[]) node[subIndex], position, newElement);
+        }
+        return result;
+    }
+
+    private static Object[] copyOf(Object[] original, int newLength) {
+        Object[] copy = new Object[newLength];
+        System.arraycopy(original, 0, copy, 0,
+            Math.min(original.length, newLength));
+        return copy;
+    }
+
+    /**
+     * Return a view of part of this vector.  Nothing is
+     * copied.  Calling {@link #with(Object)} on the
+     * result will copy the elements in the window, unless
+     * the window happens to end at the end of the
+     * underlying storage and start at its beginning.
+     */
+    public PersistentVector<T> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException(
+                "sublist " + fromIndex + " to " + toIndex +
+                " of vector of size " + size());
+        }
+        return new PersistentVector<T>(count, shift, root, tail,
+            start + fromIndex, start + toIndex);
+    }
+
+    private PersistentVector<T> copyOfWindow() {
+        PersistentVector<T> result = new PersistentVector<T>();
+        for (T element : this) {
+            result = result.with(element);
+        }
+        return result;
+    }
+
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            int position = start;
+            Object[] leaf = null;
+
+            public boolean hasNext() {
+                return position < end;
+            }
+
+            public T next() {
+                if (position >= end) {
+                    throw new NoSuchElementException();
+                }
+                if (leaf == null || (position & MASK) == 0) {
+                    leaf = leafFor(position);
+                }
+                return (T) leaf[position++ & MASK];
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException(
+                    "Attempt to mutate immutable vector");
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("[");
+        for (Iterator<T> iter = iterator(); iter.hasNext();) {
+            result.append(iter.next());
+            if (iter.hasNext()) {
+                result.append(", ");
+            }
+        }
+        result.append("]");
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,152 @@
+package net.sourceforge.mayfly;
+
+import junit.framework.TestCase;
+
+import net.sourceforge.mayfly.datastore.NullCell;
+import net.sourceforge.mayfly.evaluation.command.Insert;
+import net.sourceforge.mayfly.parser.PreparedCommand;
+import net.sourceforge.mayfly.util.L;
+
+public class CommandCacheTest extends TestCase {
+
+    public void testSameSql() throws Exception {
+        CommandCache cache = new CommandCache();
+        Options options = new Options();
+        PreparedCommand first = cache.prepare("select x from foo", options);
+        assertSame(first, cache.prepare("select x from foo", options));
+        assertNotSame(first, cache.prepare("select y from foo", options));
+        assertEquals(2, cache.size());
+    }
+
+    public void testParsedOnceWithoutParameters() throws Exception {
+        PreparedCommand command =
+            new PreparedCommand("select x from foo", new Options());
+        assertEquals(0, command.parameterCount());
+        assertSame(command.bind(new L()), command.bind(new L()));
+    }
+
+    public void testParameters() throws Exception {
+        PreparedCommand command = new PreparedCommand(
+            "select x from foo where y = ? and z = ?", new Options());
+        assertEquals(2, command.parameterCount());
+        assertNotSame(
+            command.bind(new L().append(new Long(5)).append("a")),
+            command.bind(new L().append(new Long(6)).append("b")));
+    }
+
+    public void testBindsWithoutParsingAgain() throws Exception {
+        PreparedCommand command = new PreparedCommand(
+            "insert into foo(x, y, z) values(?, ? + 1, ?)", new Options());
+        Insert first = (Insert) command.bind(
+            new L().append(new Long(5)).append(new Long(6)).append("can't"));
+        Insert second = (Insert) command.bind(
+            new L().append(new Long(7)).append(new Long(8)).append(null));
+
+        assertSame(first.table, second.table);
+        assertEquals(5, first.values.cell(0).asLong());
+        assertEquals(7, first.values.cell(1).asLong());
+        assertEquals("can't", first.values.cell(2).asString());
+        assertEquals(7, second.values.cell(0).asLong());
+        assertEquals(9, second.values.cell(1).asLong());
+        assertEquals(NullCell.INSTANCE, second.values.cell(2));
+    }
+
+    public void testNullInsideExpression() throws Exception {
+        PreparedCommand command = new PreparedCommand(
+            "insert into foo(x) values(1 + ?)", new Options());
+        try {
+            command.bind(new L().append(null));
+            fail();
+        }
+        catch (MayflyException e) {
+            assertEquals(
+                "Specify a null literal rather than an expression containing one",
+                e.getMessage());
+        }
+    }
+
+    public void testNullInWhere() throws Exception {
+        PreparedCommand command = new PreparedCommand(
+            "select x from foo where y = ?", new Options());
+        try {
+            command.bind(new L().append(null));
+            fail();
+        }
+        catch (MayflyException e) {
+            assertEquals(
+                "To check for null, use IS NULL or IS NOT NULL, not a null literal",
+                e.getMessage());
+        }
+    }
+
+    public void testLimitIsParsedWithValue() throws Exception {
+        PreparedCommand command = new PreparedCommand(
+            "select x from foo where y = ? limit ?", new Options());
+        try {
+            command.bind(new L().append(new Long(5)).append("a"));
+            fail();
+        }
+        catch (MayflyException e) {
+            assertEquals("expected number but got string", e.getMessage());
+        }
+    }
+
+    public void testPrepareOnSeveralThreads() throws Exception {
+        final CommandCache cache = new CommandCache();
+        final Options options = new Options();
+        final PreparedCommand[][] prepared = new PreparedCommand[4][50];
+        Thread[] threads = new Thread[prepared.length];
+        for (int i = 0; i < threads.length; ++i) {
+            final PreparedCommand[] mine = prepared[i];
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < mine.length; ++j) {
+                        mine[j] = cache.prepare(
+                            "select a" + j + " from foo", options);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i].join();
+        }
+
+        assertEquals(50, cache.size());
+        for (int j = 0; j < 50; ++j) {
+            String sql = "select a" + j + " from foo";
+            assertSame(cache.prepare(sql, options), 
+                cache.prepare(sql, options));
+        }
+    }
+
+    public void testDifferentOptions() throws Exception {
+        CommandCache cache = new CommandCache();
+        Options options = new Options();
+        PreparedCommand first = cache.prepare("select x from foo", options);
+        Options caseSensitive = options.tableNamesCaseSensitive(true);
+        PreparedCommand second = cache.prepare("select x from foo", caseSensitive);
+        assertNotSame(first, second);
+        assertSame(caseSensitive, second.options());
+        assertEquals(1, cache.size());
+    }
+
+    public void testLeastRecentlyUsedIsDropped() throws Exception {
+        CommandCache cache = new CommandCache();
+        Options options = new Options();
+        PreparedCommand[] prepared = 
+            new PreparedCommand[CommandCache.MAXIMUM_SIZE];
+        for (int i = 0; i < prepared.length; ++i) {
+            prepared[i] = cache.prepare("select a" + i + " from foo", options);
+        }
+        assertSame(prepared[0], cache.prepare("select a0 from foo", options));
+
+        cache.prepare("select b from foo", options);
+        assertEquals(CommandCache.MAXIMUM_SIZE, cache.size());
+
+        assertSame(prepared[0], cache.prepare("select a0 from foo", options));
+        assertNotSame(prepared[1], cache.prepare("select a1 from foo", options));
+    }
+
+}
@@ -8,6 +8,9 @@ import net.sourceforge.mayfly.dump.SqlDumper;
 
 import java.io.Reader;
 import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -133,6 +136,165 @@ public class DatabaseTest extends TestCase {
         assertEquals(expected, database.schemas());
     }
     
+    public void testFork() throws Exception {
+        database.tableNamesCaseSensitive(true);
+        database.execute("create table foo (x integer)");
+        database.execute("insert into foo(x) values(5)");
+
+        Database fork = database.fork();
+        assertSame(database.dataStore(), fork.dataStore());
+        assertTrue(fork.options().tableNamesCaseSensitive());
+
+        fork.execute("insert into foo(x) values(6)");
+        database.execute("insert into foo(x) values(7)");
+        SqlTestCase.assertResultSet(
+            new String[] { "5", "6" },
+            fork.query("select x from foo")
+        );
+        SqlTestCase.assertResultSet(
+            new String[] { "5", "7" },
+            database.query("select x from foo")
+        );
+    }
+    
+    public void testWritersOnSeveralThreads() throws Exception {
+        database.execute("create table foo (x integer)");
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; ++i) {
+            final Connection connection = database.openConnection();
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        Statement statement = connection.createStatement();
+                        for (int j = 0; j < 100; ++j) {
+                            statement.executeUpdate(
+                                "insert into foo(x) values(" + j + ")");
+                        }
+                    }
+                    catch (SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i].join();
+        }
+        assertEquals(400, database.rowCount("foo"));
+    }
+
+    public void testTransactionIsNotSeenUntilCommit() throws Exception {
+        database.execute("create table foo (x integer)");
+        MayflyConnection connection = new MayflyConnection(database);
+        connection.setAutoCommit(false);
+        connection.execute("insert into foo(x) values(5)");
+        assertEquals(1, connection.rowCount("foo"));
+        assertEquals(0, database.rowCount("foo"));
+
+        database.execute("insert into foo(x) values(7)");
+        connection.commit();
+        SqlTestCase.assertResultSet(
+            new String[] { "5", "7" },
+            database.query("select x from foo")
+        );
+    }
+
+    public void testRollback() throws Exception {
+        database.execute("create table foo (x integer)");
+        MayflyConnection connection = new MayflyConnection(database);
+        connection.setAutoCommit(false);
+        connection.execute("insert into foo(x) values(5)");
+        connection.rollback();
+        assertEquals(0, connection.rowCount("foo"));
+        connection.commit();
+        assertEquals(0, database.rowCount("foo"));
+    }
+
+    public void testCommitConflict() throws Exception {
+        database.execute("create table foo (x integer, unique(x))");
+        MayflyConnection connection = new MayflyConnection(database);
+        connection.setAutoCommit(false);
+        connection.execute("insert into foo(x) values(5)");
+
+        database.execute("insert into foo(x) values(5)");
+        try {
+            connection.commit();
+            fail();
+        }
+        catch (SQLException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(
+                "cannot commit: another connection committed " +
+                "a conflicting change"));
+        }
+        assertEquals(1, database.rowCount("foo"));
+        assertEquals(1, connection.rowCount("foo"));
+    }
+
+    public void testSerializableCommitFailsAfterOtherCommit()
+    throws Exception {
+        database.execute("create table account (id integer, bal integer)");
+        database.execute("insert into account(id, bal) values(1, 100)");
+        MayflyConnection connection = new MayflyConnection(database);
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(
+            Connection.TRANSACTION_SERIALIZABLE);
+        SqlTestCase.assertResultSet(new String[] { "100" },
+            connection.query("select bal from account where id = 1"));
+
+        database.execute("update account set bal = bal - 50 where id = 1");
+        connection.execute("update account set bal = 90 where id = 1");
+        try {
+            connection.commit();
+            fail();
+        }
+        catch (SQLException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(
+                "cannot commit: another connection committed " +
+                "a conflicting change"));
+        }
+        SqlTestCase.assertResultSet(new String[] { "50" },
+            database.query("select bal from account where id = 1"));
+    }
+
+    public void testGeneratedKeyMustNotChangeOnCommit() throws Exception {
+        checkGeneratedKeyMustNotChangeOnCommit(
+            Connection.TRANSACTION_SERIALIZABLE);
+        setUp();
+        checkGeneratedKeyMustNotChangeOnCommit(
+            Connection.TRANSACTION_READ_COMMITTED);
+    }
+
+    private void checkGeneratedKeyMustNotChangeOnCommit(int isolation)
+    throws Exception {
+        database.execute("create table parent (" +
+            "id integer auto_increment primary key, name varchar(10))");
+        database.execute("create table child (parent_id integer, " +
+            "foreign key(parent_id) references parent(id))");
+        MayflyConnection connection = new MayflyConnection(database);
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(isolation);
+        connection.execute("insert into parent(name) values('mine')");
+        SqlTestCase.assertResultSet(new String[] { "1" },
+            connection.query("select id from parent"));
+
+        database.execute("insert into parent(name) values('theirs')");
+        connection.execute("insert into child(parent_id) values(1)");
+        try {
+            connection.commit();
+            fail();
+        }
+        catch (SQLException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(
+                "cannot commit: another connection committed " +
+                "a conflicting change"));
+        }
+        SqlTestCase.assertResultSet(new String[] { "'theirs'" },
+            database.query("select name from parent"));
+        assertEquals(0, database.rowCount("child"));
+    }
+
     public void testScript() throws Exception {
         Reader script = new StringReader(
             "create table foo (x integer); insert into foo(x) values(5)" +
@@ -166,6 +328,27 @@ public class DatabaseTest extends TestCase {
         }
     }
     
+    public void testScriptErrorAfterCommands() throws Exception {
+        Reader script = new StringReader(
+            "create table foo(x integer);\n" +
+            "insert into foo(x) values(5);\n" +
+            "insert into foo(x) valuez(7);\n" +
+            "insert into foo(x) values(9);\n");
+        try {
+            database.executeScript(script);
+            fail();
+        }
+        catch (MayflyException e) {
+            assertEquals("expected VALUES or SELECT but got valuez", 
+                e.getMessage());
+            assertEquals(3, e.startLineNumber());
+        }
+        SqlTestCase.assertResultSet(
+            new String[] { "5" },
+            database.query("select x from foo")
+        );
+    }
+    
     public void testFailingCommandFromDatabase() throws Exception {
         database.execute("create table foo(x integer not null)");
         try {
@@ -202,9 +202,13 @@ public class EndToEndTests extends SqlTestCase {
     }
 
     public void testTransactionLevel() throws Exception {
-        // TODO: What does "NONE" mean?  Check JDBC documentation.
         assertEquals(
-            Connection.TRANSACTION_NONE,
+            Connection.TRANSACTION_READ_COMMITTED,
+            connection.getTransactionIsolation());
+        connection.setTransactionIsolation(
+            Connection.TRANSACTION_REPEATABLE_READ);
+        assertEquals(
+            Connection.TRANSACTION_REPEATABLE_READ,
             connection.getTransactionIsolation());
     }
     
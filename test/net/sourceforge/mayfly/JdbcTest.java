@@ -7,12 +7,16 @@ import net.sourceforge.mayfly.datastore.DataStore;
 import net.sourceforge.mayfly.dump.SqlDumper;
 import net.sourceforge.mayfly.jdbc.JdbcConnection;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.util.HashSet;
+import java.util.Set;
 
 public class JdbcTest extends TestCase {
     
@@ -67,6 +71,34 @@ public class JdbcTest extends TestCase {
         query(restored2, new String[] {"2", "6"}, "select a from foo");
     }
     
+    public void testCreateFromSeveralThreads() throws Exception {
+        final DataStore store = new DataStore();
+        final String[][] urls = new String[8][200];
+        Thread[] threads = new Thread[urls.length];
+        for (int i = 0; i < threads.length; ++i) {
+            final String[] mine = urls[i];
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < mine.length; ++j) {
+                        mine[j] = JdbcDriver.create(store);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        Set<String> distinct = new HashSet<String>();
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i].join();
+            for (String url : urls[i]) {
+                distinct.add(url);
+                JdbcDriver.snapshot(url);
+            }
+        }
+        assertEquals(8 * 200, distinct.size());
+    }
+    
     public void testSnapshot() throws Exception {
         String url = JdbcDriver.create(new DataStore());
         update(url, 0, "create table foo(a integer)");
@@ -119,6 +151,18 @@ public class JdbcTest extends TestCase {
         update(second, 0, "create table foo (a integer)");
     }
     
+    public void testShutdownOneDatabase() throws Exception {
+        String first = JdbcDriver.create(new DataStore());
+        String second = JdbcDriver.create(new DataStore());
+        JdbcDriver.shutdown(first);
+
+        expectedFailedConnection(
+            "Mayfly JDBC URL " + first + " not recognized", first);
+        update(second, 0, "create table foo (a integer)");
+
+        JdbcDriver.shutdown(first);
+    }
+    
     public void testConnectionsOpenAtShutdownTime() throws Exception {
         /**
          * For the moment, a Connection contains a reference to the Database
@@ -233,6 +277,103 @@ public class JdbcTest extends TestCase {
         }
     }
     
+    public void testBatch() throws Exception {
+        Database database = new Database();
+        database.execute("create table foo(x integer)");
+        Connection connection = database.openConnection();
+        Statement statement = connection.createStatement();
+        statement.addBatch("insert into foo(x) values(5)");
+        statement.addBatch("insert into foo(x) values(6)");
+        statement.addBatch("update foo set x = x + 1");
+        int[] counts = statement.executeBatch();
+        assertEquals(3, counts.length);
+        assertEquals(1, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(2, counts[2]);
+        SqlTestCase.assertResultSet(new String[] { " 6 ", " 7 " }, 
+            database.query("select x from foo"));
+
+        assertEquals(0, statement.executeBatch().length);
+    }
+
+    public void testPreparedBatch() throws Exception {
+        Database database = new Database();
+        database.execute("create table foo(x integer, y varchar(10))");
+        Connection connection = database.openConnection();
+        PreparedStatement statement = connection.prepareStatement(
+            "insert into foo(x, y) values(?, ?)");
+        statement.setInt(1, 5);
+        statement.setString(2, "five");
+        statement.addBatch();
+        statement.setInt(1, 6);
+        statement.setString(2, "six");
+        statement.addBatch();
+        assertEquals(0, database.rowCount("foo"));
+
+        int[] counts = statement.executeBatch();
+        assertEquals(2, counts.length);
+        assertEquals(1, counts[0]);
+        assertEquals(1, counts[1]);
+        SqlTestCase.assertResultSet(
+            new String[] { " 5, 'five' ", " 6, 'six' " }, 
+            database.query("select x, y from foo"));
+    }
+
+    public void testFailingBatch() throws Exception {
+        Database database = new Database();
+        database.execute("create table foo(x integer not null)");
+        Connection connection = database.openConnection();
+        PreparedStatement statement = connection.prepareStatement(
+            "insert into foo(x) values(?)");
+        statement.setInt(1, 5);
+        statement.addBatch();
+        statement.setNull(1, Types.INTEGER);
+        statement.addBatch();
+        statement.setInt(1, 7);
+        statement.addBatch();
+        try {
+            statement.executeBatch();
+            fail();
+        }
+        catch (BatchUpdateException e) {
+            assertEquals("column x cannot be null", e.getMessage());
+            assertEquals(1, e.getUpdateCounts().length);
+            assertEquals(1, e.getUpdateCounts()[0]);
+        }
+        SqlTestCase.assertResultSet(new String[] { " 5 " }, 
+            database.query("select x from foo"));
+    }
+
+    public void testBatchOfInsertsChecksEachRow() throws Exception {
+        Database database = new Database();
+        database.execute("create table node(" +
+            "id integer auto_increment primary key, parent integer, " +
+            "foreign key(parent) references node(id))");
+        database.execute("create table other(x integer)");
+        Connection connection = database.openConnection();
+        Statement statement = connection.createStatement();
+        statement.addBatch("insert into node(parent) values(null)");
+        statement.addBatch("insert into node(parent) values(1)");
+        statement.addBatch("insert into other(x) values(10)");
+        statement.addBatch("insert into node(parent) values(2)");
+        statement.addBatch("insert into node(id, parent) values(2, 1)");
+        statement.addBatch("insert into node(parent) values(3)");
+        try {
+            statement.executeBatch();
+            fail();
+        }
+        catch (BatchUpdateException e) {
+            assertEquals(
+                "primary key in table node, column id: duplicate value 2",
+                e.getMessage());
+            assertEquals(4, e.getUpdateCounts().length);
+        }
+        SqlTestCase.assertResultSet(
+            new String[] { " 1, null ", " 2, 1 ", " 3, 2 " }, 
+            database.query("select id, parent from node"));
+        assertEquals(1, database.rowCount("other"));
+    }
+
     private void query(String jdbcUrl, String[] expectedResults, String sql) 
     throws SQLException {
         Connection connection = DriverManager.getConnection(jdbcUrl);
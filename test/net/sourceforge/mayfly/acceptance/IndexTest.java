@@ -59,6 +59,92 @@ public class IndexTest extends SqlTestCase {
             "unique constraint in table foo, column a: duplicate value 4");
     }
     
+    public void testQueriesThroughIndex() throws Exception {
+        execute("create table foo(a integer, b varchar(80))");
+        execute("create index an_index_name on foo(a)");
+        execute("insert into foo(a, b) values(4, 'four')");
+        execute("insert into foo(a, b) values(2, 'two')");
+        execute("insert into foo(a, b) values(null, 'none')");
+        execute("insert into foo(a, b) values(7, 'seven')");
+        execute("insert into foo(a, b) values(4, 'another four')");
+
+        assertResultList(new String[] { " 'four' ", " 'another four' " }, 
+            query("select b from foo where a = 4"));
+        assertResultList(new String[] { " 'four' ", " 'another four' " }, 
+            query("select b from foo where 4 = a"));
+        assertResultSet(new String[] { }, 
+            query("select b from foo where a = 5"));
+        assertResultList(new String[] { " 'four' ", " 'seven' ", " 'another four' " }, 
+            query("select b from foo where a > 2"));
+        assertResultList(new String[] { " 'two' " }, 
+            query("select b from foo where a < 4"));
+        assertResultList(new String[] { " 'four' ", " 'two' ", " 'another four' " }, 
+            query("select b from foo where a <= 4"));
+        assertResultList(new String[] { " 'four' ", " 'seven' ", " 'another four' " }, 
+            query("select b from foo where a >= 4"));
+        assertResultList(new String[] { " 'two' ", " 'seven' " }, 
+            query("select b from foo where a in (7, 2, 7)"));
+        assertResultList(new String[] { " 'none' " }, 
+            query("select b from foo where a is null"));
+        assertResultList(new String[] { " 'another four' " }, 
+            query("select b from foo where a = 4 and b like 'an%'"));
+    }
+
+    public void testOrderThroughIndex() throws Exception {
+        execute("create table foo(a integer, b varchar(80))");
+        execute("create index an_index_name on foo(a, b)");
+        execute("insert into foo(a, b) values(4, 'four')");
+        execute("insert into foo(a, b) values(2, 'two')");
+        execute("insert into foo(a, b) values(null, 'none')");
+        execute("insert into foo(a, b) values(7, 'seven')");
+        execute("insert into foo(a, b) values(4, 'another four')");
+
+        // Rows which tie on a stay in the order they were inserted
+        assertResultList(new String[] { 
+                " 'none' ", " 'two' ", " 'four' ", " 'another four' ", 
+                " 'seven' " }, 
+            query("select b from foo order by a"));
+        assertResultList(new String[] { 
+                " 'seven' ", " 'four' ", " 'another four' ", " 'two' ",
+                " 'none' " }, 
+            query("select b from foo order by a desc"));
+        if (dialect.haveLimit()) {
+            assertResultList(new String[] { " 'four' ", " 'another four' " }, 
+                query("select b from foo order by a limit 2 offset 2"));
+        }
+    }
+
+    public void testLikeThroughIndex() throws Exception {
+        execute("create table foo(a varchar(80))");
+        execute("create index an_index_name on foo(a)");
+        execute("insert into foo(a) values('apple')");
+        execute("insert into foo(a) values('banana')");
+        execute("insert into foo(a) values('apricot')");
+        execute("insert into foo(a) values('ap')");
+        execute("insert into foo(a) values('aq')");
+
+        assertResultList(new String[] { " 'apple' ", " 'apricot' ", " 'ap' " }, 
+            query("select a from foo where a like 'ap%'"));
+        assertResultList(new String[] { " 'apricot' " }, 
+            query("select a from foo where a like 'ap_i%'"));
+    }
+
+    public void testPrimaryKeyLookup() throws Exception {
+        execute("create table foo(a integer primary key, b varchar(80))");
+        execute("insert into foo(a, b) values(1, 'one')");
+        execute("insert into foo(a, b) values(2, 'two')");
+        execute("update foo set a = 3 where a = 1");
+        execute("delete from foo where a = 2");
+        execute("insert into foo(a, b) values(1, 'new one')");
+
+        assertResultSet(new String[] { " 'new one' " }, 
+            query("select b from foo where a = 1"));
+        assertResultSet(new String[] { " 'one' " }, 
+            query("select b from foo where a = 3"));
+        assertResultSet(new String[] { }, 
+            query("select b from foo where a = 2"));
+    }
+
     public void testUniqueAndExistingRows() throws Exception {
         execute("create table foo(a integer, b varchar(80))");
         execute("insert into foo(a, b) values(4, 'one')");
@@ -473,4 +473,42 @@ public class JoinTest extends SqlTestCase {
         );
     }
     
+    public void testJoinOrderWithSmallerLeftSide() throws Exception {
+        execute("create table foo (a integer, b integer)");
+        execute("create table bar (b integer, c integer)");
+        execute("insert into foo (a, b) values (1, 20)");
+        execute("insert into foo (a, b) values (2, 10)");
+        execute("insert into bar (b, c) values (10, 100)");
+        execute("insert into bar (b, c) values (20, 200)");
+        execute("insert into bar (b, c) values (10, 101)");
+        execute("insert into bar (b, c) values (30, 300)");
+        execute("insert into bar (b, c) values (20, 201)");
+
+        assertResultList(
+            new String[] { "1, 200", "1, 201", "2, 100", "2, 101" },
+            query("select a, c from foo inner join bar on foo.b = bar.b")
+        );
+        assertResultList(
+            new String[] { "1, 201", "2, 100", "2, 101" },
+            query("select a, c from foo inner join bar " +
+                "on foo.b = bar.b and c <> 200")
+        );
+    }
+    
+    public void testLeftJoinOnNull() throws Exception {
+        execute("create table foo (a integer, b integer)");
+        execute("create table bar (b integer, c integer)");
+        execute("insert into foo (a, b) values (1, 10)");
+        execute("insert into foo (a, b) values (2, null)");
+        execute("insert into foo (a, b) values (3, 30)");
+        execute("insert into foo (a, b) values (4, 10)");
+        execute("insert into bar (b, c) values (10, 100)");
+        execute("insert into bar (b, c) values (null, 200)");
+
+        assertResultList(
+            new String[] { "1, 100", "2, null", "3, null", "4, 100" },
+            query("select a, c from foo left outer join bar on foo.b = bar.b")
+        );
+    }
+    
 }
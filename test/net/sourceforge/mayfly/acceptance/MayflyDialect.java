@@ -103,24 +103,8 @@ public class MayflyDialect extends Dialect {
     }
 
     @Override
-    public boolean willReadUncommitted() {
-        /** It isn't clear that there is any way to just
-           dip our toes into this water.  It seems like
-           we need to maintain a log of changes to the database
-           in the various connections, and then be able
-           to apply those logs at commit time.
-           {@link TransactionTest#testTwoWriters()}
-         */
-        return !wishThisWereTrue();
-    }
-    
-    @Override
-    public boolean haveTransactions() {
-        /**
-         * {@link net.sourceforge.mayfly.MayflyConnection#rollback()}
-         * is not implemented.
-         */
-        return wishThisWereTrue();
+    public boolean autoCommitMustBeOffToCallRollback() {
+        return false;
     }
 
     /**
@@ -118,6 +118,36 @@ public class PerformanceTest extends SqlTestCase {
         assertEquals(5 * 111 + 45 * 110 + 450 * 100 + 500 * 0, sum);
     }
 
+    public void xtestGroupByAndDistinct() throws Exception {
+        // 100,000 rows: group by about 0.55 s and distinct about 0.2 s
+        // when cells compared themselves by reflection; 0.35 s and 0.16 s
+        // with hand-written equals and hashCode.
+        execute("create table foo(x integer, y varchar(20), z integer)");
+        for (int i = 0; i < 100000; ++i) {
+            execute("insert into foo(x, y, z) values (" + 
+                i % 1000 + ", 'v" + i % 500 + "', " + i + ")");
+        }
+        long start = System.currentTimeMillis();
+        ResultSet results = query("select x, count(*) from foo group by x");
+        int groups = 0;
+        while (results.next()) {
+            ++groups;
+        }
+        results.close();
+        long middle = System.currentTimeMillis();
+        results = query("select distinct x, y from foo");
+        int distinctRows = 0;
+        while (results.next()) {
+            ++distinctRows;
+        }
+        results.close();
+        long end = System.currentTimeMillis();
+        System.out.println("GROUP BY = " + (middle - start) / 1000.0 + " s, " +
+            "DISTINCT = " + (end - middle) / 1000.0 + " s");
+        assertEquals(1000, groups);
+        assertEquals(1000, distinctRows);
+    }
+
     private void createTables() throws Exception {
         for (int i = 0; i < TABLE_COUNT; ++i) {
             StringBuilder command = new StringBuilder();
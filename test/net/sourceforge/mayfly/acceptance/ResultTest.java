@@ -254,6 +254,27 @@ public class ResultTest extends SqlTestCase {
         }
     }
     
+    public void testLimitWithSeveralOrderByColumns() throws Exception {
+        if (!dialect.haveLimit()) {
+            return;
+        }
+
+        execute("create table foo (x integer, y varchar(255))");
+        execute("insert into foo (x, y) values (3, 'a')");
+        execute("insert into foo (x, y) values (1, 'c')");
+        execute("insert into foo (x, y) values (2, 'd')");
+        execute("insert into foo (x, y) values (1, 'b')");
+        execute("insert into foo (x, y) values (2, 'e')");
+        execute("insert into foo (x, y) values (3, 'f')");
+
+        assertResultList(new String[] { "'b'", "'e'", "'d'" }, 
+            query("select y from foo order by x, y desc limit 3 offset 1"));
+        assertResultList(new String[] { "'f'", "'a'" }, 
+            query("select y from foo order by x desc, y desc limit 2"));
+        assertResultList(new String[] { "'c'" }, 
+            query("select y from foo order by x, y desc limit 1"));
+    }
+    
     public void testLimitWithInadequateOrderBy() throws Exception {
         if (!dialect.haveLimit()) {
             return;
@@ -8,6 +8,15 @@ import net.sourceforge.mayfly.evaluation.expression.literal.LongLiteral;
 import net.sourceforge.mayfly.util.MayflyAssert;
 
 public class CellTest extends TestCase {
+    
+    public void testLongValueOf() throws Exception {
+        assertSame(LongCell.valueOf(7), LongCell.valueOf(7));
+        assertEquals(new LongCell(-128), LongCell.valueOf(-128));
+        assertEquals(new LongCell(123456789), LongCell.valueOf(123456789));
+        assertEquals(-1, LongCell.valueOf(Long.MIN_VALUE).compareTo(
+            LongCell.valueOf(Long.MAX_VALUE)));
+    }
+
     public void testAsInt() throws Exception {
         assertEquals(6, new LongCell(6).asInt());
         assertEquals(6, new IntegerLiteral(6).valueAsCell().asInt());
@@ -96,6 +105,44 @@ public class CellTest extends TestCase {
         assertFalse(second.sqlEquals(first));
     }
 
+    public void testEquals() throws Exception {
+        assertEqualsAndHash(new LongCell(6), new LongCell(6));
+        assertFalse(new LongCell(6).equals(new LongCell(7)));
+        assertFalse(new LongCell(6).equals(new DecimalCell("6")));
+
+        assertEqualsAndHash(new StringCell("foo"), new StringCell("foo"));
+        assertFalse(new StringCell("foo").equals(new StringCell("Foo")));
+
+        assertEqualsAndHash(new DecimalCell("1.5"), new DecimalCell("1.5"));
+        assertFalse(new DecimalCell("1.5").equals(new DecimalCell("1.50")));
+
+        assertEqualsAndHash(new DateCell(2008, 2, 29), new DateCell(2008, 2, 29));
+        assertFalse(new DateCell(2008, 2, 29).equals(
+            new StringCell("2008-02-29")));
+
+        assertEqualsAndHash(
+            new TimestampCell(2008, 2, 29, 13, 5, 0),
+            new TimestampCell(2008, 2, 29, 13, 5, 0));
+        assertFalse(new TimestampCell(2008, 2, 29, 13, 5, 0).equals(
+            new TimestampCell(2008, 2, 29, 13, 5, 1)));
+
+        assertEqualsAndHash(
+            new BinaryCell(new byte[] { 1, 2 }), 
+            new BinaryCell(new byte[] { 1, 2 }));
+        assertFalse(new BinaryCell(new byte[] { 1, 2 }).equals(
+            new BinaryCell(new byte[] { 1, 3 })));
+
+        assertEqualsAndHash(NullCell.INSTANCE, NullCell.INSTANCE);
+        assertFalse(NullCell.INSTANCE.equals(new LongCell(0)));
+        assertFalse(new LongCell(0).equals(NullCell.INSTANCE));
+    }
+
+    private void assertEqualsAndHash(Cell first, Cell second) {
+        assertEquals(first, second);
+        assertEquals(second, first);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
     public void testDisplayName() throws Exception {
         assertEquals("string 'foo'", new StringCell("foo").displayName());
         assertEquals("string 'don''t'", new StringCell("don't").displayName());
@@ -2,6 +2,8 @@ package net.sourceforge.mayfly.datastore;
 
 import junit.framework.TestCase;
 
+import net.sourceforge.mayfly.Database;
+import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.evaluation.ValueList;
 import net.sourceforge.mayfly.util.ImmutableList;
 
@@ -17,4 +19,29 @@ public class DataStoreTest extends TestCase {
         assertEquals(1, newStore.table("mars", "foo").rowCount());
     }
 
+    public void testDeleteSeesChangedForeignKeys() throws Exception {
+        Database database = new Database();
+        database.execute("create table parent(id integer primary key)");
+        database.execute("create table child(parent_id integer)");
+        database.execute("insert into parent(id) values(1)");
+        database.execute("insert into parent(id) values(2)");
+        database.execute("insert into child(parent_id) values(1)");
+        database.execute("alter table child add constraint child_parent " +
+            "foreign key(parent_id) references parent(id)");
+        database.execute("insert into child(parent_id) values(2)");
+
+        try {
+            database.execute("delete from parent where id = 2");
+            fail();
+        }
+        catch (MayflyException e) {
+            assertEquals(
+                "foreign key violation: table child refers to id 2 in parent",
+                e.getMessage());
+        }
+
+        database.execute("alter table child drop foreign key child_parent");
+        assertEquals(2, database.execute("delete from parent"));
+    }
+
 }
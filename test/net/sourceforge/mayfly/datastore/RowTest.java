@@ -163,4 +163,25 @@ public class RowTest extends TestCase {
         );
     }
     
+    public void testIntegersAndOtherCells() throws Exception {
+        Row row = new TupleBuilder()
+            .append("a", 5)
+            .append("b", "hi")
+            .append("c", NullCell.INSTANCE)
+            .append("d", 1L << 40)
+            .asRow();
+        assertEquals(new LongCell(5), row.cell("a"));
+        assertEquals(new LongCell(1L << 40), row.cell("d"));
+        assertEquals(NullCell.INSTANCE, row.cell("c"));
+
+        Row renamed = row.renameColumn("a", "e").dropColumn("b");
+        assertEquals(3, renamed.columnCount());
+        assertEquals(new LongCell(5), renamed.cell("e"));
+        assertEquals(new LongCell(1L << 40), renamed.cell("d"));
+        
+        Row added = renamed.addColumn(new Column("f"));
+        assertEquals(new LongCell(1L << 40), added.cell("d"));
+        assertEquals(NullCell.INSTANCE, added.cell("f"));
+    }
+
 }
@@ -2,6 +2,8 @@ package net.sourceforge.mayfly.datastore;
 
 import junit.framework.TestCase;
 
+import net.sourceforge.mayfly.Database;
+import net.sourceforge.mayfly.MayflyException;
 import net.sourceforge.mayfly.datastore.constraint.Constraint;
 import net.sourceforge.mayfly.datastore.constraint.Constraints;
 import net.sourceforge.mayfly.datastore.constraint.PrimaryKey;
@@ -33,7 +35,7 @@ public class TableDataTest extends TestCase {
             .asRow();
         Rows rows = new Rows(row);
         TableData table = new TableData(
-            columns, new Constraints(), rows, null);
+            columns, new Constraints(), rows, new Indexes());
         
         TableData newTable = table.dropColumn(null, "B");
         
@@ -69,7 +71,7 @@ public class TableDataTest extends TestCase {
             .append(a, new LongCell(7))
             .asRow();
         TableData table = new TableData(
-            Columns.singleton(a), new Constraints(), new Rows(row), null);
+            Columns.singleton(a), new Constraints(), new Rows(row), new Indexes());
         
         UpdateTable update = table.update(new NullChecker(), 
             Collections.singletonList(
@@ -99,7 +101,7 @@ public class TableDataTest extends TestCase {
             Columns.singleton(a), 
             new Constraints(), 
             new Rows(ImmutableList.fromArray(new Row[] { one, two })),
-            null
+            new Indexes()
         );
         
         Condition where = new Parser("a = 1").parseCondition().asBoolean();
@@ -144,6 +146,58 @@ public class TableDataTest extends TestCase {
         assertFalse(table.canBeTargetOfForeignKey("a"));
     }
     
+    public void testIndexFollowsUpdateAndDelete() throws Exception {
+        Column a = new Column("a", DefaultValue.NOT_SPECIFIED, null, 
+            false, false, new FakeDataType(), false);
+        Rows rows = new Rows();
+        for (int i = 1; i <= 5; ++i) {
+            rows = rows.with(new TupleBuilder()
+                .append(a, new LongCell(i * 10))
+                .asRow());
+        }
+        Index index = new Index("a_index", ColumnNames.singleton("a"));
+        TableData table = new TableData(
+            Columns.singleton(a), 
+            new Constraints(), 
+            rows,
+            new Indexes().with(index.forRows(rows))
+        );
+        assertPositions("[1, 2]", 
+            table.indexStartingWith("A").positions(
+                new LongCell(20), true, new LongCell(30), true));
+        
+        TableData updated = table.update(new NullChecker(), 
+            Collections.singletonList(
+                new SetClause("a", new Parser("5").parsePrimary().asNonBoolean())), 
+            new Parser("a = 40").parseCondition().asBoolean(), 
+            new TableReference("schema", "table1")
+        ).table();
+        Index afterUpdate = updated.indexStartingWith("a");
+        assertPositions("[0, 3]", 
+            afterUpdate.positions(null, false, new LongCell(10), true));
+        assertPositions("[]", 
+            afterUpdate.positions(new LongCell(40), true, new LongCell(49), true));
+
+        Condition where = new Parser("a < 25").parseCondition().asBoolean();
+        TableData deleted = 
+            updated.delete(where, new NullChecker(), "table1").table();
+        assertEquals(2, deleted.rowCount());
+        Index afterDelete = deleted.indexStartingWith("a");
+        assertPositions("[0, 1]", 
+            afterDelete.positions(new LongCell(20), false, null, false));
+        MayflyAssert.assertLong(30, 
+            deleted.row(afterDelete.positions(
+                new LongCell(30), true, new LongCell(30), true)[0]).cell("a"));
+    }
+
+    private static void assertPositions(String expected, int[] actual) {
+        L list = new L();
+        for (int i = 0; i < actual.length; ++i) {
+            list.add(new Integer(actual[i]));
+        }
+        assertEquals(expected, list.toString());
+    }
+
     public void testHighest() throws Exception {
         Column a = new Column("a", DefaultValue.NOT_SPECIFIED, null, 
             false, false, new FakeDataType(), false);
@@ -166,4 +220,104 @@ public class TableDataTest extends TestCase {
         MayflyAssert.assertLong(73, table.highest("a"));
     }
 
+    public void testRowsShareLayout() throws Exception {
+        Database database = new Database();
+        database.execute("create table foo(" +
+            "id integer auto_increment primary key, name varchar(10))");
+        database.execute("insert into foo(name) values('one')");
+        database.execute("insert into foo(name) values('two')");
+        database.execute("update foo set name = 'deux' where id = 2");
+
+        TableData table = database.dataStore().table("foo");
+        assertSame(table.columns().layout(), table.row(0).layout());
+        assertSame(table.row(0).layout(), table.row(1).layout());
+        MayflyAssert.assertString("deux", table.row(1).cell("name"));
+
+        database.execute("alter table foo add column price integer");
+        table = database.dataStore().table("foo");
+        assertSame(table.row(0).layout(), table.row(1).layout());
+        assertEquals(3, table.row(1).columnCount());
+        assertEquals(NullCell.INSTANCE, table.row(1).cell("price"));
+    }
+
+    public void testForeignKeyIsIndexed() throws Exception {
+        Database database = new Database();
+        database.execute("create table parent(id integer primary key)");
+        database.execute("create table child(" +
+            "parent_id integer, constraint child_parent " +
+            "foreign key(parent_id) references parent(id))");
+        database.execute("insert into parent(id) values(1)");
+        database.execute("insert into parent(id) values(2)");
+        database.execute("insert into child(parent_id) values(2)");
+        database.execute("insert into child(parent_id) values(null)");
+
+        TableData child = database.dataStore().table("child");
+        assertNotNull(child.indexStartingWith("parent_id"));
+        assertTrue(child.hasValue("parent_id", new LongCell(2)));
+        assertFalse(child.hasValue("parent_id", new LongCell(1)));
+        assertFalse(child.hasValue("parent_id", NullCell.INSTANCE));
+
+        database.execute("update child set parent_id = 1");
+        child = database.dataStore().table("child");
+        assertTrue(child.hasValue("parent_id", new LongCell(1)));
+        assertFalse(child.hasValue("parent_id", new LongCell(2)));
+
+        database.execute("alter table child drop foreign key child_parent");
+        child = database.dataStore().table("child");
+        assertNull(child.indexStartingWith("parent_id"));
+    }
+
+    public void testUpdateChecksChangedRowsAgainstFinalState()
+    throws Exception {
+        Database database = new Database();
+        database.execute("create table foo(x integer, unique(x))");
+        database.execute("insert into foo(x) values(1)");
+        database.execute("insert into foo(x) values(2)");
+        database.execute("insert into foo(x) values(3)");
+
+        database.execute("update foo set x = 3 - x where x < 3");
+        assertEquals(3, database.rowCount("foo"));
+
+        try {
+            database.execute("update foo set x = 3 where x = 1");
+            fail();
+        }
+        catch (MayflyException e) {
+            assertEquals(
+                "unique constraint in table foo, column x: duplicate value 3",
+                e.getMessage());
+        }
+
+        database.execute("delete from foo where x = 2");
+        database.execute("update foo set x = 2 where x = 3");
+        TableData foo = database.dataStore().table("foo");
+        assertTrue(foo.hasValue("x", new LongCell(2)));
+        assertFalse(foo.hasValue("x", new LongCell(3)));
+    }
+
+    public void testUpdateAndDeleteThroughIndex() throws Exception {
+        Database database = new Database();
+        database.execute("create table foo(id integer primary key, x integer)");
+        for (int id = 1; id <= 5; ++id) {
+            database.execute(
+                "insert into foo(id, x) values(" + id + ", " + id * 10 + ")");
+        }
+
+        assertEquals(1, 
+            database.execute("update foo set x = 0 where id = 3 and x > 20"));
+        assertEquals(0, 
+            database.execute("update foo set x = 0 where id = 2 and x > 20"));
+        assertEquals(1, database.execute(
+            "update foo set x = 1 where x = 40 and id in (2, 4)"));
+        assertEquals(2, database.execute("delete from foo where id > 3"));
+        assertEquals(0, database.execute("delete from foo where id = 9"));
+
+        TableData foo = database.dataStore().table("foo");
+        assertEquals(3, foo.rowCount());
+        assertTrue(foo.hasValue("x", new LongCell(0)));
+        assertFalse(foo.hasValue("x", new LongCell(1)));
+        assertFalse(foo.hasValue("id", new LongCell(4)));
+        assertTrue(foo.hasValue("id", new LongCell(2)));
+    }
+
 }
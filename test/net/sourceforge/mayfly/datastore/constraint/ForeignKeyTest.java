@@ -2,7 +2,9 @@ package net.sourceforge.mayfly.datastore.constraint;
 
 import junit.framework.TestCase;
 
+import net.sourceforge.mayfly.Database;
 import net.sourceforge.mayfly.MayflyException;
+import net.sourceforge.mayfly.acceptance.SqlTestCase;
 import net.sourceforge.mayfly.datastore.DataStore;
 import net.sourceforge.mayfly.datastore.LongCell;
 import net.sourceforge.mayfly.datastore.Row;
@@ -97,4 +99,32 @@ public class ForeignKeyTest extends TestCase {
         assertEquals("id", result.targetColumn);
     }
 
+    public void testCascadeSeveralRowsAndLevels() throws Exception {
+        Database database = new Database();
+        database.execute("create table country(id integer primary key)");
+        database.execute("create table city(id integer primary key, " +
+            "country integer, foreign key(country) references country(id) " +
+            "on delete cascade)");
+        database.execute("create table street(name varchar(20), " +
+            "city integer, foreign key(city) references city(id) " +
+            "on delete set null)");
+        for (int country = 1; country <= 3; ++country) {
+            database.execute(
+                "insert into country(id) values(" + country + ")");
+            for (int city = country * 10; city < country * 10 + 3; ++city) {
+                database.execute("insert into city(id, country) values(" + 
+                    city + ", " + country + ")");
+                database.execute("insert into street(name, city) values(" +
+                    "'Main " + city + "', " + city + ")");
+            }
+        }
+
+        assertEquals(2, database.execute("delete from country where id < 3"));
+        assertEquals(3, database.rowCount("city"));
+        SqlTestCase.assertResultSet(
+            new String[] { "30", "31", "32" },
+            database.query("select city from street where city is not null"));
+        assertEquals(9, database.rowCount("street"));
+    }
+
 }
@@ -0,0 +1,41 @@
+package net.sourceforge.mayfly.datastore.types;
+
+import junit.framework.TestCase;
+
+import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.datastore.NullCell;
+import net.sourceforge.mayfly.datastore.StringCell;
+import net.sourceforge.mayfly.evaluation.Value;
+
+public class StringDataTypeTest extends TestCase {
+    
+    public void testSharesEqualValues() throws Exception {
+        StringDataType type = new StringDataType("varchar(10)");
+        Cell first = type.coerce(new Value(new StringCell("active")), "a");
+        Cell second = type.coerce(new Value(new StringCell("active")), "a");
+        assertSame(first, second);
+        assertEquals(new StringCell("active"), second);
+
+        Cell other = type.coerce(new Value(new StringCell("closed")), "a");
+        assertEquals(new StringCell("closed"), other);
+
+        assertSame(NullCell.INSTANCE, 
+            type.coerce(new Value(NullCell.INSTANCE), "a"));
+    }
+    
+    public void testStopsGrowing() throws Exception {
+        StringDataType type = new StringDataType("varchar(10)");
+        for (int i = 0; i < StringDataType.MAXIMUM_DICTIONARY_SIZE; ++i) {
+            type.coerce(new Value(new StringCell("v" + i)), "a");
+        }
+        Cell first = type.coerce(new Value(new StringCell("new")), "a");
+        Cell second = type.coerce(new Value(new StringCell("new")), "a");
+        assertNotSame(first, second);
+        assertEquals(first, second);
+
+        assertSame(
+            type.coerce(new Value(new StringCell("v7")), "a"),
+            type.coerce(new Value(new StringCell("v7")), "a"));
+    }
+
+}
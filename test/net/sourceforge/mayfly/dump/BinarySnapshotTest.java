@@ -0,0 +1,108 @@
+package net.sourceforge.mayfly.dump;
+
+import junit.framework.TestCase;
+
+import net.sourceforge.mayfly.Database;
+import net.sourceforge.mayfly.MayflyException;
+import net.sourceforge.mayfly.acceptance.SqlTestCase;
+import net.sourceforge.mayfly.datastore.DataStore;
+
+import java.io.File;
+import java.io.FileWriter;
+
+public class BinarySnapshotTest extends TestCase {
+
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        file = File.createTempFile("mayfly", ".snapshot");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    public void testRoundTrip() throws Exception {
+        Database database = new Database();
+        database.execute("create table parent(id integer primary key, " +
+            "name varchar(20) unique)");
+        database.execute("create table child(" +
+            "id integer auto_increment primary key, " +
+            "parent integer, amount decimal(5,2), born date, " +
+            "seen timestamp, photo blob, " +
+            "foreign key(parent) references parent(id))");
+        database.execute("create index by_amount on child(amount)");
+        database.execute("insert into parent(id, name) values(1, 'one')");
+        database.execute("insert into parent(id, name) values(2, 'two')");
+        database.execute("insert into child(parent, amount, born, seen, photo)" +
+            " values(1, 12.50, '2001-02-03', '2004-05-06 07:08:09', x'cafe')");
+        database.execute("insert into child(parent) values(2)");
+        
+        DataStore reloaded = saveAndRead(database.dataStore());
+        assertEquals(
+            new SqlDumper().dump(database.dataStore()),
+            new SqlDumper().dump(reloaded));
+    }
+    
+    public void testConstraintsStillChecked() throws Exception {
+        Database database = new Database();
+        database.execute("create table foo(" +
+            "id integer auto_increment primary key, name varchar(20))");
+        database.execute("insert into foo(name) values('a')");
+        database.execute("insert into foo(name) values('b')");
+        
+        Database reloaded = new Database(saveAndRead(database.dataStore()));
+        try {
+            reloaded.execute("insert into foo(id, name) values(2, 'c')");
+            fail();
+        }
+        catch (MayflyException e) {
+            assertEquals(
+                "primary key in table foo, column id: duplicate value 2", 
+                e.getMessage());
+        }
+
+        reloaded.execute("insert into foo(name) values('d')");
+        SqlTestCase.assertResultSet(
+            new String[] { "1, 'a'", "2, 'b'", "3, 'd'" },
+            reloaded.query("select id, name from foo"));
+    }
+    
+    public void testSchemas() throws Exception {
+        Database database = new Database();
+        database.execute("create table foo(x integer)");
+        database.execute("insert into foo(x) values(5)");
+        database.execute("create schema mars authorization dba " +
+            "create table foo(y varchar(10))");
+        database.execute("set schema mars");
+        database.execute("insert into foo(y) values('on mars')");
+
+        Database reloaded = new Database(saveAndRead(database.dataStore()));
+        SqlTestCase.assertResultSet(new String[] { "5" }, 
+            reloaded.query("select x from foo"));
+        reloaded.execute("set schema mars");
+        SqlTestCase.assertResultSet(new String[] { "'on mars'" }, 
+            reloaded.query("select y from foo"));
+    }
+    
+    public void testNotASnapshot() throws Exception {
+        FileWriter out = new FileWriter(file);
+        out.write("create table foo(x integer);\n");
+        out.close();
+        try {
+            new BinarySnapshot().read(file);
+            fail();
+        }
+        catch (MayflyException e) {
+            assertEquals("not a Mayfly snapshot", e.getMessage());
+        }
+    }
+
+    private DataStore saveAndRead(DataStore store) throws Exception {
+        new BinarySnapshot().write(store, file);
+        return new BinarySnapshot().read(file);
+    }
+
+}
@@ -0,0 +1,92 @@
+package net.sourceforge.mayfly.dump;
+
+import junit.framework.TestCase;
+
+import net.sourceforge.mayfly.Database;
+import net.sourceforge.mayfly.MayflyException;
+import net.sourceforge.mayfly.Options;
+import net.sourceforge.mayfly.acceptance.SqlTestCase;
+import net.sourceforge.mayfly.datastore.DataStore;
+
+import java.io.StringReader;
+
+public class DumpLoaderTest extends TestCase {
+
+    public void testTables() throws Exception {
+        Database database = new Database();
+        database.loadDump(new StringReader(
+            "create table foo(a integer primary key);\n" +
+            "create table bar(b integer, foo_a integer,\n" +
+            "  foreign key(foo_a) references foo(a));\n" +
+            "insert into foo(a) values(1);\n" +
+            "insert into foo(a) values(2);\n" +
+            "insert into bar(b, foo_a) values(10, 2);\n" +
+            "insert into bar(b, foo_a) values(11, 1);\n" +
+            "insert into foo(a) values(3);\n"
+        ));
+        SqlTestCase.assertResultSet(
+            new String[] { "1", "2", "3" },
+            database.query("select a from foo"));
+        SqlTestCase.assertResultSet(
+            new String[] { "10, 2", "11, 1" },
+            database.query("select b, foo_a from bar"));
+    }
+    
+    public void testForeignKeyCheckedAtEnd() throws Exception {
+        Database database = new Database();
+        database.execute("create table foo(a integer primary key)");
+        database.execute("create table bar(foo_a integer," +
+            " foreign key(foo_a) references foo(a))");
+        String script = 
+            "insert into bar(foo_a) values(1);\n" +
+            "insert into bar(foo_a) values(7);\n" +
+            "insert into foo(a) values(1);\n";
+        try {
+            database.loadDump(new StringReader(script));
+            fail();
+        }
+        catch (MayflyException e) {
+            assertEquals(
+                "foreign key violation: attempt in table bar, column foo_a " +
+                "to reference non-present value 7 in table foo, column a", 
+                e.getMessage());
+            assertEquals(2, e.startLineNumber());
+            assertEquals("\ninsert into bar(foo_a) values(7)", 
+                e.failingCommand());
+        }
+        assertEquals(0, database.rowCount("bar"));
+        assertEquals(0, database.rowCount("foo"));
+    }
+    
+    public void testUniqueCheckedAsRowsGoIn() throws Exception {
+        DataStore store = new Database().dataStore();
+        try {
+            new DumpLoader(2).load(store, new StringReader(
+                "create table foo(a integer unique);\n" +
+                "insert into foo(a) values(1);\n" +
+                "insert into foo(a) values(1);\n"
+                ), new Options());
+            fail();
+        }
+        catch (MayflyException e) {
+            assertEquals(
+                "unique constraint in table foo, column a: duplicate value 1", 
+                e.getMessage());
+        }
+    }
+    
+    public void testNotADump() throws Exception {
+        Database database = new Database();
+        database.loadDump(new StringReader(
+            "create table foo(a integer);\n" +
+            "insert into foo(a) values(1);\n" +
+            "insert into foo(a) values(2);\n" +
+            "update foo set a = a + 10;\n" +
+            "insert into foo(a) values(3);\n"
+        ));
+        SqlTestCase.assertResultSet(
+            new String[] { "11", "12", "3" },
+            database.query("select a from foo"));
+    }
+
+}
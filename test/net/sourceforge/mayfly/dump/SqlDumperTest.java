@@ -877,6 +877,10 @@ public class SqlDumperTest extends TestCase {
         
         String dump2 = new SqlDumper().dump(database2.dataStore());
         assertEquals(dump, dump2);
+
+        Database database3 = new Database();
+        database3.loadDump(new StringReader(dump));
+        assertEquals(dump, new SqlDumper().dump(database3.dataStore()));
     }
 
     private String dumpData() throws IOException {
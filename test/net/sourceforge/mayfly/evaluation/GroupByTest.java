@@ -5,7 +5,11 @@ import static net.sourceforge.mayfly.evaluation.select.Evaluator.NO_SUBSELECT_NE
 import junit.framework.TestCase;
 
 import net.sourceforge.mayfly.datastore.LongCell;
+import net.sourceforge.mayfly.evaluation.condition.Condition;
+import net.sourceforge.mayfly.evaluation.expression.CountAll;
 import net.sourceforge.mayfly.evaluation.expression.SingleColumn;
+import net.sourceforge.mayfly.evaluation.expression.Sum;
+import net.sourceforge.mayfly.evaluation.what.Selected;
 import net.sourceforge.mayfly.util.ImmutableList;
 import net.sourceforge.mayfly.util.MayflyAssert;
 
@@ -107,4 +111,48 @@ public class GroupByTest extends TestCase {
         MayflyAssert.assertColumn("foo", "c", 400, seven51Row, 2);
     }
 
+    public void testAggregateAsRowsGoBy() throws Exception {
+        GroupBy groupBy = new GroupBy(
+            new GroupByKeys(new GroupItem(new SingleColumn("a"))), 
+            Condition.TRUE);
+        ResultRows rows = new ResultRows(
+            new ImmutableList()
+                .with(new ResultRow()
+                    .withColumn("foo", "a", new LongCell(8))
+                    .withColumn("foo", "b", new LongCell(50))
+                )
+                .with(new ResultRow()
+                    .withColumn("foo", "a", new LongCell(7))
+                    .withColumn("foo", "b", new LongCell(51))
+                )
+                .with(new ResultRow()
+                    .withColumn("foo", "a", new LongCell(8))
+                    .withColumn("foo", "b", new LongCell(52))
+                )
+        );
+        Selected selected = new Selected(
+            new SingleColumn("a"), 
+            new Sum(new SingleColumn("b"), "sum", false),
+            new CountAll("count"));
+
+        /* Aggregates come first, then the keys (as in GroupedRows). */
+        ResultRows grouped = groupBy.group(
+            RowSource.of(rows), NO_SUBSELECT_NEEDED, selected).readAll();
+        assertEquals(2, grouped.rowCount());
+        assertEquals(new LongCell(8), 
+            grouped.row(0).cell(2));
+        assertEquals(new LongCell(102), 
+            grouped.row(0).cell(0));
+        assertEquals(new LongCell(2), 
+            grouped.row(0).cell(1));
+        assertEquals(new LongCell(7), 
+            grouped.row(1).cell(2));
+        assertEquals(new LongCell(51), 
+            grouped.row(1).cell(0));
+
+        assertEquals(
+            groupBy.group(rows, NO_SUBSELECT_NEEDED, selected).rowCount(),
+            grouped.rowCount());
+    }
+
 }
@@ -2,6 +2,13 @@ package net.sourceforge.mayfly.evaluation.expression;
 
 import junit.framework.TestCase;
 
+import net.sourceforge.mayfly.datastore.Cell;
+import net.sourceforge.mayfly.datastore.LongCell;
+import net.sourceforge.mayfly.datastore.NullCell;
+import net.sourceforge.mayfly.evaluation.Accumulator;
+import net.sourceforge.mayfly.evaluation.Expression;
+import net.sourceforge.mayfly.evaluation.ResultRow;
+import net.sourceforge.mayfly.evaluation.expression.literal.IntegerLiteral;
 import net.sourceforge.mayfly.parser.Location;
 
 public class AggregateExpressionTest extends TestCase {
@@ -23,4 +30,49 @@ public class AggregateExpressionTest extends TestCase {
         assertTrue(new CountAll("COUNT").sameExpression(new CountAll("count")));
     }
 
+    public void testAccumulator() throws Exception {
+        SingleColumn x = new SingleColumn("x");
+        Cell[] values = new Cell[] { 
+            new LongCell(5), NullCell.INSTANCE, new LongCell(2), new LongCell(5) 
+        };
+        assertEquals(new LongCell(3), accumulate(
+            new Count(x, "count", false), values));
+        assertEquals(new LongCell(2), accumulate(
+            new Count(x, "count", true), values));
+        assertEquals(new LongCell(4), accumulate(
+            new CountAll("count"), values));
+        assertEquals(new LongCell(12), accumulate(
+            new Sum(x, "sum", false), values));
+        assertEquals(new LongCell(7), accumulate(
+            new Sum(x, "sum", true), values));
+        assertEquals(new LongCell(4), accumulate(
+            new Average(x, "avg", false), values));
+        assertEquals(new LongCell(2), accumulate(
+            new Minimum(x, "min", false), values));
+        assertEquals(new LongCell(6), accumulate(
+            new Plus(new Maximum(x, "max", false), new IntegerLiteral(1)), 
+            values));
+    }
+
+    public void testAccumulateNothing() throws Exception {
+        SingleColumn x = new SingleColumn("x");
+        Cell[] values = new Cell[] { NullCell.INSTANCE };
+        assertEquals(new LongCell(0), accumulate(
+            new Count(x, "count", false), values));
+        assertEquals(NullCell.INSTANCE, accumulate(
+            new Sum(x, "sum", false), values));
+        assertEquals(NullCell.INSTANCE, accumulate(
+            new Maximum(x, "max", false), values));
+        assertEquals(new LongCell(0), accumulate(
+            new CountAll("count"), new Cell[0]));
+    }
+
+    private Cell accumulate(Expression expression, Cell[] values) {
+        Accumulator accumulator = expression.accumulator();
+        for (int i = 0; i < values.length; ++i) {
+            accumulator.add(new ResultRow().withColumn("foo", "x", values[i]));
+        }
+        return accumulator.result();
+    }
+
 }
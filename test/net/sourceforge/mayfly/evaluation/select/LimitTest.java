@@ -2,6 +2,11 @@ package net.sourceforge.mayfly.evaluation.select;
 
 import junit.framework.TestCase;
 
+import net.sourceforge.mayfly.datastore.LongCell;
+import net.sourceforge.mayfly.evaluation.ResultRow;
+import net.sourceforge.mayfly.evaluation.RowSource;
+import net.sourceforge.mayfly.evaluation.expression.SingleColumn;
+
 public class LimitTest extends TestCase {
     
     public void testIsSpecified() throws Exception {
@@ -11,4 +16,49 @@ public class LimitTest extends TestCase {
         assertFalse(Limit.NONE.isSpecified());
     }
 
+    public void testStopsReadingWhenItHasEnough() throws Exception {
+        CountingSource input = new CountingSource(1000);
+        RowSource limited = new Limit(2, 3).limit(input);
+        limited.open();
+        assertEquals(3, limited.next().cell(0).asLong());
+        assertEquals(4, limited.next().cell(0).asLong());
+        assertNull(limited.next());
+        limited.close();
+        assertEquals(5, input.rowsRead);
+        assertTrue(input.closed);
+    }
+    
+    public void testOffsetPastEnd() throws Exception {
+        CountingSource input = new CountingSource(2);
+        RowSource limited = new Limit(5, 3).limit(input);
+        limited.open();
+        assertNull(limited.next());
+        assertNull(limited.next());
+        assertEquals(2, input.rowsRead);
+    }
+    
+    static class CountingSource extends RowSource {
+        private final int size;
+        int rowsRead = 0;
+        boolean closed = false;
+        
+        CountingSource(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public ResultRow next() {
+            if (rowsRead >= size) {
+                return null;
+            }
+            return new ResultRow().with(
+                new SingleColumn("a"), new LongCell(rowsRead++));
+        }
+        
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
 }
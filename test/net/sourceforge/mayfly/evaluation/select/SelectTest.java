@@ -7,6 +7,7 @@ import org.junit.Test;
 
 import junitx.framework.ObjectAssert;
 
+import net.sourceforge.mayfly.Database;
 import net.sourceforge.mayfly.datastore.Schema;
 import net.sourceforge.mayfly.datastore.StringCell;
 import net.sourceforge.mayfly.evaluation.ResultRow;
@@ -23,7 +24,11 @@ import net.sourceforge.mayfly.evaluation.expression.Maximum;
 import net.sourceforge.mayfly.evaluation.expression.SingleColumn;
 import net.sourceforge.mayfly.evaluation.expression.literal.IntegerLiteral;
 import net.sourceforge.mayfly.evaluation.from.FromTable;
+import net.sourceforge.mayfly.evaluation.from.HashJoin;
+import net.sourceforge.mayfly.evaluation.from.IndexOrderScan;
+import net.sourceforge.mayfly.evaluation.from.IndexScan;
 import net.sourceforge.mayfly.evaluation.from.InnerJoin;
+import net.sourceforge.mayfly.evaluation.from.Join;
 import net.sourceforge.mayfly.util.ImmutableList;
 import net.sourceforge.mayfly.util.L;
 import net.sourceforge.mayfly.util.MayflyAssert;
@@ -177,9 +182,11 @@ public class SelectTest {
                 .createTable("baz", "id")
             ));
 
-        InnerJoin join = (InnerJoin) planned.from;
-        InnerJoin firstJoin = (InnerJoin) join.left;
+        Join join = (Join) planned.from;
+        Join firstJoin = (Join) join.left;
 
+        ObjectAssert.assertInstanceOf(HashJoin.class, firstJoin);
+        ObjectAssert.assertInstanceOf(InnerJoin.class, join);
         Equal on = (Equal) firstJoin.condition;
         MayflyAssert.assertColumn("foo", "id", on.leftSide);
         MayflyAssert.assertColumn("bar", "id", on.rightSide);
@@ -187,6 +194,49 @@ public class SelectTest {
         ObjectAssert.assertInstanceOf(True.class, planned.where);
     }
     
+    @Test
+    public void testIndexScan() throws Exception {
+        Database database = new Database();
+        database.execute("create table foo(a integer, b integer)");
+        database.execute("create index a_index on foo(a)");
+        Evaluator evaluator = new StoreEvaluator(database.dataStore());
+
+        IndexScan scan = (IndexScan) 
+            plan(evaluator, "select * from foo where b > 5 and a = 4").from;
+        assertEquals("a", scan.column);
+        assertTrue(scan.isPointLookup());
+
+        ObjectAssert.assertInstanceOf(FromTable.class, 
+            plan(evaluator, "select * from foo where b = 4").from);
+        ObjectAssert.assertInstanceOf(FromTable.class, 
+            plan(evaluator, "select * from foo where a = b").from);
+        ObjectAssert.assertInstanceOf(FromTable.class, 
+            plan(evaluator, "select * from foo where a = 4 or b = 5").from);
+    }
+
+    @Test
+    public void testOrderThroughIndex() throws Exception {
+        Database database = new Database();
+        database.execute("create table foo(a integer, b integer)");
+        database.execute("create index a_index on foo(a)");
+        Evaluator evaluator = new StoreEvaluator(database.dataStore());
+
+        IndexOrderScan scan = (IndexOrderScan) 
+            plan(evaluator, "select * from foo order by a desc limit 5").from;
+        assertEquals("a", scan.column);
+
+        ObjectAssert.assertInstanceOf(FromTable.class, 
+            plan(evaluator, "select * from foo order by b").from);
+        ObjectAssert.assertInstanceOf(FromTable.class, 
+            plan(evaluator, "select * from foo order by a, b").from);
+        ObjectAssert.assertInstanceOf(FromTable.class, 
+            plan(evaluator, "select a from foo group by a order by a").from);
+    }
+
+    private OptimizedSelect plan(Evaluator evaluator, String sql) {
+        return ((Select) Select.fromSql(sql)).plan(evaluator);
+    }
+    
     @Ignore
     @Test
     public void testAlsoWillTransformWhereToOnForExplicitJoin() throws Exception {
@@ -323,8 +373,8 @@ public class SelectTest {
                 .createTable("baz", "id")
             ));
 
-        InnerJoin join = (InnerJoin) planned.from;
-        InnerJoin firstJoin = (InnerJoin) join.left;
+        Join join = (Join) planned.from;
+        Join firstJoin = (Join) join.left;
 
         Equal on = (Equal) firstJoin.condition;
         MayflyAssert.assertColumn("foo", "id", on.leftSide);
@@ -351,8 +401,8 @@ public class SelectTest {
                 .createTable("baz", "id")
             ));
 
-        InnerJoin join = (InnerJoin) planned.from;
-        InnerJoin firstJoin = (InnerJoin) join.left;
+        Join join = (Join) planned.from;
+        Join firstJoin = (Join) join.left;
 
         Or on = (Or) firstJoin.condition;
         MayflyAssert.assertColumn("bar", "id", ((Equal)on.leftSide).leftSide);
@@ -377,8 +427,8 @@ public class SelectTest {
                 .createTable("baz", "id")
             ));
 
-        InnerJoin join = (InnerJoin) planned.from;
-        InnerJoin firstJoin = (InnerJoin) join.left;
+        Join join = (Join) planned.from;
+        Join firstJoin = (Join) join.left;
 
         And on = (And) firstJoin.condition;
         MayflyAssert.assertColumn("foo", "id", ((Greater)on.leftSide).leftSide);
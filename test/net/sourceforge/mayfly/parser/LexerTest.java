@@ -562,6 +562,28 @@ public class LexerTest extends TestCase {
         assertNull(((Token)tokens.get(4)).location.command);
     }
     
+    public void testOneCommandAtATime() throws Exception {
+        Lexer lexer = new Lexer(new StringReader(
+            "insert ; drop \n\n;   "));
+
+        List first = lexer.nextCommandTokens();
+        assertEquals(2, first.size());
+        assertEquals("insert ", ((Token)first.get(0)).location.command);
+        assertEquals(TokenType.SEMICOLON, ((Token)first.get(1)).type);
+
+        List second = lexer.nextCommandTokens();
+        assertEquals(2, second.size());
+        assertEquals(" drop \n\n", ((Token)second.get(0)).location.command);
+        MayflyAssert.assertLocation(1, 10, 1, 14, 
+            ((Token)second.get(0)).location);
+
+        List last = lexer.nextCommandTokens();
+        assertEquals(1, last.size());
+        assertEquals(TokenType.END_OF_FILE, ((Token)last.get(0)).type);
+
+        assertNull(lexer.nextCommandTokens());
+    }
+    
     private void check(TokenType[] expectedTypes, String[] expectedTexts, 
         String input) {
         check(expectedTypes, expectedTexts, lex(input));
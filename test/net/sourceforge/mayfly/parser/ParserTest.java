@@ -4,6 +4,7 @@ import junit.framework.TestCase;
 import junitx.framework.ObjectAssert;
 
 import net.sourceforge.mayfly.MayflyException;
+import net.sourceforge.mayfly.Options;
 import net.sourceforge.mayfly.UnimplementedException;
 import net.sourceforge.mayfly.acceptance.MayflyDialect;
 import net.sourceforge.mayfly.datastore.Column;
@@ -39,6 +40,7 @@ import net.sourceforge.mayfly.evaluation.what.WhatElement;
 import net.sourceforge.mayfly.util.ImmutableByteArray;
 import net.sourceforge.mayfly.util.MayflyAssert;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -777,6 +779,29 @@ public class ParserTest extends TestCase {
         assertEquals(0, commands.size());
     }
     
+    public void testCommandsFromReaderAreParsedAsNeeded() throws Exception {
+        Parser parser = new Parser(
+            new StringReader("select x from foo; select y from foo; #"),
+            new Options());
+        assertNotNull(parser.nextCommand());
+        assertNotNull(parser.nextCommand());
+        try {
+            parser.nextCommand();
+            fail();
+        }
+        catch (MayflyException e) {
+            assertEquals("unexpected character '#'", e.getMessage());
+        }
+    }
+
+    public void testNextCommandAtEnd() throws Exception {
+        Parser parser = new Parser(
+            new StringReader("select x from foo;;"), new Options());
+        assertNotNull(parser.nextCommand());
+        assertNull(parser.nextCommand());
+        assertNull(parser.nextCommand());
+    }
+    
     public void testMissingSemicolon() throws Exception {
         try {
             new Parser(
@@ -3,6 +3,7 @@ package net.sourceforge.mayfly.util;
 import junit.framework.TestCase;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
@@ -78,4 +79,49 @@ public class ImmutableMapTest extends TestCase {
 
     }
 
+    public void testOrderAfterWithout() throws Exception {
+        ImmutableMap map = new ImmutableMap()
+            .with("a", "A").with("b", "B").with("c", "C")
+            .without("b").with("b", "BB").with("a", "AA");
+        assertEquals("{a=AA, c=C, b=BB}", map.toString());
+        assertEquals(3, map.size());
+        assertEquals(new HashMap(map), map);
+        assertEquals(map, new HashMap(map));
+        assertEquals(new HashMap(map).hashCode(), map.hashCode());
+    }
+
+    public void testManyChanges() throws Exception {
+        ImmutableMap<Integer, String> map = new ImmutableMap<Integer, String>();
+        for (int i = 0; i < 1000; ++i) {
+            map = map.add(new Integer(i), "v" + i);
+        }
+        ImmutableMap<Integer, String> before = map;
+        for (int i = 0; i < 1000; ++i) {
+            if (i % 10 != 0) {
+                map = map.without(new Integer(i));
+            }
+        }
+        assertEquals(100, map.size());
+        assertEquals(1000, before.size());
+        assertEquals("v999", before.get(new Integer(999)));
+        assertNull(map.get(new Integer(999)));
+        assertEquals("v990", map.get(new Integer(990)));
+
+        int expected = 0;
+        for (Map.Entry<Integer, String> entry : map.entrySet()) {
+            assertEquals(expected, entry.getKey().intValue());
+            expected += 10;
+        }
+        assertEquals(1000, expected);
+
+        try {
+            map.add(new Integer(10), "again");
+            fail();
+        }
+        catch (RuntimeException expectedException) {
+            assertEquals("key 10 already exists", 
+                expectedException.getMessage());
+        }
+    }
+
 }
@@ -0,0 +1,117 @@
+package net.sourceforge.mayfly.util;
+
+import junit.framework.TestCase;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class PersistentHashMapTest extends TestCase {
+
+    public void testEmpty() throws Exception {
+        PersistentHashMap<String, String> map =
+            new PersistentHashMap<String, String>();
+        assertEquals(0, map.size());
+        assertTrue(map.isEmpty());
+        assertNull(map.get("a"));
+        assertFalse(map.iterator().hasNext());
+        assertSame(map, map.without("a"));
+    }
+
+    public void testWith() throws Exception {
+        PersistentHashMap<String, String> empty =
+            new PersistentHashMap<String, String>();
+        PersistentHashMap<String, String> one = empty.with("a", "1");
+        PersistentHashMap<String, String> two = one.with("b", "2");
+        PersistentHashMap<String, String> replaced = two.with("a", "one");
+
+        assertEquals(0, empty.size());
+        assertEquals(1, one.size());
+        assertEquals("1", one.get("a"));
+        assertNull(one.get("b"));
+        assertEquals(2, two.size());
+        assertEquals("2", two.get("b"));
+        assertEquals(2, replaced.size());
+        assertEquals("one", replaced.get("a"));
+        assertEquals("1", two.get("a"));
+    }
+
+    public void testMany() throws Exception {
+        PersistentHashMap<Integer, Integer> map =
+            new PersistentHashMap<Integer, Integer>();
+        for (int i = 0; i < 5000; ++i) {
+            map = map.with(new Integer(i), new Integer(i * 2));
+        }
+        assertEquals(5000, map.size());
+        for (int i = 0; i < 5000; ++i) {
+            assertEquals(i * 2, map.get(new Integer(i)).intValue());
+        }
+
+        Set<Integer> seen = new HashSet<Integer>();
+        for (Map.Entry<Integer, Integer> entry : map) {
+            assertEquals(entry.getKey().intValue() * 2,
+                entry.getValue().intValue());
+            seen.add(entry.getKey());
+        }
+        assertEquals(5000, seen.size());
+
+        for (int i = 0; i < 5000; i += 2) {
+            map = map.without(new Integer(i));
+        }
+        assertEquals(2500, map.size());
+        assertNull(map.get(new Integer(0)));
+        assertEquals(2, map.get(new Integer(1)).intValue());
+    }
+
+    public void testCollisions() throws Exception {
+        PersistentHashMap<Colliding, String> map =
+            new PersistentHashMap<Colliding, String>()
+                .with(new Colliding("a"), "1")
+                .with(new Colliding("b"), "2")
+                .with(new Colliding("c"), "3");
+        assertEquals(3, map.size());
+        assertEquals("2", map.get(new Colliding("b")));
+
+        PersistentHashMap<Colliding, String> smaller =
+            map.without(new Colliding("b"));
+        assertEquals(2, smaller.size());
+        assertNull(smaller.get(new Colliding("b")));
+        assertEquals("3", smaller.get(new Colliding("c")));
+        assertEquals("2", map.get(new Colliding("b")));
+
+        PersistentHashMap<Colliding, String> one =
+            smaller.without(new Colliding("a"));
+        assertEquals(1, one.size());
+        assertEquals("3", one.get(new Colliding("c")));
+        assertTrue(one.without(new Colliding("c")).isEmpty());
+    }
+
+    public void testNullValue() throws Exception {
+        try {
+            new PersistentHashMap<String, String>().with("a", null);
+            fail();
+        }
+        catch (NullPointerException expected) {
+        }
+    }
+
+    static class Colliding {
+        private final String name;
+
+        Colliding(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Colliding &&
+                ((Colliding) obj).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+
+}
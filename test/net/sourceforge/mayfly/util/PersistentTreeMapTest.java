@@ -0,0 +1,143 @@
+package net.sourceforge.mayfly.util;
+
+import junit.framework.TestCase;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+
+public class PersistentTreeMapTest extends TestCase {
+
+    private static final Comparator<Integer> NATURAL =
+        new Comparator<Integer>() {
+            public int compare(Integer first, Integer second) {
+                return first.compareTo(second);
+            }
+        };
+
+    public void testEmpty() throws Exception {
+        PersistentTreeMap<Integer, String> map =
+            new PersistentTreeMap<Integer, String>(NATURAL);
+        assertEquals(0, map.size());
+        assertTrue(map.isEmpty());
+        assertNull(map.get(new Integer(5)));
+        assertFalse(map.iterator().hasNext());
+        assertSame(map, map.without(new Integer(5)));
+    }
+
+    public void testWith() throws Exception {
+        PersistentTreeMap<Integer, String> empty =
+            new PersistentTreeMap<Integer, String>(NATURAL);
+        PersistentTreeMap<Integer, String> one =
+            empty.with(new Integer(5), "five");
+        PersistentTreeMap<Integer, String> two =
+            one.with(new Integer(3), "three");
+        PersistentTreeMap<Integer, String> replaced =
+            two.with(new Integer(5), "FIVE");
+
+        assertEquals(0, empty.size());
+        assertEquals(1, one.size());
+        assertEquals(2, two.size());
+        assertEquals("five", two.get(new Integer(5)));
+        assertEquals(2, replaced.size());
+        assertEquals("FIVE", replaced.get(new Integer(5)));
+        assertEquals("{3=three, 5=five}", two.toString());
+    }
+
+    public void testInOrderAndBalanced() throws Exception {
+        PersistentTreeMap<Integer, Integer> map =
+            new PersistentTreeMap<Integer, Integer>(NATURAL);
+        for (int i = 0; i < 10000; ++i) {
+            // A permutation of 0..9999
+            int key = (i * 7919) % 10000;
+            map = map.with(new Integer(key), new Integer(-key));
+        }
+        assertEquals(10000, map.size());
+
+        int expected = 0;
+        for (Map.Entry<Integer, Integer> entry : map) {
+            assertEquals(expected, entry.getKey().intValue());
+            assertEquals(-expected, entry.getValue().intValue());
+            ++expected;
+        }
+        assertEquals(10000, expected);
+
+        for (int i = 0; i < 10000; i += 3) {
+            map = map.without(new Integer(i));
+        }
+        assertEquals(6666, map.size());
+        assertNull(map.get(new Integer(3)));
+        assertEquals(-4, map.get(new Integer(4)).intValue());
+
+        int previous = -1;
+        int count = 0;
+        for (Map.Entry<Integer, Integer> entry : map) {
+            assertTrue(entry.getKey().intValue() > previous);
+            assertTrue(entry.getKey().intValue() % 3 != 0);
+            previous = entry.getKey().intValue();
+            ++count;
+        }
+        assertEquals(6666, count);
+    }
+
+    public void testRange() throws Exception {
+        PersistentTreeMap<Integer, String> map =
+            new PersistentTreeMap<Integer, String>(NATURAL);
+        for (int i = 0; i < 100; i += 10) {
+            map = map.with(new Integer(i), "v" + i);
+        }
+
+        assertEquals("[20, 30, 40]",
+            keys(map.iterator(new Integer(15), new Integer(40))));
+        assertEquals("[0, 10]", keys(map.iterator(null, new Integer(15))));
+        assertEquals("[80, 90]", keys(map.iterator(new Integer(75), null)));
+        assertEquals("[]", keys(map.iterator(new Integer(41), new Integer(49))));
+        assertEquals("[]", keys(map.iterator(new Integer(95), null)));
+    }
+
+    public void testOldVersionsUnchanged() throws Exception {
+        PersistentTreeMap<Integer, String> before =
+            new PersistentTreeMap<Integer, String>(NATURAL)
+                .with(new Integer(1), "one")
+                .with(new Integer(2), "two");
+        PersistentTreeMap<Integer, String> after =
+            before.without(new Integer(1)).with(new Integer(3), "three");
+        assertEquals("{1=one, 2=two}", before.toString());
+        assertEquals("{2=two, 3=three}", after.toString());
+    }
+
+    public void testFromSorted() throws Exception {
+        L keys = new L();
+        L values = new L();
+        for (int i = 0; i < 1000; ++i) {
+            keys.add(new Integer(i * 2));
+            values.add("v" + i * 2);
+        }
+        PersistentTreeMap<Integer, String> map =
+            PersistentTreeMap.fromSorted(NATURAL, keys, values);
+        assertEquals(1000, map.size());
+        assertEquals("v500", map.get(new Integer(500)));
+        assertNull(map.get(new Integer(501)));
+        assertEquals("[20, 22, 24]",
+            keys(map.iterator(new Integer(19), new Integer(25))));
+
+        map = map.with(new Integer(501), "v501").without(new Integer(0));
+        assertEquals(1000, map.size());
+        assertEquals("v501", map.get(new Integer(501)));
+
+        PersistentTreeMap<Integer, String> empty =
+            PersistentTreeMap.fromSorted(NATURAL, new L(), new L());
+        assertTrue(empty.isEmpty());
+        assertEquals("{1=one}",
+            empty.with(new Integer(1), "one").toString());
+    }
+
+    private String keys(Iterator<Map.Entry<Integer, String>> iter) {
+        L result = new L();
+        while (iter.hasNext()) {
+            result.add(iter.next().getKey());
+        }
+        return result.toString();
+    }
+
+}
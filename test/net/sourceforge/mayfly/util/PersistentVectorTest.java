@@ -0,0 +1,127 @@
+package net.sourceforge.mayfly.util;
+
+import junit.framework.TestCase;
+
+import java.util.Iterator;
+
+public class PersistentVectorTest extends TestCase {
+
+    public void testEmpty() throws Exception {
+        PersistentVector vector = new PersistentVector();
+        assertEquals(0, vector.size());
+        assertTrue(vector.isEmpty());
+        assertFalse(vector.iterator().hasNext());
+        try {
+            vector.get(0);
+            fail();
+        }
+        catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    public void testWith() throws Exception {
+        PersistentVector<String> empty = new PersistentVector<String>();
+        PersistentVector<String> one = empty.with("a");
+        PersistentVector<String> two = one.with("b");
+
+        assertEquals(0, empty.size());
+        assertEquals(1, one.size());
+        assertEquals("a", one.get(0));
+        assertEquals(2, two.size());
+        assertEquals("a", two.get(0));
+        assertEquals("b", two.get(1));
+    }
+
+    public void testManyLevels() throws Exception {
+        // Enough to need a trie three levels deep
+        int size = 32 * 32 * 32 + 100;
+        PersistentVector<Integer> vector = new PersistentVector<Integer>();
+        for (int i = 0; i < size; ++i) {
+            vector = vector.with(new Integer(i));
+        }
+        assertEquals(size, vector.size());
+        for (int i = 0; i < size; ++i) {
+            assertEquals(i, vector.get(i).intValue());
+        }
+
+        int expected = 0;
+        for (Integer element : vector) {
+            assertEquals(expected, element.intValue());
+            ++expected;
+        }
+        assertEquals(size, expected);
+    }
+
+    public void testOldVersionsUnchanged() throws Exception {
+        PersistentVector<Integer> vector = new PersistentVector<Integer>();
+        PersistentVector<Integer> at1000 = null;
+        for (int i = 0; i < 2000; ++i) {
+            if (i == 1000) {
+                at1000 = vector;
+            }
+            vector = vector.with(new Integer(i));
+        }
+        assertEquals(1000, at1000.size());
+        assertEquals(999, at1000.get(999).intValue());
+
+        PersistentVector<Integer> branch = at1000.with(new Integer(-1));
+        assertEquals(-1, branch.get(1000).intValue());
+        assertEquals(1000, vector.get(1000).intValue());
+    }
+
+    public void testReplace() throws Exception {
+        PersistentVector<Integer> vector = new PersistentVector<Integer>();
+        for (int i = 0; i < 100; ++i) {
+            vector = vector.with(new Integer(i));
+        }
+        PersistentVector<Integer> inTrie = vector.replace(5, new Integer(-5));
+        PersistentVector<Integer> inTail = vector.replace(99, new Integer(-99));
+
+        assertEquals(-5, inTrie.get(5).intValue());
+        assertEquals(99, inTrie.get(99).intValue());
+        assertEquals(-99, inTail.get(99).intValue());
+        assertEquals(5, inTail.get(5).intValue());
+        assertEquals(5, vector.get(5).intValue());
+        assertEquals(99, vector.get(99).intValue());
+    }
+
+    public void testSubList() throws Exception {
+        PersistentVector<Integer> vector = new PersistentVector<Integer>();
+        for (int i = 0; i < 100; ++i) {
+            vector = vector.with(new Integer(i));
+        }
+        PersistentVector<Integer> middle = vector.subList(30, 70);
+        assertEquals(40, middle.size());
+        assertEquals(30, middle.get(0).intValue());
+        assertEquals(69, middle.get(39).intValue());
+
+        Iterator<Integer> iter = middle.iterator();
+        for (int i = 30; i < 70; ++i) {
+            assertEquals(i, iter.next().intValue());
+        }
+        assertFalse(iter.hasNext());
+
+        PersistentVector<Integer> extended = middle.with(new Integer(-1));
+        assertEquals(41, extended.size());
+        assertEquals(30, extended.get(0).intValue());
+        assertEquals(-1, extended.get(40).intValue());
+        assertEquals(70, vector.get(70).intValue());
+
+        try {
+            middle.get(40);
+            fail();
+        }
+        catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    public void testPrefixSubList() throws Exception {
+        PersistentVector<String> vector =
+            new PersistentVector<String>().with("a").with("b").with("c");
+        PersistentVector<String> prefix = vector.subList(0, 2);
+        PersistentVector<String> extended = prefix.with("d");
+        assertEquals("[a, b, d]", extended.toString());
+        assertEquals("[a, b, c]", vector.toString());
+    }
+
+}